@@ -0,0 +1,102 @@
+package pogo.assistance.route;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pogo.assistance.data.model.GeoPoint;
+import pogo.assistance.data.model.Quest;
+import pogo.assistance.route.CooldownCalculator.DistanceUnit;
+import pogo.assistance.route.QuestFixtures.Source;
+
+/**
+ * Micro-benchmarks for the distance and cool down calculations, which the planner calls for every pair of points it
+ * considers. Each invocation moves on to the next pair of a fixed pool of points.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CooldownCalculatorBenchmark {
+
+    /**
+     * Small enough for all pairs (~32k) to fit in the distance cache, so the cached benchmark measures cache hits.
+     */
+    private static final int POOL_SIZE = 256;
+
+    private List<Quest> points;
+    private DistanceCalculator distanceCalculator;
+    private double[] distances;
+    private int first;
+    private int second;
+
+    @Setup
+    public void setUp() {
+        points = QuestFixtures.create(Source.SYNTHETIC, POOL_SIZE, 1);
+        distanceCalculator = DistanceCalculator.of(points);
+        distances = new double[POOL_SIZE];
+        // Populate the cache
+        points.forEach(a -> points.forEach(b -> CooldownCalculator.getDistance(a, b)));
+    }
+
+    @Benchmark
+    public double getDistanceCached() {
+        return CooldownCalculator.getDistance(nextFirst(), nextSecond());
+    }
+
+    @Benchmark
+    public double getDistanceUncached() {
+        return CooldownCalculator.getDistance(nextFirst(), nextSecond(), DistanceUnit.KM);
+    }
+
+    @Benchmark
+    public double getDistancePrecomputed() {
+        nextFirst();
+        nextSecond();
+        return distanceCalculator.getDistance(first, second);
+    }
+
+    /**
+     * Distances from one point to every point of the pool, i.e. {@link #POOL_SIZE} distances per invocation.
+     */
+    @Benchmark
+    public double[] getDistancesBatch() {
+        nextFirst();
+        distanceCalculator.getDistances(first, 0, POOL_SIZE, distances);
+        return distances;
+    }
+
+    @Benchmark
+    public double getCooldown() {
+        return CooldownCalculator.getCooldown(nextFirst(), nextSecond());
+    }
+
+    @Benchmark
+    public double getCooldownForDistance() {
+        // Spans the whole cool down table, including distances beyond its last entry
+        return CooldownCalculator.getCooldown((nextFirst().getLatitude() - 35) * 3000, DistanceUnit.KM);
+    }
+
+    private GeoPoint nextFirst() {
+        first = (first + 1) % POOL_SIZE;
+        return points.get(first);
+    }
+
+    private GeoPoint nextSecond() {
+        if (first == 0) {
+            second = (second + 1) % POOL_SIZE;
+        }
+        return points.get(second);
+    }
+
+}
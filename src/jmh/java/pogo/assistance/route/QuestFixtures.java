@@ -0,0 +1,147 @@
+package pogo.assistance.route;
+
+import com.google.common.base.Preconditions;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import lombok.experimental.UtilityClass;
+import pogo.assistance.data.model.ImmutableQuest;
+import pogo.assistance.data.model.Quest;
+import pogo.assistance.data.model.Task;
+import pogo.assistance.data.quest.QuestDictionary;
+
+/**
+ * Quest sets of arbitrary size for benchmarks. Generation is seeded, so the same input always produces the same set and
+ * results stay comparable between runs.
+ */
+@UtilityClass
+public class QuestFixtures {
+
+    /**
+     * Recorded routes (from test resources) used to seed {@link Source#RECORDED} quest sets.
+     */
+    private static final List<String> RECORDED_ROUTES = Collections.unmodifiableList(Arrays.asList(
+            "/routing/sample/3-of-a-kind-bundles.txt",
+            "/routing/sample/sample-stardust-route-1.txt"));
+
+    /**
+     * Area covered by the recorded routes (around Tokyo). Synthetic quests are spread over the same area.
+     */
+    private static final double MIN_LATITUDE = 35.55;
+    private static final double MAX_LATITUDE = 36.05;
+    private static final double MIN_LONGITUDE = 139.45;
+    private static final double MAX_LONGITUDE = 140.15;
+
+    /**
+     * Standard deviation (degrees, ~1 KM) of the jitter applied to recorded points when a set needs more quests than
+     * the recordings have.
+     */
+    private static final double RECORDED_JITTER = 0.01;
+
+    private static final List<String> SYNTHETIC_ABBREVIATIONS = Collections.unmodifiableList(Arrays.asList(
+            "3G15", "3G10", "3B10", "DR15", "DRT"));
+
+    public enum Source {
+        /**
+         * Quests uniformly spread over the area of the recorded routes, with abbreviations picked uniformly from the
+         * ones used by the stardust patterns.
+         */
+        SYNTHETIC,
+        /**
+         * Quests from the recorded routes. Larger sets are filled with jittered copies of the recorded quests, keeping
+         * their geographic clustering and quest mix.
+         */
+        RECORDED
+    }
+
+    public static List<Quest> create(final Source source, final int size, final long seed) {
+        Preconditions.checkArgument(size >= 0);
+        final Random random = new Random(seed);
+        switch (source) {
+            case SYNTHETIC:
+                return createSynthetic(size, random);
+            case RECORDED:
+                return createFromRecorded(size, random);
+            default:
+                throw new UnsupportedOperationException(String.format("Source '%s' not supported", source));
+        }
+    }
+
+    private static List<Quest> createSynthetic(final int size, final Random random) {
+        final List<Quest> quests = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            quests.add(toQuest(
+                    MIN_LATITUDE + random.nextDouble() * (MAX_LATITUDE - MIN_LATITUDE),
+                    MIN_LONGITUDE + random.nextDouble() * (MAX_LONGITUDE - MIN_LONGITUDE),
+                    lookupTask(SYNTHETIC_ABBREVIATIONS.get(random.nextInt(SYNTHETIC_ABBREVIATIONS.size()))).get()));
+        }
+        return quests;
+    }
+
+    private static List<Quest> createFromRecorded(final int size, final Random random) {
+        final List<Quest> seeds = readRecordedQuests();
+        final List<Quest> quests = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            final Quest seed = seeds.get(i % seeds.size());
+            if (i < seeds.size()) {
+                quests.add(seed);
+            } else {
+                quests.add(toQuest(
+                        seed.getLatitude() + random.nextGaussian() * RECORDED_JITTER,
+                        seed.getLongitude() + random.nextGaussian() * RECORDED_JITTER,
+                        seed));
+            }
+        }
+        return quests;
+    }
+
+    /**
+     * Each non-comment line of a route file looks like "35.930088,139.77326, 3G10 10min". Lines with abbreviations
+     * unknown to {@link QuestDictionary} are skipped.
+     */
+    private static List<Quest> readRecordedQuests() {
+        final List<Quest> quests = new ArrayList<>();
+        for (final String route : RECORDED_ROUTES) {
+            try (final BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    Preconditions.checkNotNull(QuestFixtures.class.getResourceAsStream(route), "Missing %s", route),
+                    StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.trim().isEmpty() || line.startsWith("//")) {
+                        continue;
+                    }
+                    final String[] parts = line.split(",");
+                    lookupTask(parts[2].trim().split(" ")[0]).ifPresent(task -> quests.add(toQuest(
+                            Double.parseDouble(parts[0].trim()),
+                            Double.parseDouble(parts[1].trim()),
+                            task)));
+                }
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        Preconditions.checkState(!quests.isEmpty(), "No quests in recorded routes");
+        return quests;
+    }
+
+    private static Optional<Task> lookupTask(final String abbreviation) {
+        return QuestDictionary.lookupByAbbreviation(abbreviation);
+    }
+
+    private static Quest toQuest(final double latitude, final double longitude, final Task task) {
+        return ImmutableQuest.builder()
+                .from(task)
+                .latitude(latitude)
+                .longitude(longitude)
+                .build();
+    }
+
+}
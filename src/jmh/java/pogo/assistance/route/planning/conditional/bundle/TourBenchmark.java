@@ -0,0 +1,97 @@
+package pogo.assistance.route.planning.conditional.bundle;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import pogo.assistance.data.model.GeoPoint;
+import pogo.assistance.data.model.Quest;
+import pogo.assistance.data.model.Reward.RewardObject;
+import pogo.assistance.route.QuestFixtures;
+import pogo.assistance.route.QuestFixtures.Source;
+
+/**
+ * Computation of the lazy attributes of {@link Tour}. Lazy attributes are computed once per instance, so every
+ * invocation works on a fresh copy of the tour. {@link #copy()} measures the copy alone, to be subtracted from the
+ * others. {@link #buildIncrementally(Blackhole)} measures getting the same totals from a {@link TourBuilder} instead,
+ * checked after every appended bundle like the planner does.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TourBenchmark {
+
+    /**
+     * Number of 3 quest bundles in the tour.
+     */
+    @Param({"10", "100"})
+    private int bundleCount;
+
+    private List<Bundle<GeoPoint>> bundles;
+    private Tour tour;
+
+    @Setup
+    public void setUp() {
+        final List<Quest> quests = QuestFixtures.create(Source.RECORDED, bundleCount * 3, 1);
+        bundles = new ArrayList<>(bundleCount);
+        for (int i = 0; i < quests.size(); i += 3) {
+            bundles.add(ImmutableBundle.<GeoPoint>builder().addAllElements(quests.subList(i, i + 3)).build());
+        }
+        final TourBuilder tourBuilder = new TourBuilder();
+        bundles.forEach(tourBuilder::append);
+        tour = tourBuilder.build();
+    }
+
+    @Benchmark
+    public Tour copy() {
+        return fresh();
+    }
+
+    @Benchmark
+    public double getTotalDistance() {
+        return fresh().getTotalDistance();
+    }
+
+    @Benchmark
+    public Duration getTotalDuration() {
+        return fresh().getTotalDuration();
+    }
+
+    @Benchmark
+    public Map<RewardObject, Double> getQuantifiedRewards() {
+        return fresh().getQuantifiedRewards();
+    }
+
+    @Benchmark
+    public void buildIncrementally(final Blackhole blackhole) {
+        final TourBuilder tourBuilder = new TourBuilder();
+        for (final Bundle<GeoPoint> bundle : bundles) {
+            tourBuilder.append(bundle);
+            blackhole.consume(tourBuilder.getTotalDistance());
+            blackhole.consume(tourBuilder.getTotalDuration());
+            blackhole.consume(tourBuilder.getQuantifiedRewards());
+        }
+        blackhole.consume(tourBuilder.build());
+    }
+
+    private Tour fresh() {
+        return ImmutableTour.builder().from(tour).build();
+    }
+
+}
@@ -0,0 +1,80 @@
+package pogo.assistance.route.planning.conditional.bundle;
+
+import static pogo.assistance.route.planning.conditional.bundle.BundlePatternFactory.createAnyOfASetPattern;
+import static pogo.assistance.route.planning.conditional.bundle.BundlePatternFactory.createNOfAKindPattern;
+import static pogo.assistance.route.planning.conditional.bundle.BundlePatternFactory.createOrderIndependentPattern;
+import static pogo.assistance.route.planning.conditional.bundle.BundlePatternFactory.getGenericMapper;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pogo.assistance.data.model.GeoPoint;
+import pogo.assistance.data.model.Quest;
+import pogo.assistance.route.QuestFixtures;
+import pogo.assistance.route.QuestFixtures.Source;
+
+/**
+ * End to end planning of a single tour, with the patterns and config used by the stardust recipe. Each invocation is a
+ * full {@link TourPlanner#plan(List, List)} call, so this is measured as single shot time.
+ *
+ * The larger sizes take a long time per invocation. Use "-PjmhInclude=..." (see build.gradle) to run a subset of the
+ * benchmarks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class TourPlannerBenchmark {
+
+    private static final List<BundlePattern<GeoPoint, String>> PATTERNS = Arrays.asList(
+            createAnyOfASetPattern(Arrays.asList("3G15", "3G10"), 3, getGenericMapper()),
+            createOrderIndependentPattern(Arrays.asList("DR15", "DR15", "DRT"), getGenericMapper()),
+            createNOfAKindPattern(Arrays.asList("3B10"), 3, getGenericMapper()));
+
+    @Param({"100", "1000", "10000", "50000"})
+    private int size;
+
+    @Param({"SYNTHETIC", "RECORDED"})
+    private Source source;
+
+    /**
+     * Width of {@link PlannerConfig#beamWidth()}, with 0 meaning greedy planning (no beam).
+     */
+    @Param({"0", "3"})
+    private int beamWidth;
+
+    private List<Quest> quests;
+    private TourPlanner tourPlanner;
+
+    @Setup
+    public void setUp() {
+        quests = QuestFixtures.create(source, size, 1);
+        tourPlanner = new TourPlanner(ImmutablePlannerConfig.builder()
+                .maxStepDuration(Duration.ofMinutes(20))
+                .maxBundleToBundleDuration(Optional.of(Duration.ofMinutes(30)))
+                .beamWidth((beamWidth > 0) ? OptionalInt.of(beamWidth) : OptionalInt.empty())
+                .build());
+    }
+
+    @Benchmark
+    public Optional<Tour> plan() {
+        return tourPlanner.plan(quests, PATTERNS);
+    }
+
+}
@@ -9,15 +9,17 @@ import pogo.assistance.bot.quest.recipe.RecipeExecutor;
 public class QuestBot {
 
     private final Set<RecipeExecutor> recipeExecutors;
+    private final RecipeScheduler recipeScheduler;
 
     @Inject
-    public QuestBot(final Set<RecipeExecutor> recipeExecutors) {
+    public QuestBot(final Set<RecipeExecutor> recipeExecutors, final RecipeScheduler recipeScheduler) {
         this.recipeExecutors = recipeExecutors;
+        this.recipeScheduler = recipeScheduler;
     }
 
     public static void main(final String[] args) {
         final QuestBot bot = DaggerQuestBotComponent.create().getQuestBot();
-        bot.recipeExecutors.forEach(RecipeExecutor::execute);
+        bot.recipeScheduler.run(bot.recipeExecutors);
         System.exit(0);
     }
 
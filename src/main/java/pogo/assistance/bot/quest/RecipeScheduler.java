@@ -0,0 +1,71 @@
+package pogo.assistance.bot.quest;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import lombok.extern.slf4j.Slf4j;
+import net.dv8tion.jda.core.entities.Message;
+import pogo.assistance.bot.quest.recipe.RecipeExecutor;
+
+/**
+ * Runs recipes concurrently on a bounded pool, so that a run takes about as long as the slowest recipe rather than the
+ * sum of all of them.
+ *
+ * Only fetching and planning runs concurrently. Messages are published one recipe at a time, in the order the recipes
+ * were given, so posts of different recipes never interleave and their order on a channel doesn't depend on which
+ * recipe happened to finish first.
+ */
+@Slf4j
+public class RecipeScheduler {
+
+    private final int parallelism;
+
+    public RecipeScheduler(final int parallelism) {
+        Preconditions.checkArgument(parallelism > 0, "Parallelism must be positive");
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Executes all the {@code recipeExecutors} and returns once all of them are published. Failure of a recipe is
+     * logged and doesn't stop the others.
+     */
+    public void run(final Collection<RecipeExecutor> recipeExecutors) {
+        if (recipeExecutors.isEmpty()) {
+            return;
+        }
+
+        final ExecutorService executorService = Executors.newFixedThreadPool(
+                Math.min(parallelism, recipeExecutors.size()),
+                new ThreadFactoryBuilder().setNameFormat("recipe-%d").setDaemon(true).build());
+        try {
+            final List<Future<Queue<Message>>> preparedMessages = new ArrayList<>(recipeExecutors.size());
+            for (final RecipeExecutor recipeExecutor : recipeExecutors) {
+                preparedMessages.add(executorService.submit((Callable<Queue<Message>>) recipeExecutor::prepareMessages));
+            }
+
+            int i = 0;
+            for (final RecipeExecutor recipeExecutor : recipeExecutors) {
+                final Future<Queue<Message>> messages = preparedMessages.get(i++);
+                try {
+                    recipeExecutor.publish(messages.get());
+                } catch (final ExecutionException | RuntimeException e) {
+                    log.error(String.format("Failed to execute recipe: %s", recipeExecutor), e);
+                }
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while executing recipes", e);
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+}
@@ -8,6 +8,7 @@ import java.util.EnumSet;
 import java.util.Set;
 import java.util.stream.Collectors;
 import javax.inject.Named;
+import pogo.assistance.bot.quest.RecipeScheduler;
 import pogo.assistance.bot.quest.publishing.Publisher;
 import pogo.assistance.bot.quest.publishing.PublisherModule;
 import pogo.assistance.bot.quest.recipe.RareCandyRecipeExecutor;
@@ -19,6 +20,17 @@ import pogo.assistance.data.quest.QuestProvider;
 @Module
 public class QuestBotModule {
 
+    /**
+     * Recipes running at the same time. Each of them plans with all available processors already, so this mostly
+     * overlaps fetching quests of one recipe with planning of another.
+     */
+    private static final int MAX_CONCURRENT_RECIPES = 4;
+
+    @Provides
+    public static RecipeScheduler provideRecipeScheduler() {
+        return new RecipeScheduler(MAX_CONCURRENT_RECIPES);
+    }
+
     @Provides
     public static Set<Map> provideQuestMaps() {
         return EnumSet.allOf(Map.class);
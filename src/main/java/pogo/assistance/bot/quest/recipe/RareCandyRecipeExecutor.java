@@ -2,7 +2,6 @@ package pogo.assistance.bot.quest.recipe;
 
 import static pogo.assistance.route.planning.conditional.bundle.BundlePatternFactory.createNOfAKindPattern;
 import static pogo.assistance.route.planning.conditional.bundle.BundlePatternFactory.createOrderIndependentPattern;
-import static pogo.assistance.route.planning.conditional.bundle.BundlePatternFactory.genericMapper;
 import static pogo.assistance.route.planning.conditional.bundle.BundlePatternFactory.getGenericMapper;
 
 import com.google.common.collect.ImmutableList;
@@ -25,6 +24,7 @@ import pogo.assistance.route.planning.conditional.bundle.BundlePattern;
 import pogo.assistance.route.planning.conditional.bundle.ImmutablePlannerConfig;
 import pogo.assistance.route.planning.conditional.bundle.PlannerConfig;
 import pogo.assistance.route.planning.conditional.bundle.Tour;
+import pogo.assistance.route.planning.conditional.bundle.TourBound;
 
 @RequiredArgsConstructor(onConstructor = @__(@Inject))
 public class RareCandyRecipeExecutor extends RecipeExecutor {
@@ -43,7 +43,8 @@ public class RareCandyRecipeExecutor extends RecipeExecutor {
 
     @Override
     protected List<? extends GeoPoint> supplyPoints() {
-        return getQuestProvider().getQuests(getMap());
+        // Pattern elements are abbreviations, so only the quests that can be part of a pattern are read
+        return getQuestProvider().getQuests(getMap(), getPatternElements());
     }
 
     @Override
@@ -52,8 +53,12 @@ public class RareCandyRecipeExecutor extends RecipeExecutor {
     }
 
     @Override
-    protected List<BundlePattern<GeoPoint, String>> getBundlePatterns(final List<? extends GeoPoint> points) {
-        points.removeIf(point -> !PATTERN_ELEMENTS.contains(genericMapper(point)));
+    protected Set<String> getPatternElements() {
+        return PATTERN_ELEMENTS;
+    }
+
+    @Override
+    protected List<BundlePattern<GeoPoint, String>> getBundlePatterns() {
         return PATTERNS;
     }
 
@@ -64,10 +69,14 @@ public class RareCandyRecipeExecutor extends RecipeExecutor {
                     .maxBundleDuration(Duration.ofMinutes(20))
                     .maxBundleToBundleDuration(Optional.of(Duration.ofMinutes(30)))
                     .tourComparator(getTourComparator())
+                    .tourBound(TourBound.ofReward(RewardObject.RARE_CANDY))
+                    .timeBudget(PLANNING_TIME_BUDGET)
                     .build();
         } else {
             return ImmutablePlannerConfig.builder()
                     .maxStepDuration(Duration.ofMinutes(20))
+                    .tourBound(TourBound.ofBundleCount())
+                    .timeBudget(PLANNING_TIME_BUDGET)
                     .build();
         }
     }
@@ -14,6 +14,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Optional;
 import java.util.Queue;
+import java.util.Set;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import net.dv8tion.jda.core.MessageBuilder;
@@ -22,10 +23,13 @@ import pogo.assistance.bot.quest.publishing.Publisher;
 import pogo.assistance.data.model.GeoPoint;
 import pogo.assistance.data.model.Map;
 import pogo.assistance.route.planning.conditional.bundle.BundlePattern;
-import pogo.assistance.route.planning.conditional.bundle.BundlePatternFactory;
 import pogo.assistance.route.planning.conditional.bundle.ImmutablePlannerConfig;
+import pogo.assistance.route.planning.conditional.bundle.KeyedPoints;
+import pogo.assistance.route.planning.conditional.bundle.PatternKeys;
+import pogo.assistance.route.planning.conditional.bundle.PlanReport;
 import pogo.assistance.route.planning.conditional.bundle.PlannerConfig;
 import pogo.assistance.route.planning.conditional.bundle.Tour;
+import pogo.assistance.route.planning.conditional.bundle.TourBound;
 import pogo.assistance.route.planning.conditional.bundle.TourPlanner;
 import pogo.assistance.ui.TourDescriber;
 
@@ -40,9 +44,25 @@ import pogo.assistance.ui.TourDescriber;
 @RequiredArgsConstructor
 public abstract class RecipeExecutor {
 
+    /**
+     * Time each planner call gets to explore starting points, so that recipes finish in time to be published.
+     */
+    protected static final Duration PLANNING_TIME_BUDGET = Duration.ofMinutes(2);
+
     private final StringBuilder executionNotes = new StringBuilder();
 
     public void execute() {
+        publish(prepareMessages());
+    }
+
+    /**
+     * Does everything needed to produce the route(s) of this recipe, except for publishing them. Lets a scheduler run
+     * the expensive part of several recipes concurrently while still deciding the order in which they get published.
+     *
+     * @return
+     *      Messages to be published with {@link #publish(Queue)}.
+     */
+    public Queue<Message> prepareMessages() {
         log.info("Running executor: " + getRecipeDescription());
         logExecutionNote(String.format("%d hours left in the day for %s", getHoursLeftInDay(getMap()), getMap()));
 
@@ -50,43 +70,53 @@ public abstract class RecipeExecutor {
         final List<? extends GeoPoint> points = supplyPoints();
         if (points.isEmpty()) {
             logExecutionNote("No point available for planning");
-            publish(Collections.emptyList());
-            return;
+            return toMessages(Collections.emptyList());
         }
 
         // Refine points to keep the relevant ones
-        final List<? extends GeoPoint> mutableList = new ArrayList<>(points);
-        final List<BundlePattern<GeoPoint, String>> bundlePatterns = getBundlePatterns(mutableList);
-        if (mutableList.isEmpty()) {
+        final KeyedPoints<GeoPoint> relevantPoints = KeyedPoints.<GeoPoint>of(points)
+                .filter(PatternKeys.getKeyIds(getPatternElements()));
+        if (relevantPoints.isEmpty()) {
             logExecutionNote("Available points are irrelevant for this recipe");
-            publish(Collections.emptyList());
-            return;
+            return toMessages(Collections.emptyList());
         }
-        logPoints(String.format("Considered following %d points for planning:", mutableList.size()), mutableList);
+        logPoints(String.format("Considered following %d points for planning:", relevantPoints.size()), relevantPoints);
 
         // Plan
-        final List<Tour> tours = plan(mutableList, bundlePatterns);
+        final List<Tour> tours = plan(relevantPoints, getBundlePatterns());
 
-        // Publish
-        publish(tours);
+        return toMessages(tours);
+    }
+
+    public void publish(final Queue<Message> messages) {
+        getPublisher().publish(messages);
+//        // Put some emotes on the last message
+//        final List<Message> published = getPublisher().publish(messages);
+//        Streams.findLast(published.stream().filter(Objects::nonNull)).ifPresent(lastMessage -> {
+//            lastMessage.addReaction("\uD83E\uDD16").queue();
+//            lastMessage.addReaction("\uD83D\uDC4D").queue();
+//            lastMessage.addReaction("\uD83D\uDC4E").complete();
+//        });
     }
 
     protected abstract List<? extends GeoPoint> supplyPoints();
 
     protected List<Tour> plan(
-            final List<? extends GeoPoint> points,
+            final KeyedPoints<GeoPoint> points,
             final List<BundlePattern<GeoPoint, String>> bundlePatterns) {
         Preconditions.checkArgument(!points.isEmpty());
-        final List<? extends GeoPoint> mutableList = new ArrayList<>(points);
+        KeyedPoints<GeoPoint> remainingPoints = points;
         final List<Tour> tours = new ArrayList<>();
         final PlannerConfig plannerConfig = getPlannerConfig();
         final TourPlanner planner = new TourPlanner(plannerConfig);
         boolean noAcceptableTour = false;
-        while (!mutableList.isEmpty() && !noAcceptableTour) {
-            final Optional<Tour> planned = planner.plan(Collections.unmodifiableList(mutableList), bundlePatterns);
+        while (!remainingPoints.isEmpty() && !noAcceptableTour) {
+            final PlanReport report = planner.planWithReport(remainingPoints, bundlePatterns);
+            logIfIncomplete(report, String.format("Route %d", tours.size() + 1));
+            final Optional<Tour> planned = report.getTour();
             if (planned.isPresent() && !planned.get().getBundles().isEmpty()) {
                 final Tour tour = planned.get();
-                mutableList.removeAll(tour.getElements());
+                remainingPoints = remainingPoints.without(tour.getElements());
                 tours.add(tour);
             } else {
                 noAcceptableTour = true;
@@ -97,15 +127,15 @@ public abstract class RecipeExecutor {
         if (tours.removeIf(tour -> tour.getBundles().size() < 3)) {
             logExecutionNote("Discarded one/more route(s) because they were too short (< 3 sets)");
         }
-        if (!mutableList.isEmpty()) {
-            logPoints(String.format("%d points that didn't fit into route:", mutableList.size()), mutableList);
+        if (!remainingPoints.isEmpty()) {
+            logPoints(String.format("%d points that didn't fit into route:", remainingPoints.size()), remainingPoints);
         }
         logPlannerConfig(plannerConfig);
 
         return tours;
     }
 
-    protected void publish(final List<Tour> tours) {
+    protected Queue<Message> toMessages(final List<Tour> tours) {
         final Queue<Message> messages = new LinkedList<>();
 
         messages.add(new MessageBuilder().appendCodeBlock(getRecipeDescription()
@@ -121,14 +151,7 @@ public abstract class RecipeExecutor {
 
         getExecutionNotes().ifPresent(notes -> messages.add(new MessageBuilder().appendCodeBlock(notes, "fix").build()));
 
-        getPublisher().publish(messages);
-//        // Put some emotes on the last message
-//        final List<Message> published = getPublisher().publish(messages);
-//        Streams.findLast(published.stream().filter(Objects::nonNull)).ifPresent(lastMessage -> {
-//            lastMessage.addReaction("\uD83E\uDD16").queue();
-//            lastMessage.addReaction("\uD83D\uDC4D").queue();
-//            lastMessage.addReaction("\uD83D\uDC4E").complete();
-//        });
+        return messages;
     }
 
     protected void logExecutionNote(final String note) {
@@ -138,13 +161,13 @@ public abstract class RecipeExecutor {
         executionNotes.append(" * ").append(note);
     }
 
-    protected void logPoints(final String header, final List<? extends GeoPoint> points) {
+    protected void logPoints(final String header, final KeyedPoints<?> points) {
         if (executionNotes.length() > 0) {
             executionNotes.append(System.lineSeparator());
         }
         executionNotes.append(toBulletPoints(
                 header,
-                describeClassification(points, BundlePatternFactory.getGenericMapper()),
+                describeClassification(points.getKeyIds(), PatternKeys::getKey),
                 1));
     }
 
@@ -160,6 +183,16 @@ public abstract class RecipeExecutor {
         executionNotes.append(toBulletPoints("Planner configuration:", descriptions, 1));
     }
 
+    protected void logIfIncomplete(final PlanReport report, final String tag) {
+        if (!report.isComplete()) {
+            logExecutionNote(String.format(
+                    "[%s] Planning ran out of time after exploring %d of %d starting points",
+                    tag,
+                    report.getExploredStartingPointCount(),
+                    report.getStartingPointCount()));
+        }
+    }
+
     protected Optional<String> getExecutionNotes() {
         return Optional.of(executionNotes)
                 .filter(notes -> notes.length() > 0)
@@ -170,6 +203,8 @@ public abstract class RecipeExecutor {
         return ImmutablePlannerConfig.builder()
                 .maxStepDuration(Duration.ofMinutes(20))
                 .maxBundleToBundleDuration(Optional.of(Duration.ofMinutes(30)))
+                .tourBound(TourBound.ofBundleCount())
+                .timeBudget(PLANNING_TIME_BUDGET)
                 .build();
     }
 
@@ -178,17 +213,26 @@ public abstract class RecipeExecutor {
                 .thenComparing(Comparator.comparing(Tour::getTotalDuration).reversed());
     }
 
+    @Override
+    public String toString() {
+        return getRecipeDescription();
+    }
+
     protected abstract Map getMap();
     protected abstract String getRecipeDescription();
     protected abstract Publisher getPublisher();
 
     /**
-     * @param points
-     *      Mutable list of points. This method should remove all elements from this list that are not relevant to the
-     *      bundle patterns returned by this method.
+     * @return
+     *      Pattern keys (see {@link PatternKeys}) of the points relevant to the bundle patterns returned by
+     *      {@link #getBundlePatterns()}. Other points are not considered for planning.
+     */
+    protected abstract Set<String> getPatternElements();
+
+    /**
      * @return
      *      List of patterns that should be used for planning.
      */
-    protected abstract List<BundlePattern<GeoPoint, String>> getBundlePatterns(final List<? extends GeoPoint> points);
+    protected abstract List<BundlePattern<GeoPoint, String>> getBundlePatterns();
 
 }
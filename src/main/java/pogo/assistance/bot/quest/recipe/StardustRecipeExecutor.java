@@ -3,7 +3,6 @@ package pogo.assistance.bot.quest.recipe;
 import static pogo.assistance.route.planning.conditional.bundle.BundlePatternFactory.createAnyOfASetPattern;
 import static pogo.assistance.route.planning.conditional.bundle.BundlePatternFactory.createNOfAKindPattern;
 import static pogo.assistance.route.planning.conditional.bundle.BundlePatternFactory.createOrderIndependentPattern;
-import static pogo.assistance.route.planning.conditional.bundle.BundlePatternFactory.genericMapper;
 import static pogo.assistance.route.planning.conditional.bundle.BundlePatternFactory.getGenericMapper;
 import static pogo.assistance.ui.RenderingUtils.getHoursLeftInDay;
 
@@ -18,12 +17,14 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import java.util.Queue;
 import java.util.Set;
 import java.util.function.Predicate;
 import javax.inject.Inject;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import net.dv8tion.jda.core.entities.Message;
 import pogo.assistance.bot.quest.publishing.Publisher;
 import pogo.assistance.data.model.GeoPoint;
 import pogo.assistance.data.model.Map;
@@ -31,8 +32,14 @@ import pogo.assistance.data.model.Reward.RewardObject;
 import pogo.assistance.data.quest.QuestProvider;
 import pogo.assistance.route.planning.conditional.bundle.BundlePattern;
 import pogo.assistance.route.planning.conditional.bundle.ImmutablePlannerConfig;
+import pogo.assistance.route.planning.conditional.bundle.KeyedPoints;
+import pogo.assistance.route.planning.conditional.bundle.LocalSearchTourOptimizer;
+import pogo.assistance.route.planning.conditional.bundle.PatternKeys;
+import pogo.assistance.route.planning.conditional.bundle.PlanReport;
 import pogo.assistance.route.planning.conditional.bundle.PlannerConfig;
 import pogo.assistance.route.planning.conditional.bundle.Tour;
+import pogo.assistance.route.planning.conditional.bundle.TourBound;
+import pogo.assistance.route.planning.conditional.bundle.TourOptimizer;
 import pogo.assistance.route.planning.conditional.bundle.TourPlanner;
 
 @Slf4j
@@ -62,6 +69,11 @@ public class StardustRecipeExecutor extends RecipeExecutor {
             .add(createNOfAKindPattern(Arrays.asList("3B10"), 3, getGenericMapper()))
             .build();
 
+    /**
+     * Shortens planned tours, which improves their stardust rate checked by {@link #qualityFilter}.
+     */
+    private static final TourOptimizer TOUR_OPTIMIZER = new LocalSearchTourOptimizer(Duration.ofSeconds(5));
+
     @Getter
     private final Map map;
     @Getter
@@ -69,7 +81,8 @@ public class StardustRecipeExecutor extends RecipeExecutor {
     @Getter
     private final Publisher publisher;
 
-    public void execute() {
+    @Override
+    public Queue<Message> prepareMessages() {
         log.info("Running executor: " + getRecipeDescription());
         logExecutionNote(String.format("%d hours left in the day for %s", getHoursLeftInDay(getMap()), getMap()));
 
@@ -77,28 +90,27 @@ public class StardustRecipeExecutor extends RecipeExecutor {
         final List<? extends GeoPoint> points = supplyPoints();
         if (points.isEmpty()) {
             logExecutionNote("No point available for planning.");
-            publish(Collections.emptyList());
-            return;
+            return toMessages(Collections.emptyList());
         }
 
         // Plan
-        final List<Tour> tours = plan(points, null);
+        final List<Tour> tours = plan(KeyedPoints.of(points), null);
 
-        // Publish
-        publish(tours);
+        return toMessages(tours);
     }
 
     protected List<Tour> plan(
-            final List<? extends GeoPoint> points,
+            final KeyedPoints<GeoPoint> points,
             final List<BundlePattern<GeoPoint, String>> __) {
         Preconditions.checkArgument(!points.isEmpty());
-        final List<? extends GeoPoint> mutableList = new ArrayList<>(points);
+        KeyedPoints<GeoPoint> remainingPoints = points;
         final List<Tour> tours = new ArrayList<>();
         boolean noAcceptableTour = false;
-        while (!mutableList.isEmpty() && !noAcceptableTour) {
-            final Optional<Tour> planned = planRoute(mutableList);
+        while (!remainingPoints.isEmpty() && !noAcceptableTour) {
+            final Optional<Tour> planned = planRoute(remainingPoints);
             if (planned.isPresent()) {
                 tours.add(planned.get());
+                remainingPoints = remainingPoints.without(planned.get().getElements());
             } else {
                 noAcceptableTour = true;
             }
@@ -110,16 +122,15 @@ public class StardustRecipeExecutor extends RecipeExecutor {
     }
 
     /**
-     * @param mutableList
-     *      Points to be used for planning. Points that are actually used in the returned tour are removed from this
-     *      mutable list.
+     * @param points
+     *      Points to be used for planning.
      * @return
      *      A tour produced using the given points.
      */
-    protected Optional<Tour> planRoute(final List<? extends GeoPoint> mutableList) {
+    protected Optional<Tour> planRoute(final KeyedPoints<GeoPoint> points) {
         // First, plan with "high value" (primary) quests
         final Optional<Tour> primaryPlanned = planRoute(
-                Collections.unmodifiableList(mutableList),
+                points,
                 PRIMARY_PATTERN_ELEMENTS,
                 PRIMARY_PATTERNS,
                 getPlannerConfig(),
@@ -130,7 +141,7 @@ public class StardustRecipeExecutor extends RecipeExecutor {
             final Duration tourDurationLimit = Duration.ofSeconds(
                     900 * (long) Math.ceil(primaryPlanned.get().getTotalDuration().getSeconds() / 900.0));
             final Optional<Tour> aggressivelyPlanned = planRoute(
-                    Collections.unmodifiableList(mutableList),
+                    points,
                     SECONDARY_PATTERN_ELEMENTS,
                     SECONDARY_PATTERNS,
                     ImmutablePlannerConfig.builder()
@@ -140,46 +151,42 @@ public class StardustRecipeExecutor extends RecipeExecutor {
                     "primary-constrained",
                     qualityFilter(getStardustAmount(primaryPlanned.get()), 0.9 * getStardustRate(primaryPlanned.get()), "primary-constrained"));
             if (aggressivelyPlanned.isPresent()) {
-                aggressivelyPlanned.ifPresent(tour -> mutableList.removeAll(tour.getElements()));
                 return aggressivelyPlanned;
             }
 
             // Attempt with secondary failed - so just use what we have with primary
-            primaryPlanned.ifPresent(tour -> mutableList.removeAll(tour.getElements()));
             return primaryPlanned;
         }
 
         // Attempt with primary failed - so just plan the best possible route with all quest options (secondary)
         final Optional<Tour> secondaryPlanned = planRoute(
-                Collections.unmodifiableList(mutableList),
+                points,
                 SECONDARY_PATTERN_ELEMENTS,
                 SECONDARY_PATTERNS,
                 getPlannerConfig(),
                 "secondary",
                 qualityFilter(20000, 1.5, "secondary"));
-        secondaryPlanned.ifPresent(tour -> mutableList.removeAll(tour.getElements()));
         return secondaryPlanned;
     }
 
     protected Optional<Tour> planRoute(
-            final List<? extends GeoPoint> points,
+            final KeyedPoints<GeoPoint> points,
             final Set<String> patternElements,
             final List<BundlePattern<GeoPoint, String>> patterns,
             final PlannerConfig plannerConfig,
             final String tag,
             final Predicate<Tour> qualityCheck) {
-        final List<? extends GeoPoint> mutableList = new ArrayList<>(points);
-        mutableList.removeIf(point -> !patternElements.contains(genericMapper(point)));
-        if (mutableList.isEmpty()) {
+        final KeyedPoints<GeoPoint> relevantPoints = points.filter(PatternKeys.getKeyIds(patternElements));
+        if (relevantPoints.isEmpty()) {
             logExecutionNote(String.format("[%s] Insufficient pattern elements available: %s", tag, String.join(", ", patternElements)));
             return Optional.empty();
         }
 
-        final Optional<Tour> planned = new TourPlanner(plannerConfig)
-                .plan(Collections.unmodifiableList(mutableList), patterns)
-                .filter(qualityCheck);
+        final PlanReport report = new TourPlanner(plannerConfig).planWithReport(relevantPoints, patterns);
+        logIfIncomplete(report, tag);
+        final Optional<Tour> planned = report.getTour().filter(qualityCheck);
         if (planned.isPresent()) {
-            logPoints(String.format("[%s] Considered following %d points for planning:", tag, mutableList.size()), mutableList);
+            logPoints(String.format("[%s] Considered following %d points for planning:", tag, relevantPoints.size()), relevantPoints);
         }
         return planned;
     }
@@ -209,7 +216,8 @@ public class StardustRecipeExecutor extends RecipeExecutor {
 
     @Override
     protected List<? extends GeoPoint> supplyPoints() {
-        return getQuestProvider().getQuests(getMap());
+        // Secondary pattern elements include the primary ones, and are all abbreviations
+        return getQuestProvider().getQuests(getMap(), SECONDARY_PATTERN_ELEMENTS);
     }
 
     @Override
@@ -218,7 +226,12 @@ public class StardustRecipeExecutor extends RecipeExecutor {
     }
 
     @Override
-    protected List<BundlePattern<GeoPoint, String>> getBundlePatterns(final List<? extends GeoPoint> points) {
+    protected Set<String> getPatternElements() {
+        throw new UnsupportedOperationException("Stardust recipe execution doesn't use the general pattern supplier");
+    }
+
+    @Override
+    protected List<BundlePattern<GeoPoint, String>> getBundlePatterns() {
         throw new UnsupportedOperationException("Stardust recipe execution doesn't use the general pattern supplier");
     }
 
@@ -229,12 +242,18 @@ public class StardustRecipeExecutor extends RecipeExecutor {
                     .maxBundleDuration(Duration.ofMinutes(20))
                     .maxBundleToBundleDuration(Optional.of(Duration.ofMinutes(30)))
                     .tourComparator(getTourComparator())
+                    .tourBound(TourBound.ofReward(RewardObject.STARDUST))
+                    .tourOptimizer(TOUR_OPTIMIZER)
+                    .timeBudget(PLANNING_TIME_BUDGET)
                     .build();
         } else {
             return ImmutablePlannerConfig.builder()
                     .maxStepDuration(Duration.ofMinutes(15))
                     .maxTourDuration(Duration.ofHours(3))
                     .tourComparator(getTourComparator())
+                    .tourBound(TourBound.ofReward(RewardObject.STARDUST))
+                    .tourOptimizer(TOUR_OPTIMIZER)
+                    .timeBudget(PLANNING_TIME_BUDGET)
                     .build();
         }
     }
@@ -4,8 +4,10 @@ import dagger.Module;
 import dagger.Provides;
 import java.time.Duration;
 import javax.inject.Named;
+import javax.inject.Singleton;
 import pogo.assistance.data.persistence.QuestRWUtils;
 import pogo.assistance.data.quest.BaseQuestProvider;
+import pogo.assistance.data.quest.CoalescingQuestProvider;
 import pogo.assistance.data.quest.QuestProvider;
 import pogo.assistance.data.quest.QuestProviderPersistenceWrapper;
 
@@ -15,10 +17,13 @@ public class QuestModule {
     public static final String QUEST_PERSISTENCE_TTL = "quest-persistence-ttl";
 
     @Provides
+    @Singleton
     public static QuestProvider provideQuestProvider(
             @Named(QUEST_PERSISTENCE_TTL) final Duration ttl,
             final QuestRWUtils questRWUtils) {
-        return new QuestProviderPersistenceWrapper(ttl, new BaseQuestProvider(), questRWUtils);
+        // Shared by all recipes, so that the ones running concurrently for the same map share one fetch
+        return new CoalescingQuestProvider(
+                new QuestProviderPersistenceWrapper(ttl, new BaseQuestProvider(), questRWUtils));
     }
 
     @Provides
@@ -0,0 +1,147 @@
+package pogo.assistance.data.extraction.source;
+
+import com.google.api.client.http.HttpHeaders;
+import com.google.api.client.http.HttpResponseException;
+import com.google.api.client.http.HttpStatusCodes;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import lombok.NonNull;
+
+/**
+ * Remembers the last response of each page along with the value parsed from it, so that fetching a page that hasn't
+ * changed since is cheap:
+ *   - Requests carry the validators (ETag, Last-Modified) of the last response, letting servers supporting conditional
+ *     requests answer with "304 Not Modified" instead of the page.
+ *   - Payload identical to the last one isn't parsed again, for servers that don't.
+ *
+ * Pages are identified by their URL, unless a page key function says otherwise. Only the response of the latest URL
+ * of a page is kept, so pages whose URL keeps changing (e.g. with filters in the query) don't pile up responses.
+ *
+ * @param <T>
+ *      Type of the value parsed from a page.
+ */
+@ThreadSafe
+public class PageCache<T> {
+
+    private final Function<String, String> pageKey;
+    private final ConcurrentMap<String, Entry<T>> entries = new ConcurrentHashMap<>();
+
+    public PageCache() {
+        this(Function.identity());
+    }
+
+    /**
+     * @param pageKey
+     *      Key of the page that a URL is the latest URL of.
+     */
+    public PageCache(@NonNull final Function<String, String> pageKey) {
+        this.pageKey = pageKey;
+    }
+
+    /**
+     * Adds conditional headers to a request of the {@code url}, if a response of it was seen before.
+     */
+    public void addConditionalHeaders(@NonNull final String url, @NonNull final HttpHeaders requestHeaders) {
+        final Entry<T> entry = getEntry(url);
+        if (entry == null) {
+            return;
+        }
+        if (entry.eTag != null) {
+            requestHeaders.setIfNoneMatch(entry.eTag);
+        }
+        if (entry.lastModified != null) {
+            requestHeaders.setIfModifiedSince(entry.lastModified);
+        }
+    }
+
+    /**
+     * @return
+     *      Value of the last response of the {@code url}, if {@code e} says it's unmodified since that response.
+     */
+    public Optional<T> getIfNotModified(@NonNull final String url, @NonNull final HttpResponseException e) {
+        if (e.getStatusCode() != HttpStatusCodes.STATUS_CODE_NOT_MODIFIED) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(getEntry(url)).map(entry -> entry.value);
+    }
+
+    /**
+     * @return
+     *      Value of the last response of the {@code url}, which may be out of date by now.
+     */
+    public Optional<T> getLast(@NonNull final String url) {
+        return Optional.ofNullable(getEntry(url)).map(entry -> entry.value);
+    }
+
+    /**
+     * Parses the {@code payload} of a response of the {@code url}, unless it's identical to the payload of the last
+     * one.
+     *
+     * @return
+     *      Value parsed from the {@code payload}, or the one parsed from an identical payload before.
+     */
+    public T parse(
+            @NonNull final String url,
+            @NonNull final HttpHeaders responseHeaders,
+            @NonNull final String payload,
+            @NonNull final Function<String, T> parser) {
+        final HashCode payloadHash = Hashing.murmur3_128().hashString(payload, StandardCharsets.UTF_8);
+        final Entry<T> previous = getEntry(url);
+        final T value = (previous != null && payloadHash.equals(previous.payloadHash))
+                ? previous.value
+                : parser.apply(payload);
+        entries.put(pageKey.apply(url), new Entry<>(url, responseHeaders, payloadHash, value));
+        return value;
+    }
+
+    /**
+     * Records a response of the {@code url} whose payload was parsed elsewhere (e.g. while it was being streamed).
+     *
+     * @return
+     *      {@code value}
+     */
+    public T put(@NonNull final String url, @NonNull final HttpHeaders responseHeaders, @NonNull final T value) {
+        entries.put(pageKey.apply(url), new Entry<>(url, responseHeaders, null, value));
+        return value;
+    }
+
+    /**
+     * @return
+     *      Entry of the page of the {@code url}, unless it's from a response of another URL of the page.
+     */
+    @Nullable
+    private Entry<T> getEntry(final String url) {
+        final Entry<T> entry = entries.get(pageKey.apply(url));
+        return (entry != null && entry.url.equals(url)) ? entry : null;
+    }
+
+    private static final class Entry<T> {
+
+        private final String url;
+        @Nullable private final String eTag;
+        @Nullable private final String lastModified;
+        @Nullable private final HashCode payloadHash;
+        private final T value;
+
+        private Entry(
+                final String url,
+                final HttpHeaders responseHeaders,
+                @Nullable final HashCode payloadHash,
+                final T value) {
+            this.url = url;
+            this.eTag = responseHeaders.getETag();
+            this.lastModified = responseHeaders.getLastModified();
+            this.payloadHash = payloadHash;
+            this.value = value;
+        }
+
+    }
+
+}
@@ -5,26 +5,38 @@ import com.google.api.client.http.HttpBackOffUnsuccessfulResponseHandler;
 import com.google.api.client.http.HttpHeaders;
 import com.google.api.client.http.HttpRequest;
 import com.google.api.client.http.HttpRequestFactory;
+import com.google.api.client.http.HttpResponse;
+import com.google.api.client.http.HttpResponseException;
 import com.google.api.client.http.HttpTransport;
 import com.google.api.client.http.javanet.NetHttpTransport;
 import com.google.api.client.util.ExponentialBackOff;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
 import com.google.common.base.Verify;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
 import lombok.extern.slf4j.Slf4j;
+import pogo.assistance.data.extraction.source.PageCache;
 import pogo.assistance.data.model.Action;
 import pogo.assistance.data.model.ImmutableAction;
 import pogo.assistance.data.model.ImmutableQuest;
@@ -37,7 +49,17 @@ import pogo.assistance.data.quest.QuestDictionary;
 public class NineDBDataExtractor {
 
     private static final HttpTransport HTTP_TRANSPORT = new NetHttpTransport();
-    private static final RateLimiter RATE_LIMITER = RateLimiter.create(1);
+
+    /**
+     * Number of prefecture pages being fetched at the same time.
+     */
+    private static final int MAX_CONCURRENT_REQUESTS = 4;
+    /**
+     * Requests started per second on each host, shared by all extractors in the process so that concurrently running
+     * recipes don't multiply the load on the site.
+     */
+    private static final double REQUESTS_PER_SECOND_PER_HOST = 2;
+    private static final ConcurrentMap<String, RateLimiter> SHARED_RATE_LIMITERS = new ConcurrentHashMap<>();
 
     private static final Pattern JSON_EXTRACTION_PATTERN = Pattern.compile("var result = (.*?);");
 
@@ -91,16 +113,140 @@ public class NineDBDataExtractor {
             .put("Kyushu : Okinawa", "https://9db.jp/pokemongo/data/4147?pref=%E6%B2%96%E7%B8%84%E7%9C%8C")
             .build();
 
+    private final Map<String, String> prefectureToUrl;
+    private final int maxConcurrentRequests;
+    private final double requestsPerSecondPerHost;
+    private final ConcurrentMap<String, RateLimiter> rateLimiters;
+    /**
+     * Quests of each prefecture page, so that pages unchanged since the last {@link #getQuests()} aren't parsed again.
+     */
+    private final PageCache<List<Quest>> pageCache = new PageCache<>();
+
+    public NineDBDataExtractor() {
+        this(PREFECTURE_TO_URL, MAX_CONCURRENT_REQUESTS, REQUESTS_PER_SECOND_PER_HOST, SHARED_RATE_LIMITERS);
+    }
+
+    /**
+     * Extractor fetching the given pages (e.g. from a local server), with its own rate budget.
+     */
+    @VisibleForTesting
+    NineDBDataExtractor(
+            final Map<String, String> prefectureToUrl,
+            final int maxConcurrentRequests,
+            final double requestsPerSecondPerHost) {
+        this(prefectureToUrl, maxConcurrentRequests, requestsPerSecondPerHost, new ConcurrentHashMap<>());
+    }
+
+    private NineDBDataExtractor(
+            final Map<String, String> prefectureToUrl,
+            final int maxConcurrentRequests,
+            final double requestsPerSecondPerHost,
+            final ConcurrentMap<String, RateLimiter> rateLimiters) {
+        Preconditions.checkArgument(maxConcurrentRequests > 0, "Max concurrent requests must be positive");
+        Preconditions.checkArgument(requestsPerSecondPerHost > 0, "Requests per second must be positive");
+        this.prefectureToUrl = ImmutableMap.copyOf(prefectureToUrl);
+        this.maxConcurrentRequests = maxConcurrentRequests;
+        this.requestsPerSecondPerHost = requestsPerSecondPerHost;
+        this.rateLimiters = rateLimiters;
+    }
+
+    /**
+     * Fetches prefecture pages concurrently, parsing each one as soon as it arrives. Pages are requested conditionally
+     * and not parsed again when unchanged since the last call, so an extractor should be kept around for refreshes.
+     * Failure of a prefecture is logged and doesn't stop the others; its quests from the last successful fetch are
+     * used instead, if any, so that they don't look removed.
+     *
+     * @return
+     *      Quests of all the prefectures that could be fetched, or were fetched before, in the order of the prefectures.
+     * @throws RuntimeException
+     *      If none of the prefectures could be fetched, now or before.
+     */
     @Nonnull
     public List<Quest> getQuests() {
-        return PREFECTURE_TO_URL.keySet().stream()
-                .map(NineDBDataExtractor::fetchAndProcessPrefecture)
-                .flatMap(List::stream)
-                .collect(Collectors.collectingAndThen(Collectors.toList(), Collections::unmodifiableList));
+        if (prefectureToUrl.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        final ExecutorService executorService = Executors.newFixedThreadPool(
+                Math.min(maxConcurrentRequests, prefectureToUrl.size()),
+                new ThreadFactoryBuilder().setNameFormat("ninedb-fetch-%d").setDaemon(true).build());
+        try {
+            final Map<String, Future<List<Quest>>> prefectureQuests = new LinkedHashMap<>();
+            prefectureToUrl.forEach((prefecture, url) -> prefectureQuests.put(
+                    prefecture,
+                    executorService.submit(() -> fetchAndProcessPrefecture(prefecture, url))));
+
+            final List<Quest> quests = new ArrayList<>();
+            final List<String> failedPrefectures = new ArrayList<>();
+            for (final Map.Entry<String, Future<List<Quest>>> entry : prefectureQuests.entrySet()) {
+                try {
+                    quests.addAll(entry.getValue().get());
+                } catch (final ExecutionException e) {
+                    log.error(String.format("Failed to fetch quests of prefecture: %s", entry.getKey()), e.getCause());
+                    final Optional<List<Quest>> staleQuests =
+                            pageCache.getLast(prefectureToUrl.get(entry.getKey()));
+                    if (staleQuests.isPresent()) {
+                        log.warn(String.format("Using stale quests of prefecture: %s", entry.getKey()));
+                        quests.addAll(staleQuests.get());
+                    } else {
+                        failedPrefectures.add(entry.getKey());
+                    }
+                }
+            }
+            if (failedPrefectures.size() == prefectureToUrl.size()) {
+                throw new RuntimeException("Failed to fetch quests of every prefecture");
+            }
+            if (!failedPrefectures.isEmpty()) {
+                log.warn(String.format(
+                        "Quests of %d out of %d prefectures are missing: %s",
+                        failedPrefectures.size(),
+                        prefectureToUrl.size(),
+                        failedPrefectures));
+            }
+            return Collections.unmodifiableList(quests);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while fetching quests", e);
+        } finally {
+            executorService.shutdownNow();
+        }
     }
 
-    private static List<Quest> fetchAndProcessPrefecture(final String prefecture) {
-        final String pageSource = readFromUrl(PREFECTURE_TO_URL.get(prefecture));
+    private List<Quest> fetchAndProcessPrefecture(final String prefecture, final String url) {
+        final GenericUrl genericUrl = new GenericUrl(url);
+        rateLimiters.computeIfAbsent(genericUrl.getHost(), host -> RateLimiter.create(requestsPerSecondPerHost))
+                .acquire();
+        final HttpRequestFactory requestFactory = HTTP_TRANSPORT.createRequestFactory();
+        try {
+            final HttpRequest request = requestFactory.buildGetRequest(genericUrl);
+            request.setUnsuccessfulResponseHandler(new HttpBackOffUnsuccessfulResponseHandler(
+                    new ExponentialBackOff.Builder().setMaxElapsedTimeMillis(2 * 60 * 1000).build()));
+            request.setConnectTimeout(15 * 1000);
+            request.setReadTimeout(30 * 1000);
+            final HttpHeaders headers = request.getHeaders();
+            headers.setUserAgent("Mozilla/5.0 (Macintosh; Intel Mac OS X 10_13_6) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/70.0.3538.110 Safari/537.36");
+            headers.set("referer", "https://9db.jp/pokemongo");
+            headers.setCookie("lang=en");
+            pageCache.addConditionalHeaders(url, headers);
+            final HttpResponse response = request.execute();
+            return pageCache.parse(
+                    url,
+                    response.getHeaders(),
+                    response.parseAsString(),
+                    pageSource -> parsePrefecture(prefecture, pageSource));
+        } catch (final HttpResponseException e) {
+            final Optional<List<Quest>> unmodifiedQuests = pageCache.getIfNotModified(url, e);
+            if (unmodifiedQuests.isPresent()) {
+                log.trace(String.format("Quest data unchanged for: %s", prefecture));
+                return unmodifiedQuests.get();
+            }
+            throw new RuntimeException(String.format("Failed to get data from URL %s", url), e);
+        } catch (final IOException e) {
+            throw new RuntimeException(String.format("Failed to get data from URL %s", url), e);
+        }
+    }
+
+    private static List<Quest> parsePrefecture(final String prefecture, final String pageSource) {
         final Matcher matcher = JSON_EXTRACTION_PATTERN.matcher(pageSource);
         Verify.verify(matcher.find(), "Page source didn't match expected pattern.");
         final JsonElement element = new JsonParser().parse(matcher.group(1));
@@ -114,25 +260,7 @@ public class NineDBDataExtractor {
             log.warn(String.format("Quest data unavailable for: %s", prefecture));
         }
         log.trace(String.format("Found %s quests in %s prefecture.", quests.size(), prefecture));
-        return quests;
-    }
-
-    private static String readFromUrl(final String urlString) {
-        RATE_LIMITER.acquire();
-        final HttpRequestFactory requestFactory = HTTP_TRANSPORT.createRequestFactory();
-        try {
-            final HttpRequest request = requestFactory.buildGetRequest(new GenericUrl(urlString));
-            request.setUnsuccessfulResponseHandler(new HttpBackOffUnsuccessfulResponseHandler(new ExponentialBackOff()));
-            request.setConnectTimeout(60 * 1000);
-            request.setReadTimeout(60 * 1000);
-            final HttpHeaders headers = request.getHeaders();
-            headers.setUserAgent("Mozilla/5.0 (Macintosh; Intel Mac OS X 10_13_6) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/70.0.3538.110 Safari/537.36");
-            headers.set("referer", "https://9db.jp/pokemongo");
-            headers.setCookie("lang=en");
-            return request.execute().parseAsString();
-        } catch (final IOException e) {
-            throw new RuntimeException(String.format("Failed to get data from URL %s", urlString), e);
-        }
+        return Collections.unmodifiableList(quests);
     }
 
     @VisibleForTesting
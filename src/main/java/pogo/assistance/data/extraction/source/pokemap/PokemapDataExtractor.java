@@ -6,23 +6,35 @@ import com.google.api.client.http.GenericUrl;
 import com.google.api.client.http.HttpHeaders;
 import com.google.api.client.http.HttpRequest;
 import com.google.api.client.http.HttpRequestFactory;
+import com.google.api.client.http.HttpResponse;
+import com.google.api.client.http.HttpResponseException;
+import com.google.api.client.http.HttpStatusCodes;
 import com.google.api.client.http.HttpTransport;
 import com.google.api.client.http.javanet.NetHttpTransport;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
 import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
-import org.apache.http.client.HttpResponseException;
+import javax.annotation.Nullable;
 import org.apache.http.client.utils.URLEncodedUtils;
 import org.apache.http.message.BasicNameValuePair;
+import pogo.assistance.data.extraction.source.PageCache;
 import pogo.assistance.data.model.ImmutableAction;
 import pogo.assistance.data.model.ImmutableQuest;
 import pogo.assistance.data.model.ImmutableReward;
@@ -34,6 +46,10 @@ public class PokemapDataExtractor {
     private static final HttpTransport HTTP_TRANSPORT = new NetHttpTransport();
 
     private final String baseUrl;
+    /**
+     * Quests of the quest page, whose query changes along with the filters in the metadata.
+     */
+    private final PageCache<List<Quest>> questCache = new PageCache<>(url -> "quests");
 
     public PokemapDataExtractor(final Map map) {
         switch (map) {
@@ -48,16 +64,30 @@ public class PokemapDataExtractor {
         }
     }
 
+    /**
+     * Quest data is requested conditionally, so an extractor should be kept around for refreshes.
+     */
     public List<Quest> getQuests() {
-        return Optional.of(readFromUrl(baseUrl))
-                .map(PokemapDataExtractor::prepareQueryStringFromMetadata)
-                .map(queryString -> baseUrl + "?" + queryString)
-                .map(this::readFromUrl)
-                .map(PokemapDataExtractor::parseQuestsFromQuestData)
-                .orElseGet(Collections::emptyList);
+        final String queryString = prepareQueryStringFromMetadata(
+                readFromUrl(baseUrl, HttpResponse::parseAsString, null));
+        // Quest payload is large, so it's parsed while being downloaded instead of being read into a string first
+        final String questUrl = baseUrl + "?" + queryString;
+        return readFromUrl(questUrl, response -> {
+            try (final InputStream content = response.getContent()) {
+                return questCache.put(questUrl, response.getHeaders(), parseQuestsFromQuestData(content));
+            }
+        }, questCache);
     }
 
-    private String readFromUrl(final String urlString) {
+    /**
+     * @param pageCache
+     *      If present, the request is made conditional on the page having changed since its response in the cache, and
+     *      the cached value is returned if it hasn't.
+     */
+    private <T> T readFromUrl(
+            final String urlString,
+            final ResponseReader<T> responseReader,
+            @Nullable final PageCache<T> pageCache) {
         final HttpRequestFactory requestFactory = HTTP_TRANSPORT.createRequestFactory();
         try {
             final HttpRequest request = requestFactory.buildGetRequest(new GenericUrl(urlString));
@@ -65,12 +95,28 @@ public class PokemapDataExtractor {
             headers.setUserAgent("Mozilla/5.0 (Macintosh; Intel Mac OS X 10_13_6) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/70.0.3538.110 Safari/537.36");
             headers.set("Time-Zone", "Europe/Amsterdam");
             headers.set("referer", baseUrl);
-            return request.execute().parseAsString();
-        } catch (final IOException e) {
-            if (e instanceof HttpResponseException && ((HttpResponseException) e).getStatusCode() == 403) {
+            if (pageCache != null) {
+                pageCache.addConditionalHeaders(urlString, headers);
+            }
+            final HttpResponse response = request.execute();
+            try {
+                return responseReader.read(response);
+            } finally {
+                response.disconnect();
+            }
+        } catch (final HttpResponseException e) {
+            if (pageCache != null) {
+                final Optional<T> unmodifiedValue = pageCache.getIfNotModified(urlString, e);
+                if (unmodifiedValue.isPresent()) {
+                    return unmodifiedValue.get();
+                }
+            }
+            if (e.getStatusCode() == HttpStatusCodes.STATUS_CODE_FORBIDDEN) {
                 throw new RuntimeException(String.format("Your access to %s has been blocked.", urlString), e);
             }
             throw new RuntimeException(String.format("Failed to get JSON from URL %s", urlString), e);
+        } catch (final IOException e) {
+            throw new RuntimeException(String.format("Failed to get JSON from URL %s", urlString), e);
         }
     }
 
@@ -101,20 +147,96 @@ public class PokemapDataExtractor {
 
     @VisibleForTesting
     static List<Quest> parseQuestsFromQuestData(final String questDataJson) {
-        return StreamSupport.stream(new JsonParser().parse(questDataJson).getAsJsonObject().getAsJsonArray("quests").spliterator(), true)
-                .map(JsonElement::getAsJsonObject)
-                .map(jsonObject -> {
-                    final String actionDescription = jsonObject.get("conditions_string").getAsString();
-                    final String rewardDescription = jsonObject.get("rewards_string").getAsString();
-                    final ImmutableQuest.Builder questBuilder = ImmutableQuest.builder()
-                            .latitude(jsonObject.get("lat").getAsDouble())
-                            .longitude(jsonObject.get("lng").getAsDouble())
-                            .action(ImmutableAction.builder().description(actionDescription).build())
-                            .reward(ImmutableReward.builder().description(rewardDescription).build());
-                    fromActionDescriptionToAbbreviation(actionDescription, rewardDescription)
-                            .ifPresent(abbreviation -> questBuilder.abbreviation(Optional.of(abbreviation)));
-                    return questBuilder.build();
-                }).collect(Collectors.collectingAndThen(Collectors.toList(), Collections::unmodifiableList));
+        try {
+            return parseQuestsFromQuestData(new StringReader(questDataJson));
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @VisibleForTesting
+    static List<Quest> parseQuestsFromQuestData(final InputStream questDataJson) throws IOException {
+        return parseQuestsFromQuestData(new InputStreamReader(questDataJson, StandardCharsets.UTF_8));
+    }
+
+    private static List<Quest> parseQuestsFromQuestData(final Reader questDataJson) throws IOException {
+        final List<Quest> quests = new ArrayList<>();
+        parseQuestsFromQuestData(questDataJson, quests::add);
+        return Collections.unmodifiableList(quests);
+    }
+
+    /**
+     * Parses quest data one token at a time, passing each quest to {@code questConsumer} as soon as it's read. Only the
+     * quest being read is held in memory, never the whole payload or its JSON tree. Fields other than the ones used for
+     * {@link Quest} are skipped.
+     */
+    @VisibleForTesting
+    static void parseQuestsFromQuestData(final Reader questDataJson, final Consumer<? super Quest> questConsumer)
+            throws IOException {
+        final JsonReader jsonReader = new JsonReader(questDataJson);
+        boolean questsFound = false;
+        jsonReader.beginObject();
+        while (jsonReader.hasNext()) {
+            if (!"quests".equals(jsonReader.nextName())) {
+                jsonReader.skipValue();
+                continue;
+            }
+            questsFound = true;
+            jsonReader.beginArray();
+            while (jsonReader.hasNext()) {
+                questConsumer.accept(readQuest(jsonReader));
+            }
+            jsonReader.endArray();
+        }
+        jsonReader.endObject();
+        if (!questsFound) {
+            throw new JsonParseException("Quest data is missing the quests array");
+        }
+    }
+
+    private static Quest readQuest(final JsonReader jsonReader) throws IOException {
+        String actionDescription = null;
+        String rewardDescription = null;
+        Double latitude = null;
+        Double longitude = null;
+        jsonReader.beginObject();
+        while (jsonReader.hasNext()) {
+            switch (jsonReader.nextName()) {
+                case "conditions_string":
+                    actionDescription = jsonReader.nextString();
+                    break;
+                case "rewards_string":
+                    rewardDescription = jsonReader.nextString();
+                    break;
+                case "lat":
+                    latitude = jsonReader.nextDouble();
+                    break;
+                case "lng":
+                    longitude = jsonReader.nextDouble();
+                    break;
+                default:
+                    jsonReader.skipValue();
+            }
+        }
+        jsonReader.endObject();
+        if (actionDescription == null || rewardDescription == null || latitude == null || longitude == null) {
+            throw new JsonParseException("Quest is missing one of conditions_string, rewards_string, lat or lng at "
+                    + jsonReader.getPath());
+        }
+
+        final ImmutableQuest.Builder questBuilder = ImmutableQuest.builder()
+                .latitude(latitude)
+                .longitude(longitude)
+                .action(ImmutableAction.builder().description(actionDescription).build())
+                .reward(ImmutableReward.builder().description(rewardDescription).build());
+        fromActionDescriptionToAbbreviation(actionDescription, rewardDescription)
+                .ifPresent(abbreviation -> questBuilder.abbreviation(Optional.of(abbreviation)));
+        return questBuilder.build();
+    }
+
+    @FunctionalInterface
+    private interface ResponseReader<T> {
+        T read(HttpResponse response) throws IOException;
     }
 
 }
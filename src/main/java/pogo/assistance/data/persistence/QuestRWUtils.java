@@ -1,23 +1,35 @@
 package pogo.assistance.data.persistence;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
 import dagger.Reusable;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.text.DateFormat;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import javax.annotation.Nullable;
 import javax.inject.Inject;
 import lombok.NonNull;
@@ -25,6 +37,14 @@ import lombok.extern.slf4j.Slf4j;
 import pogo.assistance.data.model.Map;
 import pogo.assistance.data.model.Quest;
 
+/**
+ * Reads and writes quest snapshots, keeping the latest few of each map in a directory of the map.
+ *
+ * Snapshots are written to a temporary file and renamed into place, so a snapshot file is either complete or absent,
+ * even if the process dies while writing. The name of the latest snapshot is kept in a pointer file (updated the same
+ * way), so finding it doesn't require listing the directory. Writes of a map are serialized, and may run concurrently
+ * with reads from any thread.
+ */
 @Slf4j
 @Reusable
 public class QuestRWUtils {
@@ -32,16 +52,36 @@ public class QuestRWUtils {
     private static final int MAX_FILE_COUNT_PER_MAP = 3;
     private static final String QUEST_DIR_ROOT = "quests";
     private static final String QUEST_FILE_NAME_PREFIX = "quests-";
-    private static final String QUEST_FILE_NAME_SUFFIX = ".json";
-    private static final Pattern DATE_EXTRACTION_PATTERN =
-            Pattern.compile(QUEST_FILE_NAME_PREFIX + "(.*?)" + QUEST_FILE_NAME_SUFFIX);
-    private static final DateFormat DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd HH-mm-ss");
+    private static final String QUEST_FILE_NAME_SUFFIX = ".snapshot";
+    // Quests used to be written as JSON. Such files are still read, until they're deleted for being old.
+    private static final String JSON_QUEST_FILE_NAME_SUFFIX = ".json";
+    private static final Pattern DATE_EXTRACTION_PATTERN = Pattern.compile(String.format(
+            "%s(.*?)(?:%s|%s)$",
+            Pattern.quote(QUEST_FILE_NAME_PREFIX),
+            Pattern.quote(QUEST_FILE_NAME_SUFFIX),
+            Pattern.quote(JSON_QUEST_FILE_NAME_SUFFIX)));
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH-mm-ss");
+    private static final String LATEST_POINTER_FILE_NAME = "latest";
+    private static final String TEMP_FILE_NAME_PREFIX = ".";
+    private static final String TEMP_FILE_NAME_SUFFIX = ".tmp";
+
+    // Shared by all instances, since they may be working on the same directories
+    private static final ConcurrentMap<Path, Object> DIRECTORY_LOCKS = new ConcurrentHashMap<>();
 
     private final Gson gson;
+    private final Path rootDirectory;
+    private final Clock clock;
 
     @Inject
     public QuestRWUtils(@NonNull final Gson gson) {
+        this(gson, Paths.get(QUEST_DIR_ROOT), Clock.systemDefaultZone());
+    }
+
+    @VisibleForTesting
+    QuestRWUtils(@NonNull final Gson gson, @NonNull final Path rootDirectory, @NonNull final Clock clock) {
         this.gson = gson;
+        this.rootDirectory = rootDirectory;
+        this.clock = clock;
     }
 
     public void writeQuests(@NonNull final List<Quest> quests, @NonNull final Map map) {
@@ -49,13 +89,23 @@ public class QuestRWUtils {
             return;
         }
 
-        final Path path = getMapDirectory(map).resolve(
-                QUEST_FILE_NAME_PREFIX + DATE_FORMAT.format(new Date()) + QUEST_FILE_NAME_SUFFIX);
-        try {
-            Files.write(path, gson.toJson(quests, new TypeToken<List<Quest>>(){}.getType()).getBytes());
-            deleteOldFiles(map);
-        } catch (final IOException e) {
-            throw new RuntimeException(String.format("Failed to write JSON quest data to file: %s", path), e);
+        final Path mapDirectory = getMapDirectory(map);
+        final Path path = mapDirectory.resolve(
+                QUEST_FILE_NAME_PREFIX + DATE_FORMATTER.format(LocalDateTime.now(clock)) + QUEST_FILE_NAME_SUFFIX);
+        synchronized (getLock(mapDirectory)) {
+            try {
+                final Path tempPath = Files.createTempFile(mapDirectory, TEMP_FILE_NAME_PREFIX, TEMP_FILE_NAME_SUFFIX);
+                try {
+                    QuestSnapshotCodec.write(quests, tempPath);
+                    moveAtomically(tempPath, path);
+                } finally {
+                    Files.deleteIfExists(tempPath);
+                }
+                updateLatestPointer(mapDirectory, path);
+            } catch (final IOException e) {
+                throw new RuntimeException(String.format("Failed to write quest data to file: %s", path), e);
+            }
+            deleteOldFiles(mapDirectory);
         }
     }
 
@@ -63,74 +113,172 @@ public class QuestRWUtils {
         return getLatestQuestFile(map)
                 .map(path -> {
                     try {
-                        return Files.readAllBytes(path);
+                        return path.getFileName().toString().endsWith(JSON_QUEST_FILE_NAME_SUFFIX)
+                                ? readJsonQuests(path)
+                                : QuestSnapshotCodec.read(path);
+                    } catch (final IOException e) {
+                        log.warn(String.format("Failed to read quest file: %s", path), e);
+                        return null;
+                    }
+                }).orElse(Collections.emptyList());
+    }
+
+    /**
+     * Same as {@link #getLatestQuests(Map)}, but with only the quests having one of the {@code abbreviations}. Quests
+     * of binary snapshots are filtered by their abbreviation column before being decoded, so the cost depends on the
+     * number of quests selected rather than the size of the snapshot.
+     *
+     * @return
+     *      Selected quests of the latest snapshot, which may be none of them. Empty if there's no readable snapshot.
+     */
+    public Optional<List<Quest>> getLatestQuests(final Map map, @NonNull final Collection<String> abbreviations) {
+        return getLatestQuestFile(map)
+                .map(path -> {
+                    try {
+                        if (path.getFileName().toString().endsWith(JSON_QUEST_FILE_NAME_SUFFIX)) {
+                            return readJsonQuests(path).stream()
+                                    .filter(quest -> quest.getAbbreviation()
+                                            .filter(abbreviations::contains)
+                                            .isPresent())
+                                    .collect(Collectors.collectingAndThen(
+                                            Collectors.toList(), Collections::unmodifiableList));
+                        }
+                        return QuestSnapshotCodec.map(path).select(abbreviations);
                     } catch (final IOException e) {
                         log.warn(String.format("Failed to read quest file: %s", path), e);
                         return null;
                     }
-                }).map(String::new)
-                .map(jsonString -> gson.fromJson(jsonString, Quest[].class))
-                .map(Arrays::asList)
-                .map(Collections::unmodifiableList)
-                .orElse(Collections.emptyList());
+                });
+    }
+
+    private List<Quest> readJsonQuests(final Path path) throws IOException {
+        final Quest[] quests = gson.fromJson(new String(Files.readAllBytes(path)), Quest[].class);
+        return Collections.unmodifiableList(Arrays.asList(quests));
     }
 
     public Optional<Date> getLatestDataFetchTime(final Map map) {
-        return getLatestQuestFile(map).map(QuestRWUtils::getDateFromQuestFileName);
+        return getLatestQuestFile(map).map(this::getDateFromQuestFileName).map(Date::from);
     }
 
-    private void deleteOldFiles(final Map map) {
-        final Path mapDirectory = getMapDirectory(map);
-        try {
-            Files.walk(mapDirectory)
-                    .filter(path -> DATE_EXTRACTION_PATTERN.matcher(path.getFileName().toString()).find())
-                    .filter(path -> getDateFromQuestFileName(path) != null)
-                    .sorted(Comparator.comparing(QuestRWUtils::getDateFromQuestFileName).reversed())
+    /**
+     * Deletes all but the latest {@link #MAX_FILE_COUNT_PER_MAP} snapshots, along with temporary files left behind by
+     * writes that didn't complete. Must be called holding the lock of the directory, so that no write is in progress.
+     */
+    private void deleteOldFiles(final Path mapDirectory) {
+        final List<Path> oldPaths = new ArrayList<>();
+        try (final Stream<Path> paths = Files.list(mapDirectory)) {
+            final List<Path> questPaths = new ArrayList<>();
+            paths.forEach(path -> {
+                if (isTempFile(path)) {
+                    oldPaths.add(path);
+                } else if (getDateFromQuestFileName(path) != null) {
+                    questPaths.add(path);
+                }
+            });
+            questPaths.stream()
+                    .sorted(Comparator.comparing(this::getDateFromQuestFileName).reversed())
                     .skip(MAX_FILE_COUNT_PER_MAP)
-                    .peek(path -> log.trace(String.format("Deleting file: %s", path)))
-                    .forEach(path -> {
-                        try {
-                            Files.delete(path);
-                        } catch (final IOException e) {
-                            log.warn(String.format("Failed to delete old file: %s", path));
-                        }
-                    });
+                    .forEach(oldPaths::add);
         } catch (final IOException e) {
             log.warn(String.format("Failed to read map directory: %s", mapDirectory));
         }
+
+        oldPaths.forEach(path -> {
+            log.trace(String.format("Deleting file: %s", path));
+            try {
+                Files.delete(path);
+            } catch (final IOException e) {
+                log.warn(String.format("Failed to delete old file: %s", path));
+            }
+        });
     }
 
     private Optional<Path> getLatestQuestFile(final Map map) {
         final Path mapDirectory = getMapDirectory(map);
+        final Path pointerPath = mapDirectory.resolve(LATEST_POINTER_FILE_NAME);
         try {
-            return Files.walk(mapDirectory)
-                    .filter(path -> DATE_EXTRACTION_PATTERN.matcher(path.getFileName().toString()).find())
-                    .filter(path -> getDateFromQuestFileName(path) != null)
-                    .max(Comparator.comparing(QuestRWUtils::getDateFromQuestFileName));
+            final Path latestPath = mapDirectory.resolve(
+                    new String(Files.readAllBytes(pointerPath), StandardCharsets.UTF_8).trim());
+            if (latestPath.getParent().equals(mapDirectory)
+                    && getDateFromQuestFileName(latestPath) != null
+                    && Files.exists(latestPath)) {
+                return Optional.of(latestPath);
+            }
+            log.warn(String.format("Ignoring latest quest file pointer to missing file: %s", latestPath));
+        } catch (final NoSuchFileException e) {
+            // Directory was written before pointers existed, or has no snapshot yet
         } catch (final IOException e) {
-            log.warn(String.format("Failed to read map directory: %s", mapDirectory));
-            return Optional.empty();
+            log.warn(String.format("Failed to read latest quest file pointer: %s", pointerPath), e);
+        }
+
+        // Find the latest file the slow way, and point to it so that the next lookup doesn't have to
+        synchronized (getLock(mapDirectory)) {
+            try (final Stream<Path> paths = Files.list(mapDirectory)) {
+                final Optional<Path> latestPath = paths
+                        .filter(path -> getDateFromQuestFileName(path) != null)
+                        .max(Comparator.comparing(this::getDateFromQuestFileName));
+                if (latestPath.isPresent()) {
+                    try {
+                        updateLatestPointer(mapDirectory, latestPath.get());
+                    } catch (final IOException e) {
+                        // Still the latest file, only the next lookup has to find it the slow way again
+                        log.warn(String.format("Failed to update latest quest file pointer: %s", pointerPath), e);
+                    }
+                }
+                return latestPath;
+            } catch (final IOException e) {
+                log.warn(String.format("Failed to read map directory: %s", mapDirectory));
+                return Optional.empty();
+            }
+        }
+    }
+
+    private static void updateLatestPointer(final Path mapDirectory, final Path latestPath) throws IOException {
+        final Path tempPath = Files.createTempFile(mapDirectory, TEMP_FILE_NAME_PREFIX, TEMP_FILE_NAME_SUFFIX);
+        try {
+            Files.write(tempPath, latestPath.getFileName().toString().getBytes(StandardCharsets.UTF_8));
+            moveAtomically(tempPath, mapDirectory.resolve(LATEST_POINTER_FILE_NAME));
+        } finally {
+            Files.deleteIfExists(tempPath);
+        }
+    }
+
+    private static void moveAtomically(final Path source, final Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (final AtomicMoveNotSupportedException e) {
+            log.warn(String.format("File system doesn't support atomic moves, replacing %s non-atomically", target));
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
         }
     }
 
     @Nullable
-    private static Date getDateFromQuestFileName(final Path questFilePath) {
+    private Instant getDateFromQuestFileName(final Path questFilePath) {
         return Optional.of(questFilePath.getFileName().toString())
                 .map(DATE_EXTRACTION_PATTERN::matcher)
                 .filter(Matcher::find)
                 .map(matcher -> matcher.group(1))
                 .map(source -> {
                     try {
-                        return DATE_FORMAT.parse(source);
-                    } catch (final ParseException e) {
+                        return LocalDateTime.parse(source, DATE_FORMATTER).atZone(clock.getZone()).toInstant();
+                    } catch (final DateTimeParseException e) {
                         log.warn(String.format("Encountered file name '%s' with unexpected pattern", questFilePath), e);
                         return null;
                     }
                 }).orElse(null);
     }
 
-    private static Path getMapDirectory(final Map map) {
-        final Path mapDirectory = Paths.get(QUEST_DIR_ROOT, map.toString());
+    private static boolean isTempFile(final Path path) {
+        final String fileName = path.getFileName().toString();
+        return fileName.startsWith(TEMP_FILE_NAME_PREFIX) && fileName.endsWith(TEMP_FILE_NAME_SUFFIX);
+    }
+
+    private static Object getLock(final Path mapDirectory) {
+        return DIRECTORY_LOCKS.computeIfAbsent(mapDirectory.toAbsolutePath().normalize(), __ -> new Object());
+    }
+
+    private Path getMapDirectory(final Map map) {
+        final Path mapDirectory = rootDirectory.resolve(map.toString());
         try {
             return Files.createDirectories(mapDirectory);
         } catch (final IOException e) {
@@ -0,0 +1,202 @@
+package pogo.assistance.data.persistence;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import lombok.NonNull;
+import pogo.assistance.data.model.Action;
+import pogo.assistance.data.model.ImmutableAction;
+import pogo.assistance.data.model.ImmutableQuest;
+import pogo.assistance.data.model.ImmutableReward;
+import pogo.assistance.data.model.Quest;
+import pogo.assistance.data.model.Reward;
+
+/**
+ * Quest snapshot in the format of {@link QuestSnapshotCodec}, backed by its buffer (usually memory mapped). Only the
+ * header and the string table are decoded up front. Quests are either decoded all at once ({@link #decode()}), or
+ * selected by abbreviation ({@link #select(Collection)}), in which case quests that aren't selected cost nothing more
+ * than reading their abbreviation column entry.
+ */
+final class QuestSnapshot {
+
+    private static final int NO_STRING = -1;
+
+    private final ByteBuffer buffer;
+    private final int questCount;
+    private final String[] strings;
+    // Actions and rewards are interned anyway, so each distinct one is built once (when first needed) and shared
+    private final AtomicReferenceArray<Action> actions;
+    private final AtomicReferenceArray<Reward> rewards;
+
+    private final int latitudes;
+    private final int longitudes;
+    private final int actionIndices;
+    private final int rewardIndices;
+    private final int abbreviationIndices;
+
+    /**
+     * @param buffer
+     *      Buffer positioned at the start of a snapshot, with its limit at the end of it and little endian byte order.
+     * @throws IOException
+     *      If the snapshot is corrupt, or of an unsupported version.
+     */
+    QuestSnapshot(@NonNull final ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.remaining() < QuestSnapshotCodec.HEADER_SIZE || buffer.getInt() != QuestSnapshotCodec.MAGIC) {
+            throw new IOException("Not a quest snapshot");
+        }
+        final int version = buffer.getInt();
+        if (version != QuestSnapshotCodec.VERSION) {
+            throw new IOException(String.format("Unsupported quest snapshot version: %d", version));
+        }
+        questCount = buffer.getInt();
+        final int stringCount = buffer.getInt();
+        // Every string takes at least the bytes of its length, so this also catches counts a corrupt header made up
+        if (questCount < 0 || stringCount < 0 || stringCount > buffer.remaining() / Integer.BYTES) {
+            throw new IOException(String.format("Invalid quest (%d) or string (%d) count", questCount, stringCount));
+        }
+
+        strings = new String[stringCount];
+        for (int i = 0; i < stringCount; i++) {
+            final int length = buffer.getInt();
+            if (length < 0 || length > buffer.remaining()) {
+                throw new IOException(String.format("Invalid length (%d) of string %d", length, i));
+            }
+            final byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        actions = new AtomicReferenceArray<>(stringCount);
+        rewards = new AtomicReferenceArray<>(stringCount);
+
+        if (buffer.position() + (long) questCount * QuestSnapshotCodec.BYTES_PER_QUEST != buffer.limit()) {
+            throw new IOException("Quest snapshot size doesn't match its header");
+        }
+        latitudes = buffer.position();
+        longitudes = latitudes + questCount * Double.BYTES;
+        actionIndices = longitudes + questCount * Double.BYTES;
+        rewardIndices = actionIndices + questCount * Integer.BYTES;
+        abbreviationIndices = rewardIndices + questCount * Integer.BYTES;
+    }
+
+    int size() {
+        return questCount;
+    }
+
+    /**
+     * @return
+     *      All quests of the snapshot, as independent objects.
+     * @throws IOException
+     *      If a quest refers to a string that isn't in the string table.
+     */
+    List<Quest> decode() throws IOException {
+        final List<Quest> quests = new ArrayList<>(questCount);
+        for (int i = 0; i < questCount; i++) {
+            quests.add(decode(i));
+        }
+        return Collections.unmodifiableList(quests);
+    }
+
+    /**
+     * @return
+     *      Quests with one of the {@code abbreviations}, as independent objects (same as {@link #decode()} would
+     *      return for them).
+     * @throws IOException
+     *      If a selected quest refers to a string that isn't in the string table.
+     */
+    List<Quest> select(@NonNull final Collection<String> abbreviations) throws IOException {
+        // Abbreviations are compared by their index in the string table, so nothing is decoded for quests not selected
+        final boolean[] selectedStrings = new boolean[strings.length];
+        boolean anySelected = false;
+        for (int i = 0; i < strings.length; i++) {
+            selectedStrings[i] = abbreviations.contains(strings[i]);
+            anySelected |= selectedStrings[i];
+        }
+        if (!anySelected) {
+            return Collections.emptyList();
+        }
+
+        final List<Quest> quests = new ArrayList<>();
+        for (int i = 0; i < questCount; i++) {
+            final int abbreviationIndex = getAbbreviationIndex(i);
+            if (abbreviationIndex != NO_STRING && abbreviationIndex < strings.length && selectedStrings[abbreviationIndex]) {
+                quests.add(decode(i));
+            }
+        }
+        return Collections.unmodifiableList(quests);
+    }
+
+    private Quest decode(final int quest) throws IOException {
+        checkStringIndices(quest);
+        return ImmutableQuest.builder()
+                .latitude(getLatitude(quest))
+                .longitude(getLongitude(quest))
+                .action(getAction(quest))
+                .reward(getReward(quest))
+                .abbreviation(getAbbreviation(quest))
+                .build();
+    }
+
+    private void checkStringIndices(final int quest) throws IOException {
+        final int actionIndex = getActionIndex(quest);
+        final int rewardIndex = getRewardIndex(quest);
+        final int abbreviationIndex = getAbbreviationIndex(quest);
+        if (actionIndex < 0 || actionIndex >= strings.length
+                || rewardIndex < 0 || rewardIndex >= strings.length
+                || abbreviationIndex < NO_STRING || abbreviationIndex >= strings.length) {
+            throw new IOException(String.format("Quest %d refers to a string that doesn't exist", quest));
+        }
+    }
+
+    private double getLatitude(final int quest) {
+        return buffer.getDouble(latitudes + quest * Double.BYTES);
+    }
+
+    private double getLongitude(final int quest) {
+        return buffer.getDouble(longitudes + quest * Double.BYTES);
+    }
+
+    private int getActionIndex(final int quest) {
+        return buffer.getInt(actionIndices + quest * Integer.BYTES);
+    }
+
+    private int getRewardIndex(final int quest) {
+        return buffer.getInt(rewardIndices + quest * Integer.BYTES);
+    }
+
+    private int getAbbreviationIndex(final int quest) {
+        return buffer.getInt(abbreviationIndices + quest * Integer.BYTES);
+    }
+
+    private Action getAction(final int quest) {
+        final int index = getActionIndex(quest);
+        final Action action = actions.get(index);
+        if (action != null) {
+            return action;
+        }
+        actions.compareAndSet(index, null, ImmutableAction.builder().description(strings[index]).build());
+        return actions.get(index);
+    }
+
+    private Reward getReward(final int quest) {
+        final int index = getRewardIndex(quest);
+        final Reward reward = rewards.get(index);
+        if (reward != null) {
+            return reward;
+        }
+        rewards.compareAndSet(index, null, ImmutableReward.builder().description(strings[index]).build());
+        return rewards.get(index);
+    }
+
+    private Optional<String> getAbbreviation(final int quest) {
+        final int index = getAbbreviationIndex(quest);
+        return (index == NO_STRING) ? Optional.empty() : Optional.of(strings[index]);
+    }
+
+}
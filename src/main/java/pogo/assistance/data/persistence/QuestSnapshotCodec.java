@@ -0,0 +1,130 @@
+package pogo.assistance.data.persistence;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.NonNull;
+import pogo.assistance.data.model.Quest;
+
+/**
+ * Binary, columnar format of quest snapshots. Every distinct string is stored once, in a string table, and quests refer
+ * to strings by their index in it. Layout (little endian):
+ * <pre>
+ *   header:       magic (int), version (int), quest count (int), string count (int)
+ *   string table: for each string, its UTF-8 length in bytes (int) followed by the bytes
+ *   columns:      latitudes (double per quest), longitudes (double per quest),
+ *                 action, reward and abbreviation string indices (int per quest each, -1 for no abbreviation)
+ * </pre>
+ *
+ * Files are read through a memory mapped buffer (see {@link QuestSnapshot}), and each distinct string is decoded once, so
+ * reading allocates little besides the quests themselves.
+ */
+final class QuestSnapshotCodec {
+
+    static final int MAGIC = 0x50475153; // "PGQS"
+    static final int VERSION = 1;
+
+    static final int HEADER_SIZE = 4 * Integer.BYTES;
+    static final int BYTES_PER_QUEST = 2 * Double.BYTES + 3 * Integer.BYTES;
+
+    private static final int NO_STRING = -1;
+
+    private QuestSnapshotCodec() {
+    }
+
+    static void write(@NonNull final List<? extends Quest> quests, @NonNull final Path path) throws IOException {
+        final Map<String, Integer> stringIndices = new HashMap<>();
+        final List<byte[]> strings = new ArrayList<>();
+        final int[] actionIndices = new int[quests.size()];
+        final int[] rewardIndices = new int[quests.size()];
+        final int[] abbreviationIndices = new int[quests.size()];
+        long size = HEADER_SIZE + (long) quests.size() * BYTES_PER_QUEST;
+        for (int i = 0; i < quests.size(); i++) {
+            final Quest quest = quests.get(i);
+            actionIndices[i] = indexOf(quest.getAction().getDescription(), stringIndices, strings);
+            rewardIndices[i] = indexOf(quest.getReward().getDescription(), stringIndices, strings);
+            abbreviationIndices[i] = quest.getAbbreviation()
+                    .map(abbreviation -> indexOf(abbreviation, stringIndices, strings))
+                    .orElse(NO_STRING);
+        }
+        for (final byte[] string : strings) {
+            size += Integer.BYTES + string.length;
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException(String.format("Snapshot of %d quests is too large", quests.size()));
+        }
+
+        final ByteBuffer buffer = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(quests.size()).putInt(strings.size());
+        for (final byte[] string : strings) {
+            buffer.putInt(string.length).put(string);
+        }
+        quests.forEach(quest -> buffer.putDouble(quest.getLatitude()));
+        quests.forEach(quest -> buffer.putDouble(quest.getLongitude()));
+        for (final int[] column : new int[][] {actionIndices, rewardIndices, abbreviationIndices}) {
+            for (final int index : column) {
+                buffer.putInt(index);
+            }
+        }
+        buffer.flip();
+
+        try (final FileChannel channel = FileChannel.open(
+                path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            // Snapshots are renamed into place after being written, which shouldn't happen before their content is
+            // on disk
+            channel.force(true);
+        }
+    }
+
+    /**
+     * @return
+     *      All quests of the snapshot at {@code path}.
+     */
+    static List<Quest> read(@NonNull final Path path) throws IOException {
+        final QuestSnapshot snapshot = map(path);
+        try {
+            return snapshot.decode();
+        } catch (final IndexOutOfBoundsException e) {
+            throw new IOException(String.format("Corrupt quest snapshot: %s", path), e);
+        }
+    }
+
+    /**
+     * @return
+     *      Snapshot at {@code path}, backed by a memory mapping of the file. Quests are read from the mapping on demand,
+     *      which stays valid until the snapshot is garbage collected.
+     */
+    static QuestSnapshot map(@NonNull final Path path) throws IOException {
+        final MappedByteBuffer mappedBuffer;
+        try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // Mapping stays valid after the channel is closed
+            mappedBuffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        try {
+            return new QuestSnapshot(mappedBuffer.order(ByteOrder.LITTLE_ENDIAN));
+        } catch (final BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException(String.format("Corrupt quest snapshot: %s", path), e);
+        }
+    }
+
+    private static int indexOf(final String string, final Map<String, Integer> stringIndices, final List<byte[]> strings) {
+        return stringIndices.computeIfAbsent(string, __ -> {
+            strings.add(string.getBytes(StandardCharsets.UTF_8));
+            return strings.size() - 1;
+        });
+    }
+
+}
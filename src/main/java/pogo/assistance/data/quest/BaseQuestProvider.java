@@ -1,22 +1,31 @@
 package pogo.assistance.data.quest;
 
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import lombok.NonNull;
 import pogo.assistance.data.model.Map;
 import pogo.assistance.data.model.Quest;
 import pogo.assistance.data.extraction.source.ninedb.NineDBDataExtractor;
 import pogo.assistance.data.extraction.source.pokemap.PokemapDataExtractor;
 
+/**
+ * Fetches quests from the source of each map. Extractors are kept for the lifetime of the provider, since they remember
+ * what they fetched and make refreshes of unchanged data cheap.
+ */
 public class BaseQuestProvider implements QuestProvider {
 
+    private final NineDBDataExtractor nineDBDataExtractor = new NineDBDataExtractor();
+    private final ConcurrentMap<Map, PokemapDataExtractor> pokemapDataExtractors = new ConcurrentHashMap<>();
+
     @Override
     public List<Quest> getQuests(@NonNull final Map map) {
         switch (map) {
             case JP:
-                return new NineDBDataExtractor().getQuests();
+                return nineDBDataExtractor.getQuests();
             case NYC:
             case SG:
-                return new PokemapDataExtractor(map).getQuests();
+                return pokemapDataExtractors.computeIfAbsent(map, PokemapDataExtractor::new).getQuests();
             default:
                 throw new IllegalArgumentException();
         }
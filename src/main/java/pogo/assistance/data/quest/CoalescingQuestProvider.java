@@ -0,0 +1,76 @@
+package pogo.assistance.data.quest;
+
+import com.google.common.base.Throwables;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import lombok.NonNull;
+import pogo.assistance.data.model.Map;
+import pogo.assistance.data.model.Quest;
+
+/**
+ * Lets concurrent callers asking for quests of the same map share a single call to the backing provider, e.g. when
+ * several recipes for one map start at the same time. This is the only place fetches of a map are deduplicated. Calls
+ * made after that fetch completes go to the backing provider again, which is expected to do its own caching (see
+ * {@link QuestProviderPersistenceWrapper}).
+ */
+@ThreadSafe
+public class CoalescingQuestProvider implements QuestProvider {
+
+    private final QuestProvider backingQuestProvider;
+    private final ConcurrentMap<Map, CompletableFuture<List<Quest>>> inFlightFetches = new ConcurrentHashMap<>();
+
+    public CoalescingQuestProvider(@NonNull final QuestProvider backingQuestProvider) {
+        this.backingQuestProvider = backingQuestProvider;
+    }
+
+    @Nonnull
+    @Override
+    public List<Quest> getQuests(@NonNull final Map map) {
+        final CompletableFuture<List<Quest>> fetch = new CompletableFuture<>();
+        final CompletableFuture<List<Quest>> inFlightFetch = inFlightFetches.putIfAbsent(map, fetch);
+        if (inFlightFetch != null) {
+            return await(inFlightFetch);
+        }
+
+        try {
+            fetch.complete(backingQuestProvider.getQuests(map));
+        } catch (final RuntimeException | Error e) {
+            fetch.completeExceptionally(e);
+        } finally {
+            inFlightFetches.remove(map, fetch);
+        }
+        return await(fetch);
+    }
+
+    /**
+     * Goes to the backing provider directly, so that it can filter stored quests before materializing them. Calls
+     * that need a fetch go through {@link #getQuests(Map)}, so they are coalesced like any other.
+     */
+    @Nonnull
+    @Override
+    public Optional<List<Quest>> getStoredQuests(
+            @NonNull final Map map,
+            @NonNull final Collection<String> abbreviations) {
+        return backingQuestProvider.getStoredQuests(map, abbreviations);
+    }
+
+    private static List<Quest> await(final CompletableFuture<List<Quest>> fetch) {
+        try {
+            return fetch.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for quests", e);
+        } catch (final ExecutionException e) {
+            Throwables.throwIfUnchecked(e.getCause());
+            throw new RuntimeException("Failed to get quests", e.getCause());
+        }
+    }
+
+}
@@ -0,0 +1,67 @@
+package pogo.assistance.data.quest;
+
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.SetMultimap;
+import java.util.Collection;
+import java.util.List;
+import lombok.NonNull;
+import org.immutables.value.Value;
+import pogo.assistance.data.model.GeoPoint;
+import pogo.assistance.data.model.ImmutableGeoPoint;
+import pogo.assistance.data.model.Quest;
+
+/**
+ * Difference between two snapshots of the quests of a map, by location. Locations with the same quests in both are
+ * unchanged, so work done for them on the previous snapshot (e.g. planning of regions made up only of unchanged
+ * locations) still holds.
+ */
+@Value.Immutable
+public abstract class QuestDiff {
+
+    /**
+     * Quests at locations without quests in the previous snapshot.
+     */
+    public abstract List<Quest> getAdded();
+
+    /**
+     * Quests of the previous snapshot at locations without quests now.
+     */
+    public abstract List<Quest> getRemoved();
+
+    /**
+     * Current quests at locations whose quests differ from the previous snapshot.
+     */
+    public abstract List<Quest> getChanged();
+
+    public boolean isEmpty() {
+        return getAdded().isEmpty() && getRemoved().isEmpty() && getChanged().isEmpty();
+    }
+
+    public static QuestDiff between(@NonNull final Collection<Quest> previous, @NonNull final Collection<Quest> current) {
+        final SetMultimap<GeoPoint, Quest> previousByLocation = byLocation(previous);
+        final SetMultimap<GeoPoint, Quest> currentByLocation = byLocation(current);
+        final ImmutableQuestDiff.Builder builder = ImmutableQuestDiff.builder();
+        currentByLocation.asMap().forEach((location, quests) -> {
+            if (!previousByLocation.containsKey(location)) {
+                builder.addAllAdded(quests);
+            } else if (!previousByLocation.get(location).equals(quests)) {
+                builder.addAllChanged(quests);
+            }
+        });
+        previousByLocation.asMap().forEach((location, quests) -> {
+            if (!currentByLocation.containsKey(location)) {
+                builder.addAllRemoved(quests);
+            }
+        });
+        return builder.build();
+    }
+
+    private static SetMultimap<GeoPoint, Quest> byLocation(final Collection<Quest> quests) {
+        final SetMultimap<GeoPoint, Quest> byLocation = LinkedHashMultimap.create();
+        quests.forEach(quest -> byLocation.put(
+                ImmutableGeoPoint.builder().latitude(quest.getLatitude()).longitude(quest.getLongitude()).build(),
+                quest));
+        return byLocation;
+    }
+
+}
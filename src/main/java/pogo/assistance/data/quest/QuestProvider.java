@@ -1,6 +1,9 @@
 package pogo.assistance.data.quest;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
 import pogo.assistance.data.model.Quest;
 import pogo.assistance.data.model.Map;
@@ -9,4 +12,27 @@ public interface QuestProvider {
 
     @Nonnull List<Quest> getQuests(@Nonnull final Map map);
 
+    /**
+     * Same as {@link #getQuests(Map)}, but with only the quests having one of the {@code abbreviations}. Served by
+     * {@link #getStoredQuests(Map, Collection)} when possible, so that only the selected quests are materialized.
+     */
+    @Nonnull
+    default List<Quest> getQuests(@Nonnull final Map map, @Nonnull final Collection<String> abbreviations) {
+        return getStoredQuests(map, abbreviations).orElseGet(() -> getQuests(map).stream()
+                .filter(quest -> quest.getAbbreviation().filter(abbreviations::contains).isPresent())
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * @return
+     *      Quests with one of the {@code abbreviations}, if they can be served without fetching quests of the
+     *      {@code map}. Providers that store quests (e.g. {@link QuestProviderPersistenceWrapper}) override this.
+     */
+    @Nonnull
+    default Optional<List<Quest>> getStoredQuests(
+            @Nonnull final Map map,
+            @Nonnull final Collection<String> abbreviations) {
+        return Optional.empty();
+    }
+
 }
@@ -2,16 +2,24 @@ package pogo.assistance.data.quest;
 
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
 import pogo.assistance.data.model.Map;
 import pogo.assistance.data.model.Quest;
 import pogo.assistance.data.persistence.QuestRWUtils;
 
+/**
+ * Serves quests from the latest persisted snapshot of a map while it's within TTL, and refreshes it from the backing
+ * provider otherwise. Each refresh is compared with the snapshot it replaces, and the difference is logged.
+ * Concurrent refreshes of the same map aren't prevented here, see {@link CoalescingQuestProvider} for that.
+ */
+@Slf4j
 public class QuestProviderPersistenceWrapper implements QuestProvider {
 
     private static final Duration DEFAULT_TTL = Duration.of(1, ChronoUnit.HOURS);
@@ -32,22 +40,58 @@ public class QuestProviderPersistenceWrapper implements QuestProvider {
     @Nonnull
     @Override
     public List<Quest> getQuests(final Map map) {
-        final Optional<Date> latestDataFetchTime = questRWUtils.getLatestDataFetchTime(map);
-        final boolean latestFileIsWithinTtl = latestDataFetchTime
+        final Optional<List<Quest>> latestQuests = getLatestQuestsWithinTtl(map);
+        if (latestQuests.isPresent()) {
+            return latestQuests.get();
+        }
+        return refresh(map);
+    }
+
+    /**
+     * Reads only the quests with the {@code abbreviations} from the latest snapshot while it's within TTL, without
+     * materializing the rest (see {@link QuestRWUtils#getLatestQuests(Map, Collection)}).
+     */
+    @Nonnull
+    @Override
+    public Optional<List<Quest>> getStoredQuests(
+            @NonNull final Map map,
+            @NonNull final Collection<String> abbreviations) {
+        if (!isLatestFileWithinTtl(map)) {
+            return Optional.empty();
+        }
+        return questRWUtils.getLatestQuests(map, abbreviations);
+    }
+
+    private Optional<List<Quest>> getLatestQuestsWithinTtl(final Map map) {
+        if (!isLatestFileWithinTtl(map)) {
+            return Optional.empty();
+        }
+        final List<Quest> latestQuests = questRWUtils.getLatestQuests(map);
+        return latestQuests.isEmpty() ? Optional.empty() : Optional.of(latestQuests);
+    }
+
+    private boolean isLatestFileWithinTtl(final Map map) {
+        return questRWUtils.getLatestDataFetchTime(map)
                 .map(date -> Duration.between(date.toInstant(), new Date().toInstant()))
                 .filter(duration -> duration.compareTo(ttl) <= 0)
                 .isPresent();
+    }
 
-        final List<Quest> latestQuests;
-        if (latestFileIsWithinTtl) {
-            latestQuests = questRWUtils.getLatestQuests(map);
-            if (!latestQuests.isEmpty()) {
-                return latestQuests;
-            }
-        }
-
+    private List<Quest> refresh(final Map map) {
         final List<Quest> fetchedQuests = backingQuestProvider.getQuests(map);
         if (!fetchedQuests.isEmpty()) {
+            // Read back only on refresh, so that snapshots of every map aren't kept in memory between refreshes
+            final List<Quest> previousQuests = questRWUtils.getLatestQuests(map);
+            if (!previousQuests.isEmpty()) {
+                final QuestDiff diff = QuestDiff.between(previousQuests, fetchedQuests);
+                log.info(String.format(
+                        "Refreshed quests of %s map: %d added, %d removed, %d changed, out of %d",
+                        map,
+                        diff.getAdded().size(),
+                        diff.getRemoved().size(),
+                        diff.getChanged().size(),
+                        fetchedQuests.size()));
+            }
             questRWUtils.writeQuests(fetchedQuests, map);
         }
         return fetchedQuests;
@@ -1,91 +1,29 @@
 package pogo.assistance.route;
 
-import static java.lang.Math.acos;
-import static java.lang.Math.cos;
-import static java.lang.Math.sin;
-import static java.lang.Math.toDegrees;
-import static java.lang.Math.toRadians;
-
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.HashMap;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import java.time.Duration;
 import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
-import java.util.NavigableMap;
-import java.util.TreeMap;
 import java.util.function.BiFunction;
 import javax.annotation.Nullable;
 import lombok.NonNull;
+import lombok.Value;
 import pogo.assistance.data.model.GeoPoint;
 
 // TODO: Fix the mix of Duration and Double representation of cooldown time
 public class CooldownCalculator {
 
-    private static final NavigableMap<Double, Double> KM_TO_SECOND_CD_TABLE;
-
-    static {
-        final NavigableMap<Double, Double> kmToSecondCd = new TreeMap<>();
-        kmToSecondCd.put(0.5D,   0 * 60D);
-        kmToSecondCd.put(1D,   0.1 * 60D);
-        kmToSecondCd.put(2D,   1.5 * 60D);
-        kmToSecondCd.put(3D,   2.5 * 60D);
-        kmToSecondCd.put(4D,     3 * 60D);
-        kmToSecondCd.put(5.5D,   4 * 60D);
-        kmToSecondCd.put(6D,   4.5 * 60D);
-        kmToSecondCd.put(7D,     5 * 60D);
-        kmToSecondCd.put(10D,    6 * 60D);
-        kmToSecondCd.put(11D,    7 * 60D);
-        kmToSecondCd.put(12.7D,  8 * 60D);
-        kmToSecondCd.put(15D,    9 * 60D);
-        kmToSecondCd.put(18D,   10 * 60D);
-        kmToSecondCd.put(20.5D, 11 * 60D);
-        kmToSecondCd.put(22D,   13 * 60D);
-        kmToSecondCd.put(24D,   14 * 60D);
-        kmToSecondCd.put(26D,   15 * 60D);
-        kmToSecondCd.put(28D,   16 * 60D);
-        kmToSecondCd.put(30.5D, 17 * 60D);
-        kmToSecondCd.put(40D,   18 * 60D);
-        kmToSecondCd.put(42D,   19 * 60D);
-        kmToSecondCd.put(53D,   21 * 60D);
-        kmToSecondCd.put(73D,   22 * 60D);
-        kmToSecondCd.put(78D,   23 * 60D);
-        kmToSecondCd.put(88.5D, 24 * 60D);
-        kmToSecondCd.put(93D,   26 * 60D);
-        kmToSecondCd.put(105D,  27 * 60D);
-        kmToSecondCd.put(113D,  28 * 60D);
-        kmToSecondCd.put(133D,  31 * 60D);
-        /*
-         * Following numbers are odd because the original numbers had "less-than" condition. For example:
-         *     Original mapping condition: "< 500 KM -> 62 mins cooldown"
-         *     Map entry: key: 499, value: 62 * 60
-         * This is necessary because we lookup cooldown get querying ceiling entry in this navigable map
-         */
-        kmToSecondCd.put(499D,  62 * 60D);
-        kmToSecondCd.put(549D,  66 * 60D);
-        kmToSecondCd.put(599D,  70 * 60D);
-        kmToSecondCd.put(649D,  74 * 60D);
-        kmToSecondCd.put(699D,  77 * 60D);
-        kmToSecondCd.put(750D,  82 * 60D);
-        kmToSecondCd.put(801D,  84 * 60D);
-        kmToSecondCd.put(838D,  88 * 60D);
-        kmToSecondCd.put(898D,  90 * 60D);
-        kmToSecondCd.put(899D,  91 * 60D);
-        kmToSecondCd.put(947D,  95 * 60D);
-        kmToSecondCd.put(1006D, 98 * 60D);
-        kmToSecondCd.put(1019D, 102 * 60D);
-        kmToSecondCd.put(1099D, 104 * 60D);
-        kmToSecondCd.put(1179D, 109 * 60D);
-        kmToSecondCd.put(1199D, 111 * 60D);
-        kmToSecondCd.put(1220D, 113 * 60D);
-        kmToSecondCd.put(1299D, 117 * 60D);
-        kmToSecondCd.put(1343D, 119 * 60D);
-        kmToSecondCd.put(1500D, 2 * 60 * 60D);
-        kmToSecondCd.put(Double.MAX_VALUE, 2 * 60 * 60D);
-        KM_TO_SECOND_CD_TABLE = Collections.unmodifiableNavigableMap(kmToSecondCd);
-    }
+    /**
+     * Bounds the distance cache. Least recently used entries are evicted beyond this size, which keeps the footprint
+     * of the cache under ~10 MB regardless of how many maps/recipes a long running process goes through.
+     */
+    private static final int KM_DISTANCE_CACHE_MAX_SIZE = 100_000;
 
-    private static final Map<Integer, Double> KM_DISTANCE_CACHE = new HashMap<>(10000);
+    private static final Cache<PointPairKey, Double> KM_DISTANCE_CACHE = CacheBuilder.newBuilder()
+            .maximumSize(KM_DISTANCE_CACHE_MAX_SIZE)
+            .recordStats()
+            .build();
 
     public static double calculateCost(
             @NonNull final List<? extends GeoPoint> geoPoints,
@@ -98,22 +36,49 @@ public class CooldownCalculator {
     }
 
     public static <A extends GeoPoint, B extends GeoPoint> double getCooldown(final A a, final B b) {
-        return cooldown(getDistance(a, b, DistanceUnit.KM), DistanceUnit.KM);
+        return getCooldown(getDistance(a, b, DistanceUnit.KM), DistanceUnit.KM);
     }
 
-    private static double cooldown(final double distance, final DistanceUnit unit) {
+    public static double getCooldown(final double distance, final DistanceUnit unit) {
         switch (unit) {
             case KM:
-                final Entry<Double, Double> entry = KM_TO_SECOND_CD_TABLE.ceilingEntry(distance);
                 // TODO: need to update to make this more accurate
-                return (entry == null) ? KM_TO_SECOND_CD_TABLE.lastEntry().getValue() : entry.getValue();
+                return CooldownTable.getDefault().getCooldownSeconds(distance);
             default:
                 throw new UnsupportedOperationException(String.format("Unit '%s' not supported", unit));
         }
     }
 
+    /**
+     * @see CooldownTable#getMaxDistanceWithin(Duration)
+     */
+    public static double getMaxDistanceWithin(@NonNull final Duration cooldown) {
+        return CooldownTable.getDefault().getMaxDistanceWithin(cooldown);
+    }
+
     public static <A extends GeoPoint, B extends GeoPoint> double getDistance(final A a, final B b) {
-        return KM_DISTANCE_CACHE.computeIfAbsent(Arrays.hashCode(new Object[]{a, b}), __ -> getDistance(a, b, DistanceUnit.KM));
+        if (a == null || b == null) {
+            return getDistance(a, b, DistanceUnit.KM);
+        }
+
+        final PointPairKey key = PointPairKey.of(a, b);
+        final Double cached = KM_DISTANCE_CACHE.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        // Concurrent misses on the same key may both compute, which is harmless since the result is the same
+        final double distance = getDistance(a, b, DistanceUnit.KM);
+        KM_DISTANCE_CACHE.put(key, distance);
+        return distance;
+    }
+
+    /**
+     * @return
+     *      Hit, miss and eviction counts of the distance cache used by {@link #getDistance(GeoPoint, GeoPoint)}, since
+     *      the start of the process.
+     */
+    public static CacheStats getDistanceCacheStats() {
+        return KM_DISTANCE_CACHE.stats();
     }
 
     public static <A extends GeoPoint, B extends GeoPoint> double getDistance(
@@ -124,25 +89,46 @@ public class CooldownCalculator {
             return 0;
         }
         else {
-            final double theta = a.getLongitude() - b.getLongitude();
-            double dist = sin(toRadians(a.getLatitude())) * sin(toRadians(b.getLatitude()))
-                    + cos(toRadians(a.getLatitude())) * cos(toRadians(b.getLatitude())) * cos(toRadians(theta));
-            dist = acos(dist);
-            dist = toDegrees(dist);
-            dist = dist * 60 * 1.1515;
-            if (unit == DistanceUnit.KM) {
-                dist = dist * 1.609344;
+            final double dist = DistanceCalculator.getDistance(a, b);
+            if (unit == DistanceUnit.MILE) {
+                return dist / 1.609344;
             } else if (unit == DistanceUnit.NAUTICAL_MILE) {
-                dist = dist * 0.8684;
+                return dist / 1.609344 * 0.8684;
             }
-            return (dist);
+            return dist;
         }
     }
 
-    enum DistanceUnit {
+    public enum DistanceUnit {
         KM,
         MILE,
         NAUTICAL_MILE
     }
 
+    /**
+     * Cache key identifying an unordered pair of coordinates. Each coordinate is quantized to 1e-7 degree (~1 cm) and
+     * packed into a long, so the key is exact at that resolution instead of relying on a hash of the two points.
+     */
+    @Value
+    private static class PointPairKey {
+
+        private static final double COORDINATE_SCALE = 1e7;
+
+        long lower;
+        long upper;
+
+        static PointPairKey of(final GeoPoint a, final GeoPoint b) {
+            final long packedA = pack(a);
+            final long packedB = pack(b);
+            // Distance is symmetric, so (a, b) and (b, a) share the same entry
+            return (packedA <= packedB) ? new PointPairKey(packedA, packedB) : new PointPairKey(packedB, packedA);
+        }
+
+        private static long pack(final GeoPoint point) {
+            final int latitude = (int) Math.round(point.getLatitude() * COORDINATE_SCALE);
+            final int longitude = (int) Math.round(point.getLongitude() * COORDINATE_SCALE);
+            return ((long) latitude << 32) | (longitude & 0xFFFFFFFFL);
+        }
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,162 @@
+package pogo.assistance.route;
+
+import com.google.common.base.Preconditions;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import lombok.NonNull;
+
+/**
+ * Cool down (in seconds) needed after traveling a distance (in KM), as a step function over sorted primitive arrays.
+ * Lookups are a binary search over a few dozen doubles, without boxing or walking tree nodes.
+ *
+ * Tables are read from text files (see {@link #read(Reader)}), so changes to the game's cool downs don't need a code
+ * change. The default table is the {@value #DEFAULT_TABLE_FILE} resource of this package.
+ */
+public final class CooldownTable {
+
+    private static final String DEFAULT_TABLE_FILE = "cooldown-table.txt";
+    private static final String COMMENT_PREFIX = "//";
+
+    /**
+     * Ascending. Traveling up to {@code maxDistances[i]} needs {@code cooldowns[i]} cool down.
+     */
+    private final double[] maxDistances;
+
+    /**
+     * Never decreasing, in seconds.
+     */
+    private final double[] cooldowns;
+
+    private CooldownTable(final double[] maxDistances, final double[] cooldowns) {
+        Preconditions.checkArgument(maxDistances.length > 0, "Cool down table is empty");
+        Preconditions.checkArgument(maxDistances.length == cooldowns.length, "Distance and cool down counts differ");
+        for (int i = 0; i < maxDistances.length; i++) {
+            Preconditions.checkArgument(
+                    !Double.isNaN(maxDistances[i]) && (i == 0 || maxDistances[i] > maxDistances[i - 1]),
+                    "Distances must be increasing: %s", maxDistances[i]);
+            Preconditions.checkArgument(
+                    cooldowns[i] >= 0 && (i == 0 || cooldowns[i] >= cooldowns[i - 1]),
+                    "Cool downs must not be negative or decreasing: %s", cooldowns[i]);
+        }
+        this.maxDistances = maxDistances;
+        this.cooldowns = cooldowns;
+    }
+
+    /**
+     * @param maxDistances
+     *      Increasing distances in KM.
+     * @param cooldownSeconds
+     *      Non-decreasing cool downs, where {@code cooldownSeconds[i]} applies to distances up to (and including)
+     *      {@code maxDistances[i]}. The last cool down also applies beyond the last distance.
+     */
+    public static CooldownTable of(@NonNull final double[] maxDistances, @NonNull final double[] cooldownSeconds) {
+        return new CooldownTable(maxDistances.clone(), cooldownSeconds.clone());
+    }
+
+    /**
+     * @return
+     *      Table read from {@value #DEFAULT_TABLE_FILE}. Read once, on first use.
+     */
+    public static CooldownTable getDefault() {
+        return DefaultTableHolder.DEFAULT_TABLE;
+    }
+
+    /**
+     * Reads a table where each line is {@code <distance in KM>, <cool down in minutes>}. Blank lines and lines starting
+     * with {@value #COMMENT_PREFIX} are ignored.
+     */
+    public static CooldownTable read(@NonNull final Reader reader) throws IOException {
+        double[] maxDistances = new double[64];
+        double[] cooldowns = new double[64];
+        int count = 0;
+
+        final BufferedReader lineReader = new BufferedReader(reader);
+        int lineNumber = 0;
+        for (String line = lineReader.readLine(); line != null; line = lineReader.readLine()) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith(COMMENT_PREFIX)) {
+                continue;
+            }
+
+            final String[] columns = line.split(",");
+            Preconditions.checkArgument(columns.length == 2, "Expected 2 columns on line %s: %s", lineNumber, line);
+            if (count == maxDistances.length) {
+                maxDistances = Arrays.copyOf(maxDistances, count * 2);
+                cooldowns = Arrays.copyOf(cooldowns, count * 2);
+            }
+            try {
+                maxDistances[count] = Double.parseDouble(columns[0].trim());
+                cooldowns[count] = Double.parseDouble(columns[1].trim()) * 60D;
+            } catch (final NumberFormatException e) {
+                throw new IllegalArgumentException(String.format("Invalid number on line %d: %s", lineNumber, line), e);
+            }
+            count++;
+        }
+
+        return new CooldownTable(Arrays.copyOf(maxDistances, count), Arrays.copyOf(cooldowns, count));
+    }
+
+    /**
+     * @return
+     *      Cool down in seconds needed after traveling {@code distance} KM.
+     */
+    public double getCooldownSeconds(final double distance) {
+        int low = 0;
+        int high = maxDistances.length - 1;
+        // Also catches NaN, which is treated as farther than any distance
+        if (!(distance <= maxDistances[high])) {
+            return cooldowns[high];
+        }
+        // Find the first distance that's at least as far as the given one
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (maxDistances[mid] < distance) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return cooldowns[low];
+    }
+
+    /**
+     * @return
+     *      The longest distance (in KM) that can be traveled within {@code cooldown}, i.e. any two points that are at
+     *      most this far apart have at most {@code cooldown} between them. {@link Double#MAX_VALUE} if there's no such
+     *      limit.
+     */
+    public double getMaxDistanceWithin(@NonNull final Duration cooldown) {
+        if (cooldowns[cooldowns.length - 1] <= cooldown.getSeconds()) {
+            return Double.MAX_VALUE;
+        }
+        double maxDistance = 0;
+        // Cool down never decreases with distance, so the last entry within the limit gives the max distance
+        for (int i = 0; i < maxDistances.length && cooldowns[i] <= cooldown.getSeconds(); i++) {
+            maxDistance = maxDistances[i];
+        }
+        return maxDistance;
+    }
+
+    private static final class DefaultTableHolder {
+
+        private static final CooldownTable DEFAULT_TABLE = readDefault();
+
+        private static CooldownTable readDefault() {
+            final InputStream inputStream = CooldownTable.class.getResourceAsStream(DEFAULT_TABLE_FILE);
+            Preconditions.checkState(inputStream != null, "Missing cool down table: %s", DEFAULT_TABLE_FILE);
+            try (final Reader reader = new InputStreamReader(inputStream, StandardCharsets.UTF_8)) {
+                return read(reader);
+            } catch (final IOException e) {
+                throw new RuntimeException("Failed to read cool down table: " + DEFAULT_TABLE_FILE, e);
+            }
+        }
+    }
+
+}
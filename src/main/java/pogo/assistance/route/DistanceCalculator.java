@@ -0,0 +1,103 @@
+package pogo.assistance.route;
+
+import static java.lang.Math.asin;
+import static java.lang.Math.cos;
+import static java.lang.Math.min;
+import static java.lang.Math.sin;
+import static java.lang.Math.sqrt;
+import static java.lang.Math.toRadians;
+
+import com.google.common.base.Preconditions;
+import java.util.List;
+import lombok.NonNull;
+import pogo.assistance.data.model.GeoPoint;
+
+/**
+ * Great-circle distance (in KM) between points, using the haversine formula. Unlike the spherical law of cosines, it
+ * stays accurate for points that are only a few meters apart.
+ *
+ * An instance is created over a fixed list of points and precomputes the trigonometric terms of each point once, so
+ * that distance between two of them only costs two {@code sin}s, a {@code sqrt} and an {@code asin}.
+ */
+public final class DistanceCalculator {
+
+    /**
+     * Radius giving 60 * 1.1515 statute miles per degree, same as the earth model used by the rest of the code.
+     */
+    public static final double EARTH_RADIUS_KM = 60 * 1.1515 * 1.609344 * 180 / Math.PI;
+
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final double[] cosLatitudes;
+
+    private DistanceCalculator(final List<? extends GeoPoint> points) {
+        final int size = points.size();
+        this.latitudes = new double[size];
+        this.longitudes = new double[size];
+        this.cosLatitudes = new double[size];
+        for (int i = 0; i < size; i++) {
+            final GeoPoint point = points.get(i);
+            latitudes[i] = toRadians(point.getLatitude());
+            longitudes[i] = toRadians(point.getLongitude());
+            cosLatitudes[i] = cos(latitudes[i]);
+        }
+    }
+
+    /**
+     * @return
+     *      Calculator for {@code points}, where points are referred to by their index in the list.
+     */
+    public static DistanceCalculator of(@NonNull final List<? extends GeoPoint> points) {
+        return new DistanceCalculator(points);
+    }
+
+    public static double getDistance(@NonNull final GeoPoint a, @NonNull final GeoPoint b) {
+        final double latitudeA = toRadians(a.getLatitude());
+        final double latitudeB = toRadians(b.getLatitude());
+        return haversine(
+                latitudeA, toRadians(a.getLongitude()), cos(latitudeA),
+                latitudeB, toRadians(b.getLongitude()), cos(latitudeB));
+    }
+
+    public int size() {
+        return latitudes.length;
+    }
+
+    public double getDistance(final int from, final int to) {
+        return haversine(
+                latitudes[from], longitudes[from], cosLatitudes[from],
+                latitudes[to], longitudes[to], cosLatitudes[to]);
+    }
+
+    /**
+     * Calculates distances from the point at {@code from} to each of the points in [{@code toStart}, {@code toEnd}),
+     * storing the distance to point {@code toStart + i} at {@code distances[i]}.
+     */
+    public void getDistances(final int from, final int toStart, final int toEnd, @NonNull final double[] distances) {
+        Preconditions.checkPositionIndexes(toStart, toEnd, size());
+        Preconditions.checkArgument(distances.length >= toEnd - toStart, "Not enough room for the distances");
+        final double latitude = latitudes[from];
+        final double longitude = longitudes[from];
+        final double cosLatitude = cosLatitudes[from];
+        for (int to = toStart; to < toEnd; to++) {
+            distances[to - toStart] = haversine(
+                    latitude, longitude, cosLatitude, latitudes[to], longitudes[to], cosLatitudes[to]);
+        }
+    }
+
+    private static double haversine(
+            final double latitudeA,
+            final double longitudeA,
+            final double cosLatitudeA,
+            final double latitudeB,
+            final double longitudeB,
+            final double cosLatitudeB) {
+        final double sinHalfLatitudeDelta = sin((latitudeB - latitudeA) / 2);
+        final double sinHalfLongitudeDelta = sin((longitudeB - longitudeA) / 2);
+        final double h = sinHalfLatitudeDelta * sinHalfLatitudeDelta
+                + cosLatitudeA * cosLatitudeB * sinHalfLongitudeDelta * sinHalfLongitudeDelta;
+        // Rounding can push h slightly above 1 for antipodal points
+        return 2 * EARTH_RADIUS_KM * asin(min(1, sqrt(h)));
+    }
+
+}
@@ -0,0 +1,102 @@
+package pogo.assistance.route;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BiFunction;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Setter;
+import pogo.assistance.data.model.GeoPoint;
+
+/**
+ * {@link Route} whose points are linked to their neighbours and also kept in a list for positional access. Costs
+ * between consecutive points come from the cost function given at creation.
+ */
+class LinkedRoute implements Route {
+
+    private final BiFunction<? super GeoPoint, ? super GeoPoint, ? extends Number> costFunction;
+    private final List<RoutePoint<?>> routePoints = new ArrayList<>();
+
+    LinkedRoute(@NonNull final BiFunction<? super GeoPoint, ? super GeoPoint, ? extends Number> costFunction) {
+        this.costFunction = costFunction;
+    }
+
+    static LinkedRoute of(
+            final List<? extends GeoPoint> geoPoints,
+            final BiFunction<? super GeoPoint, ? super GeoPoint, ? extends Number> costFunction) {
+        final LinkedRoute route = new LinkedRoute(costFunction);
+        geoPoints.forEach(geoPoint -> route.insert(route.routePoints.size(), geoPoint));
+        return route;
+    }
+
+    @Override
+    public RoutePoint<?> getFirst() {
+        return routePoints.isEmpty() ? null : routePoints.get(0);
+    }
+
+    @Override
+    public RoutePoint<?> getLast() {
+        return routePoints.isEmpty() ? null : routePoints.get(routePoints.size() - 1);
+    }
+
+    @Override
+    public List<RoutePoint<?>> getAsList() {
+        return Collections.unmodifiableList(routePoints);
+    }
+
+    @Override
+    public <P extends GeoPoint> RoutePoint<P> insert(final int position, @NonNull final P geoPoint) {
+        if (position < 0 || position > routePoints.size()) {
+            throw new IndexOutOfBoundsException(
+                    String.format("Position: %d, route size: %d", position, routePoints.size()));
+        }
+
+        final LinkedRoutePoint<P> routePoint = new LinkedRoutePoint<>(geoPoint);
+        final RoutePoint<?> previous = (position == 0) ? null : routePoints.get(position - 1);
+        final RoutePoint<?> next = (position == routePoints.size()) ? null : routePoints.get(position);
+        routePoint.setPrevious(previous);
+        routePoint.setNext(next);
+        if (previous != null) {
+            previous.setNext(routePoint);
+            previous.setCostFromThis(costFunction.apply(previous.getGetPoint(), geoPoint));
+            routePoint.setCostToThis(previous.getCostToThis().doubleValue()
+                    + previous.getCostFromThis().doubleValue());
+        }
+        if (next != null) {
+            next.setPrevious(routePoint);
+            routePoint.setCostFromThis(costFunction.apply(geoPoint, next.getGetPoint()));
+        }
+        routePoints.add(position, routePoint);
+
+        // Accumulated cost of everything after the inserted point changes
+        for (int i = position + 1; i < routePoints.size(); i++) {
+            final RoutePoint<?> current = routePoints.get(i);
+            final RoutePoint<?> before = routePoints.get(i - 1);
+            current.setCostToThis(before.getCostToThis().doubleValue() + before.getCostFromThis().doubleValue());
+        }
+        return routePoint;
+    }
+
+    @Getter
+    @Setter
+    private static class LinkedRoutePoint<P extends GeoPoint> implements RoutePoint<P> {
+
+        private final P getPoint;
+        private RoutePoint<?> previous = null;
+        private RoutePoint<?> next = null;
+        private Number costToThis = 0;
+        private Number costFromThis = 0;
+
+        private LinkedRoutePoint(final P getPoint) {
+            this.getPoint = getPoint;
+        }
+
+        @Override
+        public P getGetPoint() {
+            return getPoint;
+        }
+
+    }
+
+}
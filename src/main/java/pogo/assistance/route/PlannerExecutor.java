@@ -0,0 +1,83 @@
+package pogo.assistance.route;
+
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import lombok.NonNull;
+
+/**
+ * Runs the workers of planners on a pool shared by all of them, so that planning in loops, or for several recipes at
+ * once, neither creates threads per call nor runs more threads than there are processors (plus the calling threads).
+ *
+ * The calling thread runs one of the workers itself. Workers are expected to take their work from a queue shared by
+ * the workers of the same call, so the calling thread gets through all of it if the pool is busy with other calls.
+ * Workers the pool hasn't started by then are cancelled instead of waited for.
+ */
+public final class PlannerExecutor {
+
+    private static final PlannerExecutor SHARED = new PlannerExecutor(Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(),
+            new ThreadFactoryBuilder().setNameFormat("planner-%d").setDaemon(true).build()));
+
+    private final ExecutorService executorService;
+
+    public PlannerExecutor(@NonNull final ExecutorService executorService) {
+        this.executorService = executorService;
+    }
+
+    public static PlannerExecutor getShared() {
+        return SHARED;
+    }
+
+    /**
+     * Runs {@code workerCount} copies of {@code worker}, one on the calling thread and the others on the pool.
+     *
+     * @return
+     *      Results of the workers that ran, the calling thread's first.
+     */
+    public <T> List<T> runWorkers(final int workerCount, @NonNull final Supplier<T> worker) {
+        if (workerCount <= 1) {
+            return Collections.singletonList(worker.get());
+        }
+
+        final List<Future<T>> futures = new ArrayList<>(workerCount - 1);
+        // Each pooled worker runs only if it claims its flag before the calling thread does, once it's done
+        final List<AtomicBoolean> claims = new ArrayList<>(workerCount - 1);
+        try {
+            for (int i = 1; i < workerCount; i++) {
+                final AtomicBoolean claim = new AtomicBoolean();
+                claims.add(claim);
+                futures.add(executorService.submit(() -> claim.compareAndSet(false, true) ? worker.get() : null));
+            }
+            final List<T> results = new ArrayList<>(workerCount);
+            results.add(worker.get());
+            for (int i = 0; i < futures.size(); i++) {
+                if (claims.get(i).compareAndSet(false, true)) {
+                    // Not started yet, and would find no work left, so not worth waiting for
+                    futures.get(i).cancel(false);
+                } else {
+                    results.add(futures.get(i).get());
+                }
+            }
+            return results;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while planning", e);
+        } catch (final ExecutionException e) {
+            Throwables.throwIfUnchecked(e.getCause());
+            throw new RuntimeException("Failed to plan", e.getCause());
+        } finally {
+            // No-op for the ones already done, and stops the rest if planning failed on another thread
+            futures.forEach(future -> future.cancel(true));
+        }
+    }
+
+}
@@ -1,7 +1,6 @@
 package pogo.assistance.route;
 
 import java.util.List;
-import java.util.function.BiFunction;
 import pogo.assistance.data.model.GeoPoint;
 
 interface Route {
@@ -10,22 +9,22 @@ interface Route {
     RoutePoint<?> getLast();
     List<RoutePoint<?>> getAsList();
 
+    /**
+     * @return
+     *      Sum of the costs between consecutive points of the route, zero if it has less than two points.
+     */
     default Number getFullCost() {
-        return getLast().getCostToThis();
+        return getAsList().isEmpty() ? 0 : getLast().getCostToThis();
     }
 
-    default <P extends GeoPoint> void insert(
-            final int position,
-            final P geoPoint,
-            final BiFunction<? extends GeoPoint, ? extends GeoPoint, Number> costFunction) { // TODO: need to make this work for all geo types
-        final RoutePoint<P> routePoint = null; // Create one with the input
-        if (position == getAsList().size()) {
-            getLast().setNext(routePoint);
-//            getLast().setCostFromThis(costFunction.apply(getLast().getGetPoint(), geoPoint));
-        } else {
-            getAsList().get(position); // TODO: index out of bound not handled
-        }
-    }
+    /**
+     * Inserts {@code geoPoint} so that it becomes the point at {@code position}, updating the costs of its neighbours
+     * and the accumulated cost of every point after it.
+     *
+     * @throws IndexOutOfBoundsException
+     *      If {@code position} is negative or larger than the number of points in the route.
+     */
+    <P extends GeoPoint> RoutePoint<P> insert(final int position, final P geoPoint);
 
     interface RoutePoint<P extends GeoPoint> {
         RoutePoint<?> getPrevious();
@@ -1,38 +1,424 @@
 package pogo.assistance.route;
 
-import java.util.LinkedList;
+import com.google.common.base.Preconditions;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiFunction;
+import java.util.function.Supplier;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
 import pogo.assistance.data.model.GeoPoint;
 
-class RoutePlanner {
+/**
+ * Plans an open route (one that doesn't return to where it started) through all of the given points, without any of
+ * the constraints of the bundle planner. Meant for things like nest tours or sweeping over a single type of quest.
+ *
+ * Routes are constructed by going to the nearest unvisited point, and then refined with 2-opt (reversing a part of the
+ * route) and Or-opt (moving up to {@value #MAX_MOVED_RUN_LENGTH} consecutive points elsewhere) until neither improves
+ * it. This is repeated from several evenly spread starting points, optionally in parallel, and the cheapest route is
+ * kept. Result doesn't depend on the parallelism, unless the time budget runs out.
+ *
+ * Costs are assumed to be the same both ways, and are calculated once per pair of points up front. Memory used for
+ * these grows quadratically, so this is meant for up to a few thousand points.
+ */
+public class RoutePlanner {
 
-    public List<GeoPoint> getOptimalRoute(
-            final List<GeoPoint> geoPoints,
-            final BiFunction<GeoPoint, GeoPoint, Number> costFunction) {
-        final List<GeoPoint> route = new LinkedList<>();
-        for (final GeoPoint geoPoint : geoPoints) {
+    private static final int MAX_MOVED_RUN_LENGTH = 3;
+    private static final int NEIGHBOUR_COUNT = 10;
+    private static final double EPSILON = 1e-9;
 
+    private final int startCount;
+    private final int parallelism;
+    private final Optional<Duration> timeBudget;
+
+    /**
+     * Plans from a single starting point, on the calling thread, without a time limit.
+     */
+    public RoutePlanner() {
+        this(1, 1, Optional.empty());
+    }
+
+    /**
+     * @param startCount
+     *      Number of starting points to construct and refine routes from.
+     * @param parallelism
+     *      Number of threads (of {@link PlannerExecutor#getShared()}, along with the calling thread) used for refining
+     *      routes from different starting points.
+     * @param timeBudget
+     *      Time after which refinement stops, returning the best route found so far. Construction of every route is
+     *      always completed.
+     */
+    public RoutePlanner(final int startCount, final int parallelism, @NonNull final Optional<Duration> timeBudget) {
+        Preconditions.checkArgument(startCount > 0, "Start count must be positive");
+        Preconditions.checkArgument(parallelism > 0, "Parallelism must be positive");
+        timeBudget.ifPresent(duration ->
+                Preconditions.checkArgument(!duration.isNegative(), "Time budget must not be negative"));
+        this.startCount = startCount;
+        this.parallelism = parallelism;
+        this.timeBudget = timeBudget;
+    }
+
+    /**
+     * @return
+     *      All of the {@code geoPoints}, ordered to minimize the total distance between consecutive ones.
+     */
+    public <P extends GeoPoint> List<P> getOptimalRoute(@NonNull final List<P> geoPoints) {
+        return getOptimalRoute(geoPoints, SymmetricCostMatrix.ofDistances(geoPoints));
+    }
+
+    /**
+     * @return
+     *      All of the {@code geoPoints}, ordered to minimize the total cost between consecutive ones.
+     */
+    public <P extends GeoPoint> List<P> getOptimalRoute(
+            @NonNull final List<P> geoPoints,
+            @NonNull final BiFunction<? super P, ? super P, ? extends Number> costFunction) {
+        return getOptimalRoute(geoPoints, SymmetricCostMatrix.of(geoPoints, costFunction));
+    }
+
+    private <P extends GeoPoint> List<P> getOptimalRoute(final List<P> geoPoints, final SymmetricCostMatrix costs) {
+        if (geoPoints.size() <= 2) {
+            return new ArrayList<>(geoPoints);
+        }
+
+        final int n = geoPoints.size();
+        final int actualStartCount = Math.min(startCount, n);
+        final long deadline = System.nanoTime() + timeBudget.map(Duration::toNanos).orElse(Long.MAX_VALUE / 2);
+        final int[][] neighbours = findNeighbours(costs);
+        final AtomicInteger startCounter = new AtomicInteger();
+        final Supplier<Optional<PlannedRoute>> worker = () -> {
+            PlannedRoute best = null;
+            for (int i = startCounter.getAndIncrement(); i < actualStartCount; i = startCounter.getAndIncrement()) {
+                // Spread the starting points over the input, which usually has some locality to it
+                final int startingPoint = (int) ((long) i * n / actualStartCount);
+                final int[] order = constructNearestNeighbour(startingPoint, costs);
+                new Refinement(order, costs, neighbours, deadline).run();
+                final PlannedRoute planned = new PlannedRoute(startingPoint, order, getCost(order, costs));
+                if (best == null || PlannedRoute.COMPARATOR.compare(planned, best) < 0) {
+                    best = planned;
+                }
+            }
+            return Optional.ofNullable(best);
+        };
+
+        final int workerCount = Math.min(parallelism, actualStartCount);
+        final int[] bestOrder = PlannerExecutor.getShared().runWorkers(workerCount, worker).stream()
+                .filter(Optional::isPresent)
+                .map(Optional::get)
+                .min(PlannedRoute.COMPARATOR)
+                .map(PlannedRoute::getOrder)
+                .orElseThrow(() -> new IllegalStateException("No route was planned"));
+        final List<P> route = new ArrayList<>(n);
+        for (final int index : bestOrder) {
+            route.add(geoPoints.get(index));
         }
-        geoPoints.forEach(geoPoint -> {
-            // TODO: Implement
-        });
         return route;
     }
 
-    private Number[][] calculatePairwiseCost(
-            final List<GeoPoint> geoPoints,
-            final BiFunction<GeoPoint, GeoPoint, Number> costFunction) {
-        final int n = geoPoints.size();
-        final Number[][] costs = new Number[n][n];
-        // Half of these calculations are redundant since cost is same both ways
-        // TODO: Optimize
-        for (int i = 0; i < n; i++) {
-            for (int j = 0; j < n; j++) {
-                costs[i][j] = costFunction.apply(geoPoints.get(i), geoPoints.get(j));
+    private static int[] constructNearestNeighbour(final int startingPoint, final SymmetricCostMatrix costs) {
+        final int n = costs.size();
+        final boolean[] visited = new boolean[n];
+        final int[] order = new int[n];
+        order[0] = startingPoint;
+        visited[startingPoint] = true;
+        for (int position = 1; position < n; position++) {
+            final int last = order[position - 1];
+            int nearest = -1;
+            double nearestCost = Double.POSITIVE_INFINITY;
+            for (int candidate = 0; candidate < n; candidate++) {
+                if (!visited[candidate] && (nearest < 0 || costs.get(last, candidate) < nearestCost)) {
+                    nearest = candidate;
+                    nearestCost = costs.get(last, candidate);
+                }
             }
+            order[position] = nearest;
+            visited[nearest] = true;
         }
-        return costs;
+        return order;
+    }
+
+    /**
+     * @return
+     *      Indices of the (up to) {@value #NEIGHBOUR_COUNT} cheapest to reach points from every point, cheapest first.
+     */
+    private static int[][] findNeighbours(final SymmetricCostMatrix costs) {
+        final int n = costs.size();
+        final int neighbourCount = Math.min(NEIGHBOUR_COUNT, n - 1);
+        final int[][] neighbours = new int[n][neighbourCount];
+        final double[] neighbourCosts = new double[neighbourCount];
+        for (int from = 0; from < n; from++) {
+            final int[] nearest = neighbours[from];
+            int found = 0;
+            for (int to = 0; to < n; to++) {
+                if (to == from) {
+                    continue;
+                }
+                final double cost = costs.get(from, to);
+                if (found == neighbourCount && cost >= neighbourCosts[found - 1]) {
+                    continue;
+                }
+                // Insertion sort into the (short) list of nearest so far, dropping the last one if it's full
+                int position = (found < neighbourCount) ? found++ : found - 1;
+                while (position > 0 && neighbourCosts[position - 1] > cost) {
+                    nearest[position] = nearest[position - 1];
+                    neighbourCosts[position] = neighbourCosts[position - 1];
+                    position--;
+                }
+                nearest[position] = to;
+                neighbourCosts[position] = cost;
+            }
+        }
+        return neighbours;
+    }
+
+    /**
+     * Applies improving 2-opt and Or-opt moves to a route in place, until there are none left or the deadline passes.
+     * Only moves that bring a point next to one of its nearest neighbours are considered, which keeps each pass over
+     * the route linear in the number of points.
+     */
+    private static class Refinement {
+
+        private final int[] order;
+        private final int[] positions;
+        private final SymmetricCostMatrix costs;
+        private final int[][] neighbours;
+        private final long deadline;
+
+        private Refinement(
+                final int[] order,
+                final SymmetricCostMatrix costs,
+                final int[][] neighbours,
+                final long deadline) {
+            this.order = order;
+            this.positions = new int[order.length];
+            for (int i = 0; i < order.length; i++) {
+                positions[order[i]] = i;
+            }
+            this.costs = costs;
+            this.neighbours = neighbours;
+            this.deadline = deadline;
+        }
+
+        private void run() {
+            boolean improved = true;
+            while (improved && !isPastDeadline()) {
+                improved = reverseRuns();
+                improved |= moveRuns();
+            }
+        }
+
+        /**
+         * 2-opt: reverses the points in [i, j] if it makes the route cheaper. Being an open route, there's no edge to
+         * replace before the first or after the last point, so reversing a prefix or suffix replaces a single edge.
+         */
+        private boolean reverseRuns() {
+            final int n = order.length;
+            boolean improved = false;
+            for (int i = 1; i < n && !isPastDeadline(); i++) {
+                // New edge from the point before the run to the new start of the run, i.e. the current end of it
+                for (final int neighbour : neighbours[order[i - 1]]) {
+                    final int j = positions[neighbour];
+                    if (j > i && tryReverse(i, j)) {
+                        improved = true;
+                        break;
+                    }
+                }
+                // New edge from the new end of the run, i.e. the current start of it, to the point after the run
+                for (final int neighbour : neighbours[order[i]]) {
+                    final int start = positions[neighbour];
+                    if (start < i - 1 && tryReverse(start, i - 1)) {
+                        improved = true;
+                        break;
+                    }
+                }
+            }
+            return improved;
+        }
+
+        private boolean tryReverse(final int i, final int j) {
+            final int n = order.length;
+            if (i == 0 && j == n - 1) {
+                return false; // Reversing the whole route changes nothing
+            }
+            double delta = 0;
+            if (i > 0) {
+                delta += costs.get(order[i - 1], order[j]) - costs.get(order[i - 1], order[i]);
+            }
+            if (j < n - 1) {
+                delta += costs.get(order[i], order[j + 1]) - costs.get(order[j], order[j + 1]);
+            }
+            if (delta < -EPSILON) {
+                reverse(i, j);
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Or-opt: moves a run of up to {@value #MAX_MOVED_RUN_LENGTH} consecutive points, possibly reversed, between
+         * two other consecutive points (or to either end of the route) if it makes the route cheaper.
+         */
+        private boolean moveRuns() {
+            final int n = order.length;
+            boolean improved = false;
+            for (int length = 1; length <= MAX_MOVED_RUN_LENGTH && length < n; length++) {
+                for (int start = 0; start + length <= n && !isPastDeadline(); start++) {
+                    improved |= tryMoveRun(start, length);
+                }
+            }
+            return improved;
+        }
+
+        private boolean tryMoveRun(final int start, final int length) {
+            final int n = order.length;
+            final int end = start + length - 1;
+            final int first = order[start];
+            final int last = order[end];
+            double removalGain = 0;
+            if (start > 0) {
+                removalGain += costs.get(order[start - 1], first);
+            }
+            if (end < n - 1) {
+                removalGain += costs.get(last, order[end + 1]);
+            }
+            if (start > 0 && end < n - 1) {
+                removalGain -= costs.get(order[start - 1], order[end + 1]);
+            }
+
+            // Gap k is between order[k] and order[k + 1], with -1 and n - 1 being the two ends of the route. Candidates
+            // are the ends, and the gaps on either side of the nearest neighbours of the run's endpoints.
+            final Move best = new Move();
+            evaluateGap(-1, start, end, removalGain, best);
+            evaluateGap(n - 1, start, end, removalGain, best);
+            for (final int neighbour : neighbours[first]) {
+                evaluateGap(positions[neighbour] - 1, start, end, removalGain, best);
+                evaluateGap(positions[neighbour], start, end, removalGain, best);
+            }
+            for (final int neighbour : neighbours[last]) {
+                evaluateGap(positions[neighbour] - 1, start, end, removalGain, best);
+                evaluateGap(positions[neighbour], start, end, removalGain, best);
+            }
+            if (best.gap == Move.NO_GAP) {
+                return false;
+            }
+            moveRun(start, length, best.gap, best.reversed);
+            return true;
+        }
+
+        private void evaluateGap(
+                final int gap,
+                final int start,
+                final int end,
+                final double removalGain,
+                final Move best) {
+            if (gap >= start - 1 && gap <= end) {
+                return; // Gaps adjacent to or within the run
+            }
+            final int n = order.length;
+            final int first = order[start];
+            final int last = order[end];
+            final int a = (gap >= 0) ? order[gap] : -1;
+            final int b = (gap < n - 1) ? order[gap + 1] : -1;
+            final double replaced = (a >= 0 && b >= 0) ? costs.get(a, b) : 0;
+            final double forward = (a >= 0 ? costs.get(a, first) : 0) + (b >= 0 ? costs.get(last, b) : 0);
+            final double reversed = (a >= 0 ? costs.get(a, last) : 0) + (b >= 0 ? costs.get(first, b) : 0);
+            final double delta = Math.min(forward, reversed) - replaced - removalGain;
+            // Ties between gaps go to the earliest one, so that the result doesn't depend on the neighbour order
+            if (delta < best.delta || (delta == best.delta && best.gap != Move.NO_GAP && gap < best.gap)) {
+                best.gap = gap;
+                best.reversed = reversed < forward;
+                best.delta = delta;
+            }
+        }
+
+        private void moveRun(final int start, final int length, final int gap, final boolean reversed) {
+            final int[] run = new int[length];
+            System.arraycopy(order, start, run, 0, length);
+            if (reversed) {
+                for (int i = 0, j = length - 1; i < j; i++, j--) {
+                    final int swapped = run[i];
+                    run[i] = run[j];
+                    run[j] = swapped;
+                }
+            }
+            final int from;
+            final int to;
+            if (gap < start) {
+                // Shift (gap, start) right by the run's length, then put the run right after the gap
+                System.arraycopy(order, gap + 1, order, gap + 1 + length, start - gap - 1);
+                System.arraycopy(run, 0, order, gap + 1, length);
+                from = gap + 1;
+                to = start + length - 1;
+            } else {
+                // Shift (end, gap] left by the run's length, then put the run right before what followed the gap
+                System.arraycopy(order, start + length, order, start, gap - start - length + 1);
+                System.arraycopy(run, 0, order, gap - length + 1, length);
+                from = start;
+                to = gap;
+            }
+            for (int i = from; i <= to; i++) {
+                positions[order[i]] = i;
+            }
+        }
+
+        private void reverse(final int from, final int to) {
+            for (int i = from, j = to; i < j; i++, j--) {
+                final int swapped = order[i];
+                order[i] = order[j];
+                order[j] = swapped;
+                positions[order[i]] = i;
+                positions[order[j]] = j;
+            }
+        }
+
+        private boolean isPastDeadline() {
+            return System.nanoTime() - deadline >= 0;
+        }
+
+    }
+
+    /**
+     * Best Or-opt move found so far for a run.
+     */
+    private static class Move {
+
+        private static final int NO_GAP = Integer.MIN_VALUE;
+
+        private int gap = NO_GAP;
+        private boolean reversed = false;
+        private double delta = -EPSILON;
+
+    }
+
+    private static double getCost(final int[] order, final SymmetricCostMatrix costs) {
+        double cost = 0;
+        for (int i = 1; i < order.length; i++) {
+            cost += costs.get(order[i - 1], order[i]);
+        }
+        return cost;
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    private static class PlannedRoute {
+
+        /**
+         * Cheapest first, ties going to the lowest starting point so that the result doesn't depend on which worker
+         * planned which route.
+         */
+        private static final Comparator<PlannedRoute> COMPARATOR = Comparator.comparingDouble(PlannedRoute::getCost)
+                .thenComparingInt(PlannedRoute::getStartingPoint);
+
+        private final int startingPoint;
+        private final int[] order;
+        private final double cost;
+
     }
 
 }
@@ -0,0 +1,68 @@
+package pogo.assistance.route;
+
+import com.google.common.base.Preconditions;
+import java.util.List;
+import java.util.function.BiFunction;
+import lombok.NonNull;
+import pogo.assistance.data.model.GeoPoint;
+
+/**
+ * Pairwise costs between points, for cost functions that are the same both ways. Only the pairs below the diagonal are
+ * calculated and stored, as primitives in a single triangular array.
+ */
+final class SymmetricCostMatrix {
+
+    private final int size;
+    private final double[] costs;
+
+    private SymmetricCostMatrix(final int size) {
+        Preconditions.checkArgument((long) size * (size - 1) / 2 <= Integer.MAX_VALUE, "Too many points: %s", size);
+        this.size = size;
+        this.costs = new double[getRowStart(size)];
+    }
+
+    static <P extends GeoPoint> SymmetricCostMatrix of(
+            @NonNull final List<P> points,
+            @NonNull final BiFunction<? super P, ? super P, ? extends Number> costFunction) {
+        final SymmetricCostMatrix matrix = new SymmetricCostMatrix(points.size());
+        for (int i = 1; i < matrix.size; i++) {
+            final P from = points.get(i);
+            final int rowStart = getRowStart(i);
+            for (int j = 0; j < i; j++) {
+                matrix.costs[rowStart + j] = costFunction.apply(from, points.get(j)).doubleValue();
+            }
+        }
+        return matrix;
+    }
+
+    /**
+     * @return
+     *      Matrix of distances (in km) between the points, calculated in batches by {@link DistanceCalculator}.
+     */
+    static SymmetricCostMatrix ofDistances(@NonNull final List<? extends GeoPoint> points) {
+        final SymmetricCostMatrix matrix = new SymmetricCostMatrix(points.size());
+        final DistanceCalculator distanceCalculator = DistanceCalculator.of(points);
+        final double[] row = new double[Math.max(0, matrix.size - 1)];
+        for (int i = 1; i < matrix.size; i++) {
+            distanceCalculator.getDistances(i, 0, i, row);
+            System.arraycopy(row, 0, matrix.costs, getRowStart(i), i);
+        }
+        return matrix;
+    }
+
+    int size() {
+        return size;
+    }
+
+    double get(final int from, final int to) {
+        if (from == to) {
+            return 0;
+        }
+        return (from > to) ? costs[getRowStart(from) + to] : costs[getRowStart(to) + from];
+    }
+
+    private static int getRowStart(final int row) {
+        return (int) ((long) row * (row - 1) / 2);
+    }
+
+}
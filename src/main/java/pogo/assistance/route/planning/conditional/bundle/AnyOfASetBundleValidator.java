@@ -2,9 +2,6 @@ package pogo.assistance.route.planning.conditional.bundle;
 
 import com.google.common.base.Preconditions;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.HashSet;
-import java.util.Set;
 import java.util.function.Function;
 import javax.annotation.Nonnull;
 import lombok.NonNull;
@@ -12,8 +9,8 @@ import pogo.assistance.data.model.GeoPoint;
 
 public class AnyOfASetBundleValidator<U extends GeoPoint, V> implements BundleValidator<U, V> {
 
-    private final Set<V> possibilities;
-    private final Function<U, V> elementToBundleElementConverter;
+    private final PatternElements<U, V> possibilities;
+    private final int bundleSize;
 
     private int requiredCount;
 
@@ -21,25 +18,44 @@ public class AnyOfASetBundleValidator<U extends GeoPoint, V> implements BundleVa
             @NonNull final Collection<? extends V> patternElements,
             final int bundleSize,
             @NonNull final Function<U, V> mapper) {
-        possibilities = Collections.unmodifiableSet(new HashSet<>(patternElements));
+        this(new PatternElements<>(patternElements, mapper), bundleSize);
+    }
+
+    AnyOfASetBundleValidator(@NonNull final PatternElements<U, V> possibilities, final int bundleSize) {
+        this.possibilities = possibilities;
+        this.bundleSize = bundleSize;
         requiredCount = bundleSize;
-        elementToBundleElementConverter = mapper;
     }
 
     @Override
-    public synchronized boolean canAddToBundle(@Nonnull final U toBeAdded) {
-        return !isComplete() && possibilities.contains(elementToBundleElementConverter.apply(toBeAdded));
+    public boolean canAddToBundle(@Nonnull final U toBeAdded) {
+        return canAddToBundle(possibilities.getCode(toBeAdded));
+    }
+
+    @Override
+    public void addToBundle(@Nonnull final U toBeAdded) {
+        addToBundle(possibilities.getCode(toBeAdded));
+    }
+
+    @Override
+    public boolean canAddToBundle(final int elementCode) {
+        return !isComplete() && elementCode != BundlePattern.NOT_IN_PATTERN;
     }
 
     @Override
-    public synchronized void addToBundle(@Nonnull final U toBeAdded) {
-        Preconditions.checkState(canAddToBundle(toBeAdded));
+    public void addToBundle(final int elementCode) {
+        Preconditions.checkState(canAddToBundle(elementCode));
         requiredCount--;
     }
 
     @Override
-    public synchronized boolean isComplete() {
+    public boolean isComplete() {
         return requiredCount == 0;
     }
 
+    @Override
+    public void reset() {
+        requiredCount = bundleSize;
+    }
+
 }
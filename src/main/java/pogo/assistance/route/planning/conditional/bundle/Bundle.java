@@ -6,6 +6,12 @@ import org.immutables.value.Value;
 import pogo.assistance.data.model.GeoPoint;
 import pogo.assistance.route.CooldownCalculator;
 
+/**
+ * Group of points that has to be visited together, in order. Distance, cool down and cost of going through the
+ * elements are computed once, when the bundle is built. Builders that already accumulated them while adding elements
+ * (e.g. {@link BundleBuilder}) set them directly. They are left out of equality, so two bundles of the same elements
+ * are equal whichever way their metrics were computed.
+ */
 @Value.Immutable(copy = false)
 public interface Bundle<U extends GeoPoint> {
 
@@ -20,14 +26,33 @@ public interface Bundle<U extends GeoPoint> {
         return elements.get(elements.size() - 1);
     }
 
+    @Value.Default
+    @Value.Auxiliary
     default double getDistance() {
         return CooldownCalculator.calculateCost(getElements(), CooldownCalculator::getDistance);
     }
 
+    /**
+     * @return
+     *      Total cool down (in seconds) of going through the elements.
+     */
+    @Value.Default
+    @Value.Auxiliary
     default double getDuration() {
         return CooldownCalculator.calculateCost(getElements(), CooldownCalculator::getCooldown);
     }
 
+    /**
+     * @return
+     *      Total cost of going through the elements, as given by the cost function used to create the bundle. Same as
+     *      distance if the bundle was created without one, like {@link PlannerConfig#costFunction()} defaults to.
+     */
+    @Value.Default
+    @Value.Auxiliary
+    default double getCost() {
+        return getDistance();
+    }
+
     @Value.Check
     default void check() {
         Preconditions.checkState(!getElements().isEmpty());
@@ -2,16 +2,38 @@ package pogo.assistance.route.planning.conditional.bundle;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.BiFunction;
 import lombok.NonNull;
-import lombok.RequiredArgsConstructor;
 import pogo.assistance.data.model.GeoPoint;
+import pogo.assistance.route.CooldownCalculator;
 
-@RequiredArgsConstructor
+/**
+ * Builds a bundle one element at a time, accumulating its distance, cool down and cost as elements are added so the
+ * built {@link Bundle} doesn't have to compute them again.
+ */
 public class BundleBuilder<U extends GeoPoint, V> {
 
     private final BundleValidator<U, V> validator;
+    private final BiFunction<? super GeoPoint, ? super GeoPoint, Double> costFunction;
 
     private final List<U> bundleElements = new ArrayList<>();
+    private double distance = 0;
+    private double duration = 0;
+    private double cost = 0;
+
+    /**
+     * Creates a builder using distance as cost.
+     */
+    public BundleBuilder(@NonNull final BundleValidator<U, V> validator) {
+        this(validator, CooldownCalculator::getDistance);
+    }
+
+    public BundleBuilder(
+            @NonNull final BundleValidator<U, V> validator,
+            @NonNull final BiFunction<? super GeoPoint, ? super GeoPoint, Double> costFunction) {
+        this.validator = validator;
+        this.costFunction = costFunction;
+    }
 
     public synchronized boolean canAddToBundle(@NonNull final U toBeAdded) {
         return validator.canAddToBundle(toBeAdded);
@@ -19,6 +41,12 @@ public class BundleBuilder<U extends GeoPoint, V> {
 
     public synchronized void addToBundle(@NonNull final U toBeAdded) {
         validator.addToBundle(toBeAdded);
+        if (!bundleElements.isEmpty()) {
+            final U previous = bundleElements.get(bundleElements.size() - 1);
+            distance += CooldownCalculator.getDistance(previous, toBeAdded);
+            duration += CooldownCalculator.getCooldown(previous, toBeAdded);
+            cost += costFunction.apply(previous, toBeAdded);
+        }
         bundleElements.add(toBeAdded);
     }
 
@@ -26,8 +54,13 @@ public class BundleBuilder<U extends GeoPoint, V> {
         return validator.isComplete();
     }
 
-    public Bundle<U> build() {
-        return ImmutableBundle.<U>builder().addAllElements(bundleElements).build();
+    public synchronized Bundle<U> build() {
+        return ImmutableBundle.<U>builder()
+                .addAllElements(bundleElements)
+                .distance(distance)
+                .duration(duration)
+                .cost(cost)
+                .build();
     }
 
 }
@@ -5,6 +5,38 @@ import pogo.assistance.data.model.GeoPoint;
 
 public interface BundlePattern<U extends GeoPoint, V> {
 
+    /**
+     * Code returned by {@link #getElementCode(GeoPoint)} for elements that are not part of the pattern.
+     */
+    int NOT_IN_PATTERN = -1;
+
     @Nonnull BundleValidator<U, V> createValidator();
 
+    /**
+     * @return
+     *      Number of elements in a complete bundle of this pattern.
+     */
+    int getBundleSize();
+
+    /**
+     * @return
+     *      Code that the validators of this pattern use to identify {@code element}, or {@link #NOT_IN_PATTERN}. Lets
+     *      callers map elements once and check them with {@link BundleValidator#canAddToBundle(int)} repeatedly.
+     */
+    int getElementCode(@Nonnull U element);
+
+    /**
+     * @return
+     *      True if {@link #getElementCodeForKey(int)} is supported, i.e. pattern elements are pattern keys (see
+     *      {@link PatternKeys}).
+     */
+    boolean isKeyed();
+
+    /**
+     * @return
+     *      Same as {@link #getElementCode(GeoPoint)} for points with pattern key ID {@code keyId}, without mapping the
+     *      point. Only supported if {@link #isKeyed()}.
+     */
+    int getElementCodeForKey(int keyId);
+
 }
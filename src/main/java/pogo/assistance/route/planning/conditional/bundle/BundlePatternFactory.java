@@ -2,40 +2,56 @@ package pogo.assistance.route.planning.conditional.bundle;
 
 import java.util.Collection;
 import java.util.function.Function;
+import java.util.function.Supplier;
+import javax.annotation.Nonnull;
+import lombok.RequiredArgsConstructor;
 import pogo.assistance.data.model.GeoPoint;
 import pogo.assistance.data.model.Nest;
 import pogo.assistance.data.model.Task;
 
 public class BundlePatternFactory {
 
+    private static final Function<GeoPoint, String> GENERIC_MAPPER = BundlePatternFactory::genericMapper;
+
     public static <U extends GeoPoint, V> BundlePattern<U, V> createAnyOfASetPattern(
             final Collection<? extends V> set,
             final int bundleSize,
             final Function<U, V> mapper) {
-        return () -> new AnyOfASetBundleValidator<>(set, bundleSize, mapper);
+        final PatternElements<U, V> elements = new PatternElements<>(set, mapper);
+        return new CompiledPattern<>(elements, bundleSize, () -> new AnyOfASetBundleValidator<>(elements, bundleSize));
     }
 
     public static <U extends GeoPoint, V> BundlePattern<U, V> createNOfAKindPattern(
             final Collection<? extends V> patternElements,
             final int bundleSize,
             final Function<U, V> mapper) {
-        return () -> new NOfAKindBundleValidator<>(patternElements, bundleSize, mapper);
+        final PatternElements<U, V> elements = new PatternElements<>(patternElements, mapper);
+        return new CompiledPattern<>(elements, bundleSize, () -> new NOfAKindBundleValidator<>(elements, bundleSize));
     }
 
     public static <U extends GeoPoint, V> BundlePattern<U, V> createOrderIndependentPattern(
             final Collection<? extends V> patternElements,
             final Function<U, V> mapper) {
-        return () -> new OrderIndependentBundleValidator<>(patternElements, mapper);
+        final PatternElements<U, V> elements = new PatternElements<>(patternElements, mapper);
+        return new CompiledPattern<>(
+                elements, patternElements.size(), () -> new OrderIndependentBundleValidator<>(elements));
     }
 
     public static <U extends GeoPoint, V> BundlePattern<U, V> createOrderDependentPattern(
             final Collection<? extends V> patternElements,
             final Function<U, V> mapper) {
-        return () -> new OrderDependentBundleValidator<>(patternElements, mapper);
+        final PatternElements<U, V> elements = new PatternElements<>(patternElements, mapper);
+        return new CompiledPattern<>(
+                elements, patternElements.size(), () -> new OrderDependentBundleValidator<>(elements));
     }
 
+    /**
+     * @return
+     *      Always the same instance, which lets patterns recognize that their elements are pattern keys (see
+     *      {@link PatternKeys}).
+     */
     public static Function<GeoPoint, String> getGenericMapper() {
-        return BundlePatternFactory::genericMapper;
+        return GENERIC_MAPPER;
     }
 
     public static String genericMapper(final Object geoPoint) {
@@ -53,4 +69,41 @@ public class BundlePatternFactory {
                     String.format("Generic mapper cannot process type: %s", geoPoint.getClass().getSimpleName()));
         }
     }
+
+    /**
+     * Pattern whose elements are compiled into codes once, when the pattern is created.
+     */
+    @RequiredArgsConstructor
+    private static class CompiledPattern<U extends GeoPoint, V> implements BundlePattern<U, V> {
+
+        private final PatternElements<U, V> elements;
+        private final int bundleSize;
+        private final Supplier<BundleValidator<U, V>> validatorSupplier;
+
+        @Nonnull
+        @Override
+        public BundleValidator<U, V> createValidator() {
+            return validatorSupplier.get();
+        }
+
+        @Override
+        public int getBundleSize() {
+            return bundleSize;
+        }
+
+        @Override
+        public int getElementCode(@Nonnull final U element) {
+            return elements.getCode(element);
+        }
+
+        @Override
+        public boolean isKeyed() {
+            return elements.isKeyed();
+        }
+
+        @Override
+        public int getElementCodeForKey(final int keyId) {
+            return elements.getCodeForKey(keyId);
+        }
+    }
 }
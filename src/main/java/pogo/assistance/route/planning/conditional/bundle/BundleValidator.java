@@ -3,12 +3,30 @@ package pogo.assistance.route.planning.conditional.bundle;
 import javax.annotation.Nonnull;
 import pogo.assistance.data.model.GeoPoint;
 
+/**
+ * Validators are stateful and not thread safe. A validator can be reused for building another bundle after
+ * {@link #reset()}.
+ */
 interface BundleValidator<U extends GeoPoint, V> {
 
     boolean canAddToBundle(@Nonnull final U toBeAdded);
 
     void addToBundle(@Nonnull final U toBeAdded);
 
+    /**
+     * @param elementCode
+     *      Code of the element to add, as given by {@link BundlePattern#getElementCode(GeoPoint)} of the pattern that
+     *      created this validator.
+     */
+    boolean canAddToBundle(final int elementCode);
+
+    void addToBundle(final int elementCode);
+
     boolean isComplete();
 
+    /**
+     * Brings the validator back to the state it was created in, i.e. with an empty bundle.
+     */
+    void reset();
+
 }
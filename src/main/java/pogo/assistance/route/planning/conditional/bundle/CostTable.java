@@ -0,0 +1,40 @@
+package pogo.assistance.route.planning.conditional.bundle;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import lombok.NonNull;
+import pogo.assistance.data.model.GeoPoint;
+
+/**
+ * Per-plan view of the input points where each distinct point is assigned an integer index. Distance, cool down and
+ * cost between two points are then looked up using those indices.
+ */
+interface CostTable {
+
+    int size();
+
+    GeoPoint getPoint(final int index);
+
+    double getDistance(final int from, final int to);
+
+    double getCooldown(final int from, final int to);
+
+    double getCost(final int from, final int to);
+
+    /**
+     * @return
+     *      Table indexing the distinct points in {@code points}, in their encounter order. Pairwise values are
+     *      precomputed if the number of points is within {@link PlannerConfig#maxPrecomputedPoints()}, otherwise they
+     *      are computed on demand.
+     */
+    static CostTable create(@NonNull final List<? extends GeoPoint> points, @NonNull final PlannerConfig config) {
+        final List<GeoPoint> distinctPoints = new ArrayList<>(new LinkedHashSet<>(points));
+        if (distinctPoints.size() <= config.maxPrecomputedPoints()) {
+            return new DenseCostTable(distinctPoints, config.costFunction());
+        } else {
+            return new OnDemandCostTable(distinctPoints, config.costFunction());
+        }
+    }
+
+}
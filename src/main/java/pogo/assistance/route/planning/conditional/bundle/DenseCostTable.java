@@ -0,0 +1,85 @@
+package pogo.assistance.route.planning.conditional.bundle;
+
+import com.google.common.base.Preconditions;
+import java.util.List;
+import java.util.function.BiFunction;
+import javax.annotation.Nullable;
+import pogo.assistance.data.model.GeoPoint;
+import pogo.assistance.route.CooldownCalculator;
+import pogo.assistance.route.CooldownCalculator.DistanceUnit;
+import pogo.assistance.route.DistanceCalculator;
+
+/**
+ * {@link CostTable} with every pairwise value computed once at construction and stored in row-major arrays. Distance
+ * and cool down are kept as floats to halve the footprint; cool downs are whole multiples of a few seconds and
+ * distances only lose sub-millimeter precision. Cost is kept as double since the cost function is arbitrary, unless it
+ * is {@link PlannerConfig#DISTANCE_COST}, in which case costs are the distances and aren't stored separately.
+ *
+ * All values are symmetric, so only one half of each table is calculated and mirrored into the other. Diagonal is 0.
+ */
+class DenseCostTable implements CostTable {
+
+    private final List<GeoPoint> points;
+    private final int size;
+    private final float[] distances;
+    private final float[] cooldowns;
+    @Nullable
+    private final double[] costs;
+
+    DenseCostTable(
+            final List<GeoPoint> points,
+            final BiFunction<? super GeoPoint, ? super GeoPoint, Double> costFunction) {
+        Preconditions.checkArgument((long) points.size() * points.size() <= Integer.MAX_VALUE, "Too many points");
+        this.points = points;
+        this.size = points.size();
+        this.distances = new float[size * size];
+        this.cooldowns = new float[size * size];
+        this.costs = (costFunction == PlannerConfig.DISTANCE_COST) ? null : new double[size * size];
+
+        final DistanceCalculator distanceCalculator = DistanceCalculator.of(points);
+        final double[] rowDistances = new double[size];
+        for (int i = 0; i < size; i++) {
+            final GeoPoint from = points.get(i);
+            distanceCalculator.getDistances(i, i + 1, size, rowDistances);
+            for (int j = i + 1; j < size; j++) {
+                final double distance = rowDistances[j - i - 1];
+                final float cooldown = (float) CooldownCalculator.getCooldown(distance, DistanceUnit.KM);
+                distances[i * size + j] = (float) distance;
+                distances[j * size + i] = (float) distance;
+                cooldowns[i * size + j] = cooldown;
+                cooldowns[j * size + i] = cooldown;
+                if (costs != null) {
+                    final double cost = costFunction.apply(from, points.get(j));
+                    costs[i * size + j] = cost;
+                    costs[j * size + i] = cost;
+                }
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public GeoPoint getPoint(final int index) {
+        return points.get(index);
+    }
+
+    @Override
+    public double getDistance(final int from, final int to) {
+        return distances[from * size + to];
+    }
+
+    @Override
+    public double getCooldown(final int from, final int to) {
+        return cooldowns[from * size + to];
+    }
+
+    @Override
+    public double getCost(final int from, final int to) {
+        return (costs == null) ? distances[from * size + to] : costs[from * size + to];
+    }
+
+}
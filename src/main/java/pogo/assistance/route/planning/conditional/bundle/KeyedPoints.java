@@ -0,0 +1,120 @@
+package pogo.assistance.route.planning.conditional.bundle;
+
+import com.google.common.primitives.Ints;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntPredicate;
+import lombok.NonNull;
+import pogo.assistance.data.model.GeoPoint;
+
+/**
+ * Immutable list of points, each paired with the ID of its pattern key (see {@link PatternKeys}). Keys are computed
+ * once, when the points are first wrapped, and derived views reuse them. Planner and recipes classify and filter points
+ * by these IDs instead of mapping the points again.
+ */
+public class KeyedPoints<U extends GeoPoint> {
+
+    private final List<U> points;
+    private final int[] keyIds;
+
+    private KeyedPoints(final List<U> points, final int[] keyIds) {
+        this.points = Collections.unmodifiableList(points);
+        this.keyIds = keyIds;
+    }
+
+    public static <U extends GeoPoint> KeyedPoints<U> of(@NonNull final Collection<? extends U> points) {
+        final List<U> pointList = new ArrayList<>(points);
+        final int[] keyIds = new int[pointList.size()];
+        for (int i = 0; i < keyIds.length; i++) {
+            keyIds[i] = PatternKeys.getKeyId(pointList.get(i));
+        }
+        return new KeyedPoints<>(pointList, keyIds);
+    }
+
+    public int size() {
+        return points.size();
+    }
+
+    public boolean isEmpty() {
+        return points.isEmpty();
+    }
+
+    public U getPoint(final int index) {
+        return points.get(index);
+    }
+
+    public int getKeyId(final int index) {
+        return keyIds[index];
+    }
+
+    public List<U> getPoints() {
+        return points;
+    }
+
+    /**
+     * @return
+     *      Key ID of each point, in the same order as {@link #getPoints()}.
+     */
+    public List<Integer> getKeyIds() {
+        return Collections.unmodifiableList(Ints.asList(keyIds));
+    }
+
+    /**
+     * @return
+     *      View with only the points whose key ID is in {@code keyIds}.
+     */
+    public KeyedPoints<U> filter(@NonNull final BitSet keyIds) {
+        return filterByIndex(i -> this.keyIds[i] != PatternKeys.NO_KEY && keyIds.get(this.keyIds[i]));
+    }
+
+    /**
+     * @return
+     *      View without any of the points in {@code toRemove} (similar to {@link List#removeAll(Collection)}).
+     */
+    public KeyedPoints<U> without(@NonNull final Collection<?> toRemove) {
+        final Set<?> removed = new HashSet<>(toRemove);
+        return filterByIndex(i -> !removed.contains(points.get(i)));
+    }
+
+    /**
+     * @return
+     *      View without duplicate points, keeping the first occurrence of each.
+     */
+    public KeyedPoints<U> distinct() {
+        final Set<U> seen = new HashSet<>();
+        return filterByIndex(i -> seen.add(points.get(i)));
+    }
+
+    /**
+     * @return
+     *      View with only the points at {@code indices}, in that order.
+     */
+    KeyedPoints<U> select(@NonNull final int[] indices) {
+        final List<U> selectedPoints = new ArrayList<>(indices.length);
+        final int[] selectedKeyIds = new int[indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            selectedPoints.add(points.get(indices[i]));
+            selectedKeyIds[i] = keyIds[indices[i]];
+        }
+        return new KeyedPoints<>(selectedPoints, selectedKeyIds);
+    }
+
+    private KeyedPoints<U> filterByIndex(final IntPredicate indexFilter) {
+        final List<U> filteredPoints = new ArrayList<>(points.size());
+        final int[] filteredKeyIds = new int[points.size()];
+        for (int i = 0; i < points.size(); i++) {
+            if (indexFilter.test(i)) {
+                filteredKeyIds[filteredPoints.size()] = keyIds[i];
+                filteredPoints.add(points.get(i));
+            }
+        }
+        return new KeyedPoints<>(filteredPoints, Arrays.copyOf(filteredKeyIds, filteredPoints.size()));
+    }
+
+}
@@ -0,0 +1,405 @@
+package pogo.assistance.route.planning.conditional.bundle;
+
+import com.google.common.base.Preconditions;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import lombok.NonNull;
+import pogo.assistance.data.model.GeoPoint;
+
+/**
+ * {@link TourOptimizer} cutting down the total cool down of a tour with local search moves, applied until none of them
+ * improves the tour any further or the time budget runs out:
+ *  1. Reorder the elements of a bundle, if a pattern accepts the new order (e.g. order independent patterns).
+ *  2. Move a run of up to {@value #MAX_MOVED_RUN_LENGTH} consecutive bundles elsewhere in the tour (Or-opt).
+ *  3. Reverse a run of bundles, along with the elements of each of them (2-opt). Only when patterns accept all the
+ *     reversed bundles.
+ *
+ * Moves are evaluated with a {@link CostTable} over the points of the tour, and only kept if the tour stays within the
+ * limits of the config.
+ */
+public class LocalSearchTourOptimizer implements TourOptimizer {
+
+    /**
+     * Bundles with more elements than this are left in their order, since trying every order gets too expensive.
+     */
+    private static final int MAX_PERMUTED_BUNDLE_SIZE = 6;
+
+    private static final int MAX_MOVED_RUN_LENGTH = 3;
+
+    /**
+     * Smallest decrease of cool down (in seconds) considered an improvement, so rounding noise doesn't count.
+     */
+    private static final double MIN_IMPROVEMENT = 1e-6;
+
+    private final Duration timeBudget;
+
+    /**
+     * @param timeBudget
+     *      Time that each call to {@link #optimize(Tour, List, PlannerConfig)} can spend improving the tour.
+     */
+    public LocalSearchTourOptimizer(@NonNull final Duration timeBudget) {
+        Preconditions.checkArgument(!timeBudget.isNegative(), "Time budget must not be negative");
+        this.timeBudget = timeBudget;
+    }
+
+    @Override
+    public Tour optimize(
+            @NonNull final Tour tour,
+            @NonNull final List<BundlePattern<GeoPoint, String>> patterns,
+            @NonNull final PlannerConfig config) {
+        if (tour.getBundles().isEmpty()) {
+            return tour;
+        }
+        final Search search = new Search(tour, patterns, config, System.nanoTime() + timeBudget.toNanos());
+        search.run();
+        final Tour optimized = search.toTour();
+        return (config.tourComparator().compare(optimized, tour) >= 0) ? optimized : tour;
+    }
+
+    /**
+     * State of optimizing one tour. Bundles are kept as arrays of {@link CostTable} indices.
+     */
+    private static final class Search {
+
+        private final CostTable costTable;
+        private final PlannerConfig config;
+        private final long deadline;
+        private final List<BundleValidator<GeoPoint, String>> validators;
+
+        /**
+         * Current order of bundles. Each bundle is the array of its elements, in their current order.
+         */
+        private List<int[]> bundles;
+
+        /**
+         * Element orders accepted by the patterns for each bundle, keyed by the (sorted) elements of the bundle.
+         */
+        private final Map<List<Integer>, List<int[]>> validOrders = new HashMap<>();
+
+        Search(
+                final Tour tour,
+                final List<BundlePattern<GeoPoint, String>> patterns,
+                final PlannerConfig config,
+                final long deadline) {
+            this.costTable = CostTable.create(tour.getElements(), config);
+            Preconditions.checkState(
+                    costTable.size() == tour.getElements().size(), "Tour visits the same point more than once");
+            this.config = config;
+            this.deadline = deadline;
+            this.validators = patterns.stream().map(BundlePattern::createValidator).collect(Collectors.toList());
+
+            this.bundles = new ArrayList<>(tour.getBundles().size());
+            int index = 0;
+            for (final Bundle<? extends GeoPoint> bundle : tour.getBundles()) {
+                final int[] elements = new int[bundle.getElements().size()];
+                for (int i = 0; i < elements.length; i++) {
+                    elements[i] = index++;
+                }
+                bundles.add(elements);
+            }
+        }
+
+        void run() {
+            boolean improved = true;
+            while (improved && !isPastDeadline()) {
+                improved = reorderElements() || moveRuns() || reverseRuns();
+            }
+        }
+
+        Tour toTour() {
+            final TourBuilder tourBuilder = new TourBuilder();
+            int[] previous = null;
+            for (final int[] bundle : bundles) {
+                append(tourBuilder, previous, bundle, toBundle(bundle));
+                previous = bundle;
+            }
+            return tourBuilder.build();
+        }
+
+        /**
+         * @return
+         *      Bundle of the {@code elements}, with the metrics of the cost table.
+         */
+        private Bundle<GeoPoint> toBundle(final int[] elements) {
+            double distance = 0;
+            double duration = 0;
+            double cost = 0;
+            for (int i = 1; i < elements.length; i++) {
+                distance += costTable.getDistance(elements[i - 1], elements[i]);
+                duration += costTable.getCooldown(elements[i - 1], elements[i]);
+                cost += costTable.getCost(elements[i - 1], elements[i]);
+            }
+            return ImmutableBundle.<GeoPoint>builder()
+                    .addAllElements(Arrays.stream(elements).mapToObj(costTable::getPoint).collect(Collectors.toList()))
+                    .distance(distance)
+                    .duration(duration)
+                    .cost(cost)
+                    .build();
+        }
+
+        private void append(
+                final TourBuilder tourBuilder,
+                final int[] previous,
+                final int[] elements,
+                final Bundle<GeoPoint> bundle) {
+            if (previous == null) {
+                tourBuilder.append(bundle, 0, 0, 0);
+            } else {
+                final int from = previous[previous.length - 1];
+                tourBuilder.append(
+                        bundle,
+                        costTable.getDistance(from, elements[0]),
+                        costTable.getCooldown(from, elements[0]),
+                        costTable.getCost(from, elements[0]));
+            }
+        }
+
+        private boolean reorderElements() {
+            for (int position = 0; position < bundles.size(); position++) {
+                final int[] current = bundles.get(position);
+                final int[] previous = (position == 0) ? null : bundles.get(position - 1);
+                final int[] next = (position == bundles.size() - 1) ? null : bundles.get(position + 1);
+                final double currentCooldown = getTransitionCooldown(previous, current)
+                        + getInternalCooldown(current)
+                        + getTransitionCooldown(current, next);
+                for (final int[] order : getValidOrders(current)) {
+                    final double cooldown = getTransitionCooldown(previous, order)
+                            + getInternalCooldown(order)
+                            + getTransitionCooldown(order, next);
+                    if (cooldown < currentCooldown - MIN_IMPROVEMENT) {
+                        final List<int[]> candidate = new ArrayList<>(bundles);
+                        candidate.set(position, order);
+                        if (tryAccept(candidate)) {
+                            return true;
+                        }
+                    }
+                }
+                if (isPastDeadline()) {
+                    return false;
+                }
+            }
+            return false;
+        }
+
+        private boolean moveRuns() {
+            for (int length = 1; length <= MAX_MOVED_RUN_LENGTH; length++) {
+                for (int start = 0; start + length <= bundles.size(); start++) {
+                    final int end = start + length; // Exclusive
+                    final int[] runFirst = bundles.get(start);
+                    final int[] runLast = bundles.get(end - 1);
+                    final int[] beforeRun = (start == 0) ? null : bundles.get(start - 1);
+                    final int[] afterRun = (end == bundles.size()) ? null : bundles.get(end);
+                    final double removalDelta = getTransitionCooldown(beforeRun, afterRun)
+                            - getTransitionCooldown(beforeRun, runFirst)
+                            - getTransitionCooldown(runLast, afterRun);
+
+                    final List<int[]> remaining = new ArrayList<>(bundles.subList(0, start));
+                    remaining.addAll(bundles.subList(end, bundles.size()));
+                    // Run is inserted before remaining.get(insertAt)
+                    for (int insertAt = 0; insertAt <= remaining.size(); insertAt++) {
+                        if (insertAt == start) {
+                            continue; // Same as the current order
+                        }
+                        final int[] before = (insertAt == 0) ? null : remaining.get(insertAt - 1);
+                        final int[] after = (insertAt == remaining.size()) ? null : remaining.get(insertAt);
+                        final double insertionDelta = getTransitionCooldown(before, runFirst)
+                                + getTransitionCooldown(runLast, after)
+                                - getTransitionCooldown(before, after);
+                        if (removalDelta + insertionDelta < -MIN_IMPROVEMENT) {
+                            final List<int[]> candidate = new ArrayList<>(remaining.subList(0, insertAt));
+                            candidate.addAll(bundles.subList(start, end));
+                            candidate.addAll(remaining.subList(insertAt, remaining.size()));
+                            if (tryAccept(candidate)) {
+                                return true;
+                            }
+                        }
+                    }
+                    if (isPastDeadline()) {
+                        return false;
+                    }
+                }
+            }
+            return false;
+        }
+
+        private boolean reverseRuns() {
+            for (int start = 0; start < bundles.size(); start++) {
+                final int[] beforeRun = (start == 0) ? null : bundles.get(start - 1);
+                // Cool down is symmetric, so only the transitions at both ends of the run change
+                for (int end = start + 1; end < bundles.size(); end++) {
+                    final int[] runFirst = bundles.get(start);
+                    final int[] runLast = bundles.get(end);
+                    final int[] afterRun = (end == bundles.size() - 1) ? null : bundles.get(end + 1);
+                    final double delta = getTransitionCooldown(beforeRun, reversed(runLast))
+                            + getTransitionCooldown(reversed(runFirst), afterRun)
+                            - getTransitionCooldown(beforeRun, runFirst)
+                            - getTransitionCooldown(runLast, afterRun);
+                    if (delta < -MIN_IMPROVEMENT) {
+                        final List<int[]> candidate = new ArrayList<>(bundles);
+                        boolean reversible = true;
+                        for (int i = start; i <= end && reversible; i++) {
+                            final int[] reversedBundle = reversed(bundles.get(i));
+                            reversible = isValidOrder(reversedBundle);
+                            candidate.set(start + end - i, reversedBundle);
+                        }
+                        if (reversible && tryAccept(candidate)) {
+                            return true;
+                        }
+                    }
+                }
+                if (isPastDeadline()) {
+                    return false;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Replaces the current bundles with {@code candidate} if it's within the limits of the config.
+         */
+        private boolean tryAccept(final List<int[]> candidate) {
+            if (!isWithinLimits(candidate)) {
+                return false;
+            }
+            bundles = candidate;
+            return true;
+        }
+
+        private boolean isWithinLimits(final List<int[]> candidate) {
+            final TourBuilder tourBuilder = new TourBuilder();
+            int[] previous = null;
+            for (final int[] elements : candidate) {
+                if (previous != null && !isWithinLimits(
+                        config.maxBundleToBundleDistance(),
+                        config.maxBundleToBundleDuration(),
+                        previous[previous.length - 1],
+                        elements[0])) {
+                    return false;
+                }
+                for (int i = 1; i < elements.length; i++) {
+                    if (!isWithinLimits(
+                            config.maxStepDistance(), config.maxStepDuration(), elements[i - 1], elements[i])) {
+                        return false;
+                    }
+                }
+
+                final Bundle<GeoPoint> bundle = toBundle(elements);
+                if (Double.compare(bundle.getDistance(), config.maxBundleDistance().orElse(Double.MAX_VALUE)) > 0
+                        || bundle.getDuration()
+                        > config.maxBundleDuration().map(Duration::getSeconds).orElse(Long.MAX_VALUE)) {
+                    return false;
+                }
+                append(tourBuilder, previous, elements, bundle);
+                previous = elements;
+            }
+            return Double.compare(
+                    tourBuilder.getTotalDistance(), config.maxTourDistance().orElse(Double.MAX_VALUE)) <= 0
+                    && tourBuilder.getTotalCooldown()
+                    <= config.maxTourDuration().map(Duration::getSeconds).orElse(Long.MAX_VALUE);
+        }
+
+        private boolean isWithinLimits(
+                final Optional<Double> distanceLimit,
+                final Optional<Duration> durationLimit,
+                final int from,
+                final int to) {
+            return (!distanceLimit.isPresent()
+                    || Double.compare(costTable.getDistance(from, to), distanceLimit.get()) <= 0)
+                    && (!durationLimit.isPresent()
+                    || costTable.getCooldown(from, to) <= durationLimit.get().getSeconds());
+        }
+
+        /**
+         * @return
+         *      Orders of the elements of {@code bundle} (including its current order) accepted by one of the patterns.
+         *      Only the current order for bundles too large to try every order.
+         */
+        private List<int[]> getValidOrders(final int[] bundle) {
+            if (bundle.length > MAX_PERMUTED_BUNDLE_SIZE) {
+                return Collections.singletonList(bundle);
+            }
+            final int[] sorted = bundle.clone();
+            Arrays.sort(sorted);
+            return validOrders.computeIfAbsent(
+                    Arrays.stream(sorted).boxed().collect(Collectors.toList()),
+                    __ -> {
+                        final List<int[]> orders = new ArrayList<>();
+                        permute(sorted, 0, orders);
+                        return orders;
+                    });
+        }
+
+        private void permute(final int[] elements, final int from, final List<int[]> validOrders) {
+            if (from == elements.length) {
+                if (isValidOrder(elements)) {
+                    validOrders.add(elements.clone());
+                }
+                return;
+            }
+            for (int i = from; i < elements.length; i++) {
+                swap(elements, from, i);
+                permute(elements, from + 1, validOrders);
+                swap(elements, from, i);
+            }
+        }
+
+        private boolean isValidOrder(final int[] bundle) {
+            for (final BundleValidator<GeoPoint, String> validator : validators) {
+                validator.reset();
+                boolean accepted = true;
+                for (int i = 0; i < bundle.length && accepted; i++) {
+                    final GeoPoint element = costTable.getPoint(bundle[i]);
+                    accepted = validator.canAddToBundle(element);
+                    if (accepted) {
+                        validator.addToBundle(element);
+                    }
+                }
+                if (accepted && validator.isComplete()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private double getInternalCooldown(final int[] bundle) {
+            double cooldown = 0;
+            for (int i = 1; i < bundle.length; i++) {
+                cooldown += costTable.getCooldown(bundle[i - 1], bundle[i]);
+            }
+            return cooldown;
+        }
+
+        private double getTransitionCooldown(final int[] from, final int[] to) {
+            if (from == null || to == null) {
+                return 0;
+            }
+            return costTable.getCooldown(from[from.length - 1], to[0]);
+        }
+
+        private boolean isPastDeadline() {
+            return System.nanoTime() - deadline >= 0;
+        }
+
+        private static int[] reversed(final int[] bundle) {
+            final int[] reversed = new int[bundle.length];
+            for (int i = 0; i < bundle.length; i++) {
+                reversed[i] = bundle[bundle.length - 1 - i];
+            }
+            return reversed;
+        }
+
+        private static void swap(final int[] elements, final int i, final int j) {
+            final int element = elements[i];
+            elements[i] = elements[j];
+            elements[j] = element;
+        }
+    }
+
+}
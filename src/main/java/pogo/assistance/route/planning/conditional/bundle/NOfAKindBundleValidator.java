@@ -2,8 +2,6 @@ package pogo.assistance.route.planning.conditional.bundle;
 
 import com.google.common.base.Preconditions;
 import java.util.Collection;
-import java.util.HashSet;
-import java.util.Set;
 import java.util.function.Function;
 import javax.annotation.Nonnull;
 import lombok.NonNull;
@@ -11,45 +9,59 @@ import pogo.assistance.data.model.GeoPoint;
 
 public class NOfAKindBundleValidator<U extends GeoPoint, V> implements BundleValidator<U, V> {
 
-    private final Set<V> possibilities;
-    private final Function<U, V> elementToBundleElementConverter;
+    private final PatternElements<U, V> possibilities;
+    private final int bundleSize;
 
     private int requiredCount;
-    private V chosenPossibility = null;
+    private int chosenPossibility = BundlePattern.NOT_IN_PATTERN;
 
     public NOfAKindBundleValidator(
             @NonNull final Collection<? extends V> patternElements,
             final int bundleSize,
             @NonNull final Function<U, V> mapper) {
-        possibilities = new HashSet<>(patternElements);
+        this(new PatternElements<>(patternElements, mapper), bundleSize);
+    }
+
+    NOfAKindBundleValidator(@NonNull final PatternElements<U, V> possibilities, final int bundleSize) {
+        this.possibilities = possibilities;
+        this.bundleSize = bundleSize;
         requiredCount = bundleSize;
-        elementToBundleElementConverter = mapper;
     }
 
     @Override
-    public synchronized boolean canAddToBundle(@Nonnull final U toBeAdded) {
-        if (isComplete()) {
+    public boolean canAddToBundle(@Nonnull final U toBeAdded) {
+        return canAddToBundle(possibilities.getCode(toBeAdded));
+    }
+
+    @Override
+    public void addToBundle(@Nonnull final U toBeAdded) {
+        addToBundle(possibilities.getCode(toBeAdded));
+    }
+
+    @Override
+    public boolean canAddToBundle(final int elementCode) {
+        if (isComplete() || elementCode == BundlePattern.NOT_IN_PATTERN) {
             return false;
         }
 
-        if (chosenPossibility == null) {
-            return possibilities.contains(elementToBundleElementConverter.apply(toBeAdded));
-        } else {
-            return chosenPossibility.equals(elementToBundleElementConverter.apply(toBeAdded));
-        }
+        return chosenPossibility == BundlePattern.NOT_IN_PATTERN || chosenPossibility == elementCode;
     }
 
     @Override
-    public synchronized void addToBundle(@Nonnull final U toBeAdded) {
-        Preconditions.checkState(canAddToBundle(toBeAdded));
-        if (chosenPossibility == null) {
-            chosenPossibility = elementToBundleElementConverter.apply(toBeAdded);
-        }
+    public void addToBundle(final int elementCode) {
+        Preconditions.checkState(canAddToBundle(elementCode));
+        chosenPossibility = elementCode;
         requiredCount--;
     }
 
     @Override
-    public synchronized boolean isComplete() {
+    public boolean isComplete() {
         return requiredCount == 0;
     }
+
+    @Override
+    public void reset() {
+        requiredCount = bundleSize;
+        chosenPossibility = BundlePattern.NOT_IN_PATTERN;
+    }
 }
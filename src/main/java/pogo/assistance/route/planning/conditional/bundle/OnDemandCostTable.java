@@ -0,0 +1,64 @@
+package pogo.assistance.route.planning.conditional.bundle;
+
+import java.util.List;
+import java.util.function.BiFunction;
+import pogo.assistance.data.model.GeoPoint;
+import pogo.assistance.route.CooldownCalculator;
+import pogo.assistance.route.CooldownCalculator.DistanceUnit;
+import pogo.assistance.route.DistanceCalculator;
+
+/**
+ * {@link CostTable} for inputs too large to precompute. Distances are calculated on every lookup from trigonometric
+ * terms precomputed per point, cool downs from those distances, and costs by the configured cost function (unless it
+ * is {@link PlannerConfig#DISTANCE_COST}, in which case costs are the distances). Same as {@link DenseCostTable}, the
+ * cost function is only called in one direction of each pair and never for a point and itself, so the two tables agree
+ * up to the float precision of the dense one.
+ */
+class OnDemandCostTable implements CostTable {
+
+    private final List<GeoPoint> points;
+    private final BiFunction<? super GeoPoint, ? super GeoPoint, Double> costFunction;
+    private final DistanceCalculator distanceCalculator;
+
+    OnDemandCostTable(
+            final List<GeoPoint> points,
+            final BiFunction<? super GeoPoint, ? super GeoPoint, Double> costFunction) {
+        this.points = points;
+        this.costFunction = costFunction;
+        this.distanceCalculator = DistanceCalculator.of(points);
+    }
+
+    @Override
+    public int size() {
+        return points.size();
+    }
+
+    @Override
+    public GeoPoint getPoint(final int index) {
+        return points.get(index);
+    }
+
+    @Override
+    public double getDistance(final int from, final int to) {
+        return distanceCalculator.getDistance(from, to);
+    }
+
+    @Override
+    public double getCooldown(final int from, final int to) {
+        return CooldownCalculator.getCooldown(getDistance(from, to), DistanceUnit.KM);
+    }
+
+    @Override
+    public double getCost(final int from, final int to) {
+        if (costFunction == PlannerConfig.DISTANCE_COST) {
+            return getDistance(from, to);
+        }
+        if (from == to) {
+            return 0;
+        }
+        return (from < to) ?
+                costFunction.apply(points.get(from), points.get(to)) :
+                costFunction.apply(points.get(to), points.get(from));
+    }
+
+}
@@ -2,37 +2,52 @@ package pogo.assistance.route.planning.conditional.bundle;
 
 import com.google.common.base.Verify;
 import java.util.Collection;
-import java.util.LinkedList;
-import java.util.Optional;
-import java.util.Queue;
 import java.util.function.Function;
 import javax.annotation.Nonnull;
 import pogo.assistance.data.model.GeoPoint;
 
 class OrderDependentBundleValidator<U extends GeoPoint, V> implements BundleValidator<U, V> {
-    private final Queue<V> requiredElements;
-    private final Function<U, V> elementToBundleElementConverter;
+    private final PatternElements<U, V> patternElements;
+    private final int[] requiredElements;
+    private int nextRequired = 0;
 
     public OrderDependentBundleValidator(final Collection<? extends V> patternElements, final Function<U, V> mapper) {
-        requiredElements = new LinkedList<>(patternElements);
-        elementToBundleElementConverter = mapper;
+        this(new PatternElements<>(patternElements, mapper));
+    }
+
+    OrderDependentBundleValidator(final PatternElements<U, V> patternElements) {
+        this.patternElements = patternElements;
+        this.requiredElements = patternElements.getSequence();
+    }
+
+    @Override
+    public void addToBundle(@Nonnull final U toBeAdded) {
+        addToBundle(patternElements.getCode(toBeAdded));
     }
 
     @Override
-    public synchronized void addToBundle(@Nonnull final U toBeAdded) {
-        Verify.verify(canAddToBundle(toBeAdded));
-        requiredElements.remove();
+    public void addToBundle(final int elementCode) {
+        Verify.verify(canAddToBundle(elementCode));
+        nextRequired++;
     }
 
     @Override
     public boolean isComplete() {
-        return requiredElements.isEmpty();
+        return nextRequired == requiredElements.length;
+    }
+
+    @Override
+    public void reset() {
+        nextRequired = 0;
+    }
+
+    @Override
+    public boolean canAddToBundle(@Nonnull final U toBeAdded) {
+        return canAddToBundle(patternElements.getCode(toBeAdded));
     }
 
     @Override
-    public synchronized boolean canAddToBundle(@Nonnull final U toBeAdded) {
-        return Optional.ofNullable(requiredElements.peek())
-                .filter(v -> elementToBundleElementConverter.apply(toBeAdded).equals(v))
-                .isPresent();
+    public boolean canAddToBundle(final int elementCode) {
+        return !isComplete() && requiredElements[nextRequired] == elementCode;
     }
 }
@@ -1,34 +1,67 @@
 package pogo.assistance.route.planning.conditional.bundle;
 
 import com.google.common.base.Verify;
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
 import java.util.function.Function;
 import javax.annotation.Nonnull;
 import pogo.assistance.data.model.GeoPoint;
 
 class OrderIndependentBundleValidator<U extends GeoPoint, V> implements BundleValidator<U, V> {
-    private final List<V> requiredElements;
-    private final Function<U, V> elementToBundleElementConverter;
+    private final PatternElements<U, V> patternElements;
+    /**
+     * Number of times each pattern element (indexed by code) appears in the pattern.
+     */
+    private final int[] requiredCounts;
+    private final int requiredTotal;
+    private final int[] remainingCounts;
+    private int remainingTotal;
 
     public OrderIndependentBundleValidator(final Collection<? extends V> patternElements, final Function<U, V> mapper) {
-        requiredElements = new ArrayList<>(patternElements);
-        elementToBundleElementConverter = mapper;
+        this(new PatternElements<>(patternElements, mapper));
+    }
+
+    OrderIndependentBundleValidator(final PatternElements<U, V> patternElements) {
+        this.patternElements = patternElements;
+        final int[] sequence = patternElements.getSequence();
+        this.requiredCounts = new int[patternElements.size()];
+        for (final int code : sequence) {
+            requiredCounts[code]++;
+        }
+        this.requiredTotal = sequence.length;
+        this.remainingCounts = new int[requiredCounts.length];
+        reset();
+    }
+
+    @Override
+    public void addToBundle(@Nonnull final U toBeAdded) {
+        addToBundle(patternElements.getCode(toBeAdded));
     }
 
     @Override
-    public synchronized void addToBundle(@Nonnull final U toBeAdded) {
-        Verify.verify(requiredElements.remove(elementToBundleElementConverter.apply(toBeAdded)));
+    public void addToBundle(final int elementCode) {
+        Verify.verify(canAddToBundle(elementCode));
+        remainingCounts[elementCode]--;
+        remainingTotal--;
     }
 
     @Override
     public boolean isComplete() {
-        return requiredElements.isEmpty();
+        return remainingTotal == 0;
+    }
+
+    @Override
+    public void reset() {
+        System.arraycopy(requiredCounts, 0, remainingCounts, 0, requiredCounts.length);
+        remainingTotal = requiredTotal;
+    }
+
+    @Override
+    public boolean canAddToBundle(@Nonnull U toBeAdded) {
+        return canAddToBundle(patternElements.getCode(toBeAdded));
     }
 
     @Override
-    public synchronized boolean canAddToBundle(@Nonnull U toBeAdded) {
-        return requiredElements.contains(elementToBundleElementConverter.apply(toBeAdded));
+    public boolean canAddToBundle(final int elementCode) {
+        return elementCode != BundlePattern.NOT_IN_PATTERN && remainingCounts[elementCode] > 0;
     }
 }
@@ -0,0 +1,95 @@
+package pogo.assistance.route.planning.conditional.bundle;
+
+import com.google.common.base.Preconditions;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import javax.annotation.Nonnull;
+import lombok.NonNull;
+import pogo.assistance.data.model.GeoPoint;
+
+/**
+ * Elements of a bundle pattern compiled into integer codes. Each distinct pattern element gets a code from 0 to
+ * {@link #size()} - 1 (in order of first appearance), so validators can keep their state in small primitive arrays and
+ * compare codes instead of mapping and comparing elements on every check.
+ */
+class PatternElements<U extends GeoPoint, V> {
+
+    private final Map<V, Integer> elementToCode;
+    private final Function<U, V> mapper;
+    private final int[] sequence;
+
+    /**
+     * Code of each pattern key ID (see {@link PatternKeys}), for looking up codes without mapping points. Only
+     * available (non-null) when elements are mapped with {@link BundlePatternFactory#getGenericMapper()}, since
+     * pattern keys are what that mapper produces.
+     */
+    private final int[] keyIdToCode;
+
+    PatternElements(@NonNull final Collection<? extends V> patternElements, @NonNull final Function<U, V> mapper) {
+        final Map<V, Integer> codes = new LinkedHashMap<>();
+        final int[] sequence = new int[patternElements.size()];
+        int i = 0;
+        for (final V element : patternElements) {
+            sequence[i++] = codes.computeIfAbsent(element, __ -> codes.size());
+        }
+        this.elementToCode = Collections.unmodifiableMap(codes);
+        this.mapper = mapper;
+        this.sequence = sequence;
+        this.keyIdToCode = ((Object) mapper == BundlePatternFactory.getGenericMapper()) ? toKeyIdToCode(codes) : null;
+    }
+
+    private static int[] toKeyIdToCode(final Map<?, Integer> elementToCode) {
+        final Map<Integer, Integer> keyIdToCode = new HashMap<>();
+        elementToCode.forEach((element, code) -> keyIdToCode.put(PatternKeys.getKeyId((String) element), code));
+        final int[] lookup = new int[keyIdToCode.keySet().stream().mapToInt(Integer::intValue).max().orElse(-1) + 1];
+        Arrays.fill(lookup, BundlePattern.NOT_IN_PATTERN);
+        keyIdToCode.forEach((keyId, code) -> lookup[keyId] = code);
+        return lookup;
+    }
+
+    /**
+     * @return
+     *      Code of the pattern element that {@code element} maps to, or {@link BundlePattern#NOT_IN_PATTERN} if it
+     *      doesn't map to any of the pattern elements.
+     */
+    int getCode(@Nonnull final U element) {
+        final Integer code = elementToCode.get(mapper.apply(element));
+        return (code == null) ? BundlePattern.NOT_IN_PATTERN : code;
+    }
+
+    boolean isKeyed() {
+        return keyIdToCode != null;
+    }
+
+    /**
+     * @return
+     *      Code of the pattern element for points with pattern key ID {@code keyId}, or
+     *      {@link BundlePattern#NOT_IN_PATTERN}. Only supported if {@link #isKeyed()}.
+     */
+    int getCodeForKey(final int keyId) {
+        Preconditions.checkState(isKeyed(), "Pattern elements are not pattern keys");
+        return (keyId >= 0 && keyId < keyIdToCode.length) ? keyIdToCode[keyId] : BundlePattern.NOT_IN_PATTERN;
+    }
+
+    /**
+     * @return
+     *      Number of distinct pattern elements.
+     */
+    int size() {
+        return elementToCode.size();
+    }
+
+    /**
+     * @return
+     *      Codes of the pattern elements in the order they were given, including duplicates.
+     */
+    int[] getSequence() {
+        return sequence.clone();
+    }
+
+}
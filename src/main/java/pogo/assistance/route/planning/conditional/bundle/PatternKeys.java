@@ -0,0 +1,65 @@
+package pogo.assistance.route.planning.conditional.bundle;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import lombok.NonNull;
+import lombok.experimental.UtilityClass;
+import pogo.assistance.data.model.GeoPoint;
+import pogo.assistance.data.model.Nest;
+import pogo.assistance.data.model.Task;
+
+/**
+ * Interns pattern keys, i.e. what {@link BundlePatternFactory#genericMapper(Object)} maps a point to, into dense int
+ * IDs. This lets a point's key be computed once (see {@link KeyedPoints}) and be compared as an int afterwards. IDs are
+ * stable for the life of the process.
+ */
+@UtilityClass
+public class PatternKeys {
+
+    /**
+     * ID for points that the generic mapper can't map, i.e. points that are neither {@link Task} nor {@link Nest}.
+     */
+    public static final int NO_KEY = -1;
+
+    private static final Map<String, Integer> KEY_TO_ID = new ConcurrentHashMap<>();
+    private static final List<String> ID_TO_KEY = new CopyOnWriteArrayList<>();
+
+    public static int getKeyId(@NonNull final GeoPoint point) {
+        if (!(point instanceof Task) && !(point instanceof Nest)) {
+            return NO_KEY;
+        }
+        return getKeyId(BundlePatternFactory.genericMapper(point));
+    }
+
+    public static int getKeyId(@NonNull final String key) {
+        final Integer id = KEY_TO_ID.get(key);
+        if (id != null) {
+            return id;
+        }
+        synchronized (ID_TO_KEY) {
+            return KEY_TO_ID.computeIfAbsent(key, __ -> {
+                ID_TO_KEY.add(key);
+                return ID_TO_KEY.size() - 1;
+            });
+        }
+    }
+
+    /**
+     * @return
+     *      Set containing the IDs of all {@code keys}.
+     */
+    public static BitSet getKeyIds(@NonNull final Collection<String> keys) {
+        final BitSet keyIds = new BitSet();
+        keys.forEach(key -> keyIds.set(getKeyId(key)));
+        return keyIds;
+    }
+
+    public static String getKey(final int keyId) {
+        return ID_TO_KEY.get(keyId);
+    }
+
+}
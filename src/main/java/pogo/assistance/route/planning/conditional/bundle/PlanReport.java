@@ -0,0 +1,51 @@
+package pogo.assistance.route.planning.conditional.bundle;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import org.immutables.value.Value;
+
+/**
+ * Outcome of a {@link TourPlanner#planWithReport(KeyedPoints, List)} call: the best tour found, and how much of the
+ * search it came from. Exploration stops early if {@link PlannerConfig#timeBudget()} runs out.
+ */
+@Value.Immutable
+public interface PlanReport {
+
+    Optional<Tour> getTour();
+
+    /**
+     * Number of components points were split into, none of which a tour can cross between (see
+     * {@link TourPlanner#planWithReport(KeyedPoints, List)}).
+     */
+    int getComponentCount();
+
+    /**
+     * Number of points planning could have started a tour from, i.e. the distinct points given to planner.
+     */
+    int getStartingPointCount();
+
+    /**
+     * Number of starting points a tour was planned from, including the ones cut off by {@link PlannerConfig#tourBound()}.
+     */
+    int getExploredStartingPointCount();
+
+    /**
+     * Number of explored starting points whose tour was cut off because it couldn't beat the best one.
+     */
+    int getCutOffStartingPointCount();
+
+    /**
+     * Time spent planning, excluding {@link PlannerConfig#tourOptimizer()}.
+     */
+    Duration getElapsed();
+
+    /**
+     * @return
+     *      True if every starting point was explored, i.e. planning didn't run out of time.
+     */
+    default boolean isComplete() {
+        return getExploredStartingPointCount() == getStartingPointCount();
+    }
+
+}
@@ -1,11 +1,13 @@
 package pogo.assistance.route.planning.conditional.bundle;
 
+import com.google.common.base.Preconditions;
 import java.text.DecimalFormat;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalInt;
 import java.util.function.BiFunction;
 import org.immutables.value.Value;
 import pogo.assistance.data.model.GeoPoint;
@@ -14,9 +16,41 @@ import pogo.assistance.route.CooldownCalculator;
 @Value.Immutable
 public interface PlannerConfig {
 
+    /**
+     * Cost function {@link #costFunction()} defaults to. Planner recognizes it and uses the distances it calculates
+     * anyway, instead of calling it for every pair of points.
+     */
+    BiFunction<? super GeoPoint, ? super GeoPoint, Double> DISTANCE_COST = CooldownCalculator::getDistance;
+
+    /**
+     * Cost of moving from one point to another, which planner minimizes when picking the next point or bundle. Has to
+     * be symmetric; planner only evaluates one direction of each pair.
+     */
     @Value.Default
     default BiFunction<? super GeoPoint, ? super GeoPoint, Double> costFunction() {
-        return CooldownCalculator::getDistance;
+        return DISTANCE_COST;
+    }
+
+    /**
+     * Planner precomputes distance, cool down and cost between every pair of points when planning with at most this
+     * many distinct points. Beyond that, memory cost of the pairwise tables (8 bytes per pair, plus 8 more with a cost
+     * function other than {@link #DISTANCE_COST}) is too high and the values are computed on demand instead.
+     *
+     * Defaults to the number of points whose tables fit in 1/32 of the maximum heap (~1450 points for 1 GB), so a
+     * few plans can run at once, capped at 4000.
+     */
+    @Value.Default
+    default int maxPrecomputedPoints() {
+        return (int) Math.min(4000, Math.sqrt(Runtime.getRuntime().maxMemory() / 32 / 16));
+    }
+
+    /**
+     * Number of threads planning tours from different starting points in parallel: the calling thread, and the rest
+     * from the planner's {@link pogo.assistance.route.PlannerExecutor}, which bounds the threads of all planners.
+     */
+    @Value.Default
+    default int parallelism() {
+        return Runtime.getRuntime().availableProcessors();
     }
 
     /**
@@ -28,6 +62,50 @@ public interface PlannerConfig {
                 .thenComparing(Comparator.comparing(Tour::getTotalDuration).reversed());
     }
 
+    /**
+     * Score agreeing with {@link #tourComparator()}, which lets planner stop working on tours that can't beat the best
+     * tour found so far. Without it, every tour is planned to completion.
+     */
+    Optional<TourBound> tourBound();
+
+    /**
+     * Applied to the best tour found by planner, to improve it further. Without it, the tour is returned as planned.
+     */
+    Optional<TourOptimizer> tourOptimizer();
+
+    /**
+     * Whether planner searches for the cheapest bundle from a point, instead of greedily adding the cheapest next
+     * element. Only applies to patterns of up to 4 elements; larger bundles are always created greedily.
+     *
+     * Cheapest bundle isn't necessarily the one leading to the best tour, since it may end further away from the
+     * remaining points. Planning also takes longer. Worth trying where bundles are expensive relative to the moves
+     * between them.
+     */
+    @Value.Default
+    default boolean exactBundles() {
+        return false;
+    }
+
+    /**
+     * Number of partial tours planner keeps at every step of planning a tour, trying that many of the preferred next
+     * bundles for each. Wider beams find better tours at a cost growing with the square of the width. Without it,
+     * planner greedily commits to the preferred next bundle (same as a width of 1, but cheaper).
+     *
+     * Partial tours are ranked by the score of {@link #tourBound()} (or by bundle count without one), then by shorter
+     * duration, rather than by {@link #tourComparator()}. Only the complete tours are compared with the comparator.
+     * Partial tour the greedy planner would have planned is always kept, so the beam never returns a worse tour.
+     */
+    OptionalInt beamWidth();
+
+    /**
+     * Wall clock time after which planner stops exploring new starting points and goes with the best tour found so
+     * far. Starting points are explored most promising first, so the best tours tend to be found early. Tours already
+     * being planned when time runs out are completed, as is the first starting point, so running out of time never
+     * leaves planner without a tour it would otherwise have. Doesn't include the time taken by
+     * {@link #tourOptimizer()}. Without it, every starting point is explored.
+     */
+    Optional<Duration> timeBudget();
+
     Optional<Double> maxTourDistance();
 
     Optional<Duration> maxTourDuration();
@@ -50,6 +128,14 @@ public interface PlannerConfig {
         return maxStepDuration();
     }
 
+    @Value.Check
+    default void check() {
+        Preconditions.checkState(parallelism() > 0, "Parallelism must be positive");
+        Preconditions.checkState(beamWidth().orElse(1) > 0, "Beam width must be positive");
+        Preconditions.checkState(
+                !timeBudget().map(Duration::isNegative).orElse(false), "Time budget must not be negative");
+    }
+
     /**
      * @return
      *      List of strings, each describing one configuration element. Some configuration elements are not describable
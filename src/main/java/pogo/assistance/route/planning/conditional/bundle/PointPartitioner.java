@@ -0,0 +1,88 @@
+package pogo.assistance.route.planning.conditional.bundle;
+
+import com.google.common.base.Preconditions;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.NonNull;
+import pogo.assistance.data.model.GeoPoint;
+import pogo.assistance.route.CooldownCalculator;
+
+/**
+ * Splits points into connected components, where two points are connected if they're within a radius of each other
+ * (directly or through other points). When the radius is the furthest a tour can move between consecutive points, no
+ * tour can contain points of different components, so components can be planned independently.
+ *
+ * Uses a {@link SpatialGrid} to only compare points in neighbouring cells, and union-find to merge the components.
+ */
+final class PointPartitioner {
+
+    private PointPartitioner() {
+    }
+
+    /**
+     * @return
+     *      Indices of the points in each component, in ascending order. Components are ordered by their first index.
+     */
+    static int[][] partition(@NonNull final List<? extends GeoPoint> points, final double radiusKm) {
+        Preconditions.checkArgument(radiusKm >= 0 && radiusKm < Double.MAX_VALUE, "Invalid radius: %s", radiusKm);
+        final List<GeoPoint> pointList = new ArrayList<>(points);
+        // Only distances are looked up, which this table calculates on demand without the cost of precomputing
+        final CostTable distances = new OnDemandCostTable(pointList, CooldownCalculator::getDistance);
+        final SpatialGrid spatialGrid = new SpatialGrid(distances, radiusKm);
+        final BitSet all = new BitSet(pointList.size());
+        all.set(0, pointList.size());
+
+        final int[] parents = new int[pointList.size()];
+        final int[] sizes = new int[pointList.size()];
+        for (int i = 0; i < parents.length; i++) {
+            parents[i] = i;
+            sizes[i] = 1;
+        }
+        for (int point = 0; point < pointList.size(); point++) {
+            for (final int neighbour : spatialGrid.getWithinRadius(point, radiusKm, all)) {
+                if (neighbour > point) {
+                    union(parents, sizes, point, neighbour);
+                }
+            }
+        }
+
+        // Roots are encountered in the order of the first index of their components
+        final Map<Integer, List<Integer>> components = new LinkedHashMap<>();
+        for (int point = 0; point < pointList.size(); point++) {
+            components.computeIfAbsent(find(parents, point), __ -> new ArrayList<>()).add(point);
+        }
+        return components.values().stream()
+                .map(component -> component.stream().mapToInt(Integer::intValue).toArray())
+                .toArray(int[][]::new);
+    }
+
+    private static int find(final int[] parents, final int point) {
+        int current = point;
+        while (parents[current] != current) {
+            // Path halving: point every other node on the way to its grandparent
+            parents[current] = parents[parents[current]];
+            current = parents[current];
+        }
+        return current;
+    }
+
+    private static void union(final int[] parents, final int[] sizes, final int a, final int b) {
+        final int rootA = find(parents, a);
+        final int rootB = find(parents, b);
+        if (rootA == rootB) {
+            return;
+        }
+        // Smaller tree goes under the larger one, keeping the trees shallow
+        if (sizes[rootA] < sizes[rootB]) {
+            parents[rootA] = rootB;
+            sizes[rootB] += sizes[rootA];
+        } else {
+            parents[rootB] = rootA;
+            sizes[rootA] += sizes[rootB];
+        }
+    }
+
+}
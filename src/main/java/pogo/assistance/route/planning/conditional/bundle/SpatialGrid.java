@@ -0,0 +1,171 @@
+package pogo.assistance.route.planning.conditional.bundle;
+
+import com.google.common.base.Preconditions;
+import com.google.common.primitives.Ints;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import pogo.assistance.data.model.GeoPoint;
+
+/**
+ * Uniform lat/lng grid over the points of a {@link CostTable}, used to find points within a radius without scanning all
+ * of them. With the cell size close to the query radius, a query only visits the handful of cells around the center
+ * point, i.e. O(k) work for k points in those cells.
+ */
+class SpatialGrid {
+
+    /**
+     * Same earth model as {@link pogo.assistance.route.CooldownCalculator}'s distance calculation.
+     */
+    private static final double KM_PER_DEGREE = 60 * 1.1515 * 1.609344;
+
+    /**
+     * Cells are selected slightly generously so that no point within the radius is missed due to rounding. Points are
+     * always checked against the exact distance afterwards.
+     */
+    private static final double SPAN_MARGIN = 1.01;
+
+    /**
+     * Relative tolerance of the exact distance check, since {@link DenseCostTable} keeps distances as floats.
+     */
+    private static final double DISTANCE_TOLERANCE = 1 + 1e-6;
+
+    private static final double MIN_CELL_SIZE_KM = 0.01;
+
+    private final CostTable costTable;
+    private final double cellSize;
+    private final double maxAbsLatitude;
+    private final Map<Long, int[]> cells;
+
+    /**
+     * @param cellSizeKm
+     *      Side of a grid cell. Works best when close to the radius used for queries.
+     */
+    SpatialGrid(final CostTable costTable, final double cellSizeKm) {
+        Preconditions.checkArgument(cellSizeKm >= 0 && cellSizeKm < Double.MAX_VALUE, "Invalid cell size");
+        this.costTable = costTable;
+        this.cellSize = Math.max(cellSizeKm, MIN_CELL_SIZE_KM) / KM_PER_DEGREE;
+
+        final Map<Long, List<Integer>> cellToPoints = new HashMap<>();
+        double maxAbsLat = 0;
+        for (int i = 0; i < costTable.size(); i++) {
+            final GeoPoint point = costTable.getPoint(i);
+            maxAbsLat = Math.max(maxAbsLat, Math.abs(point.getLatitude()));
+            cellToPoints.computeIfAbsent(
+                    toCellKey(toCell(point.getLatitude()), toCell(point.getLongitude())),
+                    __ -> new ArrayList<>()).add(i);
+        }
+        this.maxAbsLatitude = maxAbsLat;
+        this.cells = new HashMap<>(cellToPoints.size() * 2);
+        cellToPoints.forEach((key, points) -> cells.put(key, Ints.toArray(points)));
+    }
+
+    /**
+     * @return
+     *      Average fraction (0 to 1) of all points that a query with {@code radiusKm} has to visit. Queries visiting
+     *      most of the points are not worth doing over a plain scan of all points.
+     */
+    double getCoverage(final double radiusKm) {
+        if (costTable.size() == 0) {
+            return 0;
+        }
+        final double latitudeSpan = getLatitudeSpan(radiusKm);
+        final long latitudeCellSpan = (long) Math.ceil(latitudeSpan / cellSize);
+        final long longitudeCellSpan = (long) Math.ceil(getLongitudeSpan(latitudeSpan) / cellSize);
+        final long cellsInRange = (2 * latitudeCellSpan + 1) * (2 * longitudeCellSpan + 1);
+        double visited = 0;
+        for (final Map.Entry<Long, int[]> cell : cells.entrySet()) {
+            final long latCell = cell.getKey() >> 32;
+            final long lngCell = (int) cell.getKey().longValue();
+            final Collection<int[]> inRange = (cellsInRange > cells.size()) ?
+                    cells.values() :
+                    getCells(latCell - latitudeCellSpan, latCell + latitudeCellSpan,
+                            lngCell - longitudeCellSpan, lngCell + longitudeCellSpan);
+            visited += (double) cell.getValue().length * inRange.stream().mapToInt(points -> points.length).sum();
+        }
+        return visited / costTable.size() / costTable.size();
+    }
+
+    /**
+     * @return
+     *      Indices, in ascending order, of points in {@code filter} that are within {@code radiusKm} of the point at
+     *      {@code center} (including {@code center} itself, if it's in the filter).
+     */
+    int[] getWithinRadius(final int center, final double radiusKm, final BitSet filter) {
+        if (radiusKm >= Double.MAX_VALUE) {
+            return filter.stream().toArray();
+        }
+
+        final double maxDistance = radiusKm * DISTANCE_TOLERANCE;
+        final GeoPoint centerPoint = costTable.getPoint(center);
+        final double latitudeSpan = getLatitudeSpan(radiusKm);
+        final double longitudeSpan = getLongitudeSpan(latitudeSpan);
+
+        final long minLatCell = toCell(centerPoint.getLatitude() - latitudeSpan);
+        final long maxLatCell = toCell(centerPoint.getLatitude() + latitudeSpan);
+        final long minLngCell = toCell(centerPoint.getLongitude() - longitudeSpan);
+        final long maxLngCell = toCell(centerPoint.getLongitude() + longitudeSpan);
+
+        // Visiting every occupied cell is cheaper than visiting every cell in range when the range is huge
+        final Collection<int[]> candidateCells =
+                ((maxLatCell - minLatCell + 1) * (maxLngCell - minLngCell + 1) > cells.size()) ?
+                        cells.values() : getCells(minLatCell, maxLatCell, minLngCell, maxLngCell);
+
+        int[] result = new int[16];
+        int count = 0;
+        for (final int[] cell : candidateCells) {
+            for (final int point : cell) {
+                if (filter.get(point) && costTable.getDistance(center, point) <= maxDistance) {
+                    if (count == result.length) {
+                        result = Arrays.copyOf(result, count * 2);
+                    }
+                    result[count++] = point;
+                }
+            }
+        }
+
+        final int[] withinRadius = Arrays.copyOf(result, count);
+        Arrays.sort(withinRadius);
+        return withinRadius;
+    }
+
+    private static double getLatitudeSpan(final double radiusKm) {
+        return radiusKm / KM_PER_DEGREE * SPAN_MARGIN;
+    }
+
+    private double getLongitudeSpan(final double latitudeSpan) {
+        // Longitude degrees shrink towards the poles, so the span is widened for the highest latitude in the grid
+        final double cosLatitude = Math.cos(Math.toRadians(Math.min(90, maxAbsLatitude + latitudeSpan)));
+        return (cosLatitude > 1e-6) ? (latitudeSpan / cosLatitude) : 360;
+    }
+
+    private List<int[]> getCells(
+            final long minLatCell,
+            final long maxLatCell,
+            final long minLngCell,
+            final long maxLngCell) {
+        final List<int[]> inRange = new ArrayList<>();
+        for (long latCell = minLatCell; latCell <= maxLatCell; latCell++) {
+            for (long lngCell = minLngCell; lngCell <= maxLngCell; lngCell++) {
+                final int[] cell = cells.get(toCellKey(latCell, lngCell));
+                if (cell != null) {
+                    inRange.add(cell);
+                }
+            }
+        }
+        return inRange;
+    }
+
+    private long toCell(final double degrees) {
+        return (long) Math.floor(degrees / cellSize);
+    }
+
+    private static long toCellKey(final long latCell, final long lngCell) {
+        return (latCell << 32) | (lngCell & 0xFFFFFFFFL);
+    }
+
+}
@@ -0,0 +1,67 @@
+package pogo.assistance.route.planning.conditional.bundle;
+
+import com.google.common.base.Preconditions;
+import java.util.function.ToDoubleFunction;
+import lombok.NonNull;
+import org.immutables.value.Value;
+import pogo.assistance.data.model.GeoPoint;
+import pogo.assistance.data.model.Reward;
+import pogo.assistance.data.model.Reward.RewardObject;
+import pogo.assistance.data.model.Task;
+
+/**
+ * Score of a tour, as a weighted bundle count plus the sum of values of its points. Planner uses it to compute an
+ * optimistic upper bound of the score a partially planned tour can still reach, and stops planning that tour once the
+ * bound falls below the score of the best tour found so far.
+ *
+ * The score has to agree with {@link PlannerConfig#tourComparator()}: a tour with lower score must never be preferred
+ * over a tour with higher score. Otherwise planner may discard the tour the comparator would have picked.
+ */
+@Value.Immutable
+public interface TourBound {
+
+    @Value.Default
+    default double bundleWeight() {
+        return 0;
+    }
+
+    /**
+     * Value of a point towards the score of the tour it's part of. Must not be negative.
+     */
+    @Value.Default
+    default ToDoubleFunction<? super GeoPoint> pointValue() {
+        return point -> 0;
+    }
+
+    @Value.Check
+    default void check() {
+        Preconditions.checkState(bundleWeight() >= 0, "Bundle weight must not be negative");
+    }
+
+    /**
+     * @return
+     *      Bound agreeing with comparators that prefer tours with more bundles.
+     */
+    static TourBound ofBundleCount() {
+        return ImmutableTourBound.builder().bundleWeight(1).build();
+    }
+
+    /**
+     * @return
+     *      Bound agreeing with comparators that prefer tours with more of {@code rewardObject}, as counted by
+     *      {@link Tour#getQuantifiedRewards()}.
+     */
+    static TourBound ofReward(@NonNull final RewardObject rewardObject) {
+        Preconditions.checkArgument(rewardObject != RewardObject.UNKNOWN, "Unknown rewards aren't counted by tours");
+        return ImmutableTourBound.builder()
+                .pointValue(point -> {
+                    if (!(point instanceof Task)) {
+                        return 0;
+                    }
+                    final Reward reward = ((Task) point).getReward();
+                    return rewardObject.equals(reward.getRewardObject()) ? reward.getQuantity().orElse(0D) : 0;
+                })
+                .build();
+    }
+
+}
@@ -0,0 +1,89 @@
+package pogo.assistance.route.planning.conditional.bundle;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Optional;
+import pogo.assistance.data.model.GeoPoint;
+
+/**
+ * Per-plan helper computing scores and upper bounds of tours as defined by a {@link TourBound}, using the indices of a
+ * {@link CostTable}.
+ */
+class TourBoundEstimator {
+
+    /**
+     * Slack on the remaining distance, since distances may be stored with float precision.
+     */
+    private static final double DISTANCE_TOLERANCE = 1 + 1e-6;
+
+    private final TourBound tourBound;
+    private final CostTable costTable;
+    private final Optional<Double> maxTourDistance;
+
+    /**
+     * Points that are part of at least one of the patterns. Other points can never be added to a tour.
+     */
+    private final BitSet usablePoints;
+    private final double[] pointValues;
+    private final int minBundleSize;
+
+    TourBoundEstimator(
+            final TourBound tourBound,
+            final CostTable costTable,
+            final Optional<Double> maxTourDistance,
+            final List<BundlePattern<GeoPoint, String>> patterns,
+            final int[][] elementCodes) {
+        this.tourBound = tourBound;
+        this.costTable = costTable;
+        this.maxTourDistance = maxTourDistance;
+        this.usablePoints = new BitSet(costTable.size());
+        this.pointValues = new double[costTable.size()];
+        for (int point = 0; point < costTable.size(); point++) {
+            for (final int[] codes : elementCodes) {
+                if (codes[point] != BundlePattern.NOT_IN_PATTERN) {
+                    usablePoints.set(point);
+                }
+            }
+            pointValues[point] = tourBound.pointValue().applyAsDouble(costTable.getPoint(point));
+        }
+        this.minBundleSize = Math.max(1, patterns.stream().mapToInt(BundlePattern::getBundleSize).min().orElse(1));
+    }
+
+    double getPointValue(final int point) {
+        return pointValues[point];
+    }
+
+    double getScore(final int bundleCount, final double collectedValue) {
+        return tourBound.bundleWeight() * bundleCount + collectedValue;
+    }
+
+    /**
+     * @return
+     *      Highest score a tour could reach from its current state, assuming every remaining point that could still be
+     *      reached ends up in the tour.
+     */
+    double getUpperBound(
+            final int bundleCount,
+            final double collectedValue,
+            final BitSet possibilities,
+            final int lastPoint,
+            final double tourDistance) {
+        // Tour distance is the only limit that rules out points: triangle inequality makes any point farther than the
+        // remaining distance unreachable. Cool down doesn't add up the same way across steps, so can't be used.
+        final double remainingDistance = (lastPoint == TourPlanner.NO_POINT) ?
+                Double.MAX_VALUE :
+                maxTourDistance.map(limit -> (limit - tourDistance) * DISTANCE_TOLERANCE).orElse(Double.MAX_VALUE);
+        int reachableCount = 0;
+        double reachableValue = 0;
+        for (int point = possibilities.nextSetBit(0); point >= 0; point = possibilities.nextSetBit(point + 1)) {
+            if (usablePoints.get(point)
+                    && (remainingDistance == Double.MAX_VALUE
+                    || costTable.getDistance(lastPoint, point) <= remainingDistance)) {
+                reachableCount++;
+                reachableValue += pointValues[point];
+            }
+        }
+        return getScore(bundleCount + reachableCount / minBundleSize, collectedValue + reachableValue);
+    }
+
+}
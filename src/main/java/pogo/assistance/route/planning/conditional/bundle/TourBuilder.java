@@ -1,27 +1,126 @@
 package pogo.assistance.route.planning.conditional.bundle;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
-import lombok.experimental.Delegate;
+import java.util.Map;
+import lombok.NonNull;
 import pogo.assistance.data.model.GeoPoint;
+import pogo.assistance.data.model.Reward;
+import pogo.assistance.data.model.Reward.RewardObject;
+import pogo.assistance.data.model.Task;
+import pogo.assistance.route.CooldownCalculator;
 
+/**
+ * Accumulates the bundles of a tour. Totals are updated as bundles are appended, so they can be checked after every
+ * append without walking the whole tour. Distance, cool down and cost within a bundle are the ones it carries, so an
+ * append only adds the step from the previous bundle to them, along with the rewards of the appended elements. The
+ * immutable {@link Tour} is only created by {@link #build()}.
+ *
+ * Totals match the corresponding attributes of the built {@link Tour} (up to rounding), unless bundles or steps are
+ * given metrics of their own, like the ones planner takes from its cost table.
+ */
 public class TourBuilder {
 
-    @Delegate
-    private Tour tour = ImmutableTour.builder().bundles(Collections.emptyList()).build(); // TODO: Fix unsafe calls when null
+    private final List<Bundle<? extends GeoPoint>> bundles = new ArrayList<>();
+    private final Map<RewardObject, Double> quantifiedRewards = new EnumMap<>(RewardObject.class);
+    private GeoPoint lastElement = null;
+    private int elementCount = 0;
+    private double totalDistance = 0;
+    private double totalCooldown = 0;
+    private double totalCost = 0;
 
-    public void append(final Bundle<? extends GeoPoint> bundle) {
-        if (tour == null) {
-            tour = ImmutableTour.builder().bundles(Collections.singletonList(bundle)).build();
-        } else {
-            final List<? super Bundle<? extends GeoPoint>> bundles = new ArrayList<>(tour.getBundles());
-            bundles.add(bundle);
-            tour = ImmutableTour.builder().bundles((List<? extends Bundle<? extends GeoPoint>>) bundles).build();
+    /**
+     * Appends the {@code bundle}, with the distance of the step to it as its cost.
+     */
+    public TourBuilder append(@NonNull final Bundle<? extends GeoPoint> bundle) {
+        if (lastElement == null) {
+            return append(bundle, 0, 0, 0);
         }
+        final GeoPoint first = bundle.getFirst();
+        final double stepDistance = CooldownCalculator.getDistance(lastElement, first);
+        return append(bundle, stepDistance, CooldownCalculator.getCooldown(lastElement, first), stepDistance);
+    }
+
+    /**
+     * Appends the {@code bundle}, with the step from the last appended element to its first element as already known
+     * by the caller. Step is ignored for the first bundle.
+     *
+     * @param stepCooldown
+     *      Cool down (in seconds) of the step.
+     */
+    public TourBuilder append(
+            @NonNull final Bundle<? extends GeoPoint> bundle,
+            final double stepDistance,
+            final double stepCooldown,
+            final double stepCost) {
+        final boolean first = (lastElement == null);
+        bundles.add(bundle);
+        totalDistance += (first ? 0 : stepDistance) + bundle.getDistance();
+        totalCooldown += (first ? 0 : stepCooldown) + bundle.getDuration();
+        totalCost += (first ? 0 : stepCost) + bundle.getCost();
+        for (final GeoPoint element : bundle.getElements()) {
+            if (element instanceof Task) {
+                final Reward reward = ((Task) element).getReward();
+                if (!RewardObject.UNKNOWN.equals(reward.getRewardObject()) && reward.getQuantity().isPresent()) {
+                    quantifiedRewards.merge(reward.getRewardObject(), reward.getQuantity().get(), Double::sum);
+                }
+            }
+        }
+        lastElement = bundle.getLast();
+        elementCount += bundle.getElements().size();
+        return this;
+    }
+
+    public List<Bundle<? extends GeoPoint>> getBundles() {
+        return Collections.unmodifiableList(bundles);
+    }
+
+    public int getElementCount() {
+        return elementCount;
+    }
+
+    /**
+     * @see Tour#getTotalDistance()
+     */
+    public double getTotalDistance() {
+        return totalDistance;
+    }
+
+    /**
+     * @return
+     *      Total cool down (in seconds), before {@link #getTotalDuration()} rounds it up.
+     */
+    public double getTotalCooldown() {
+        return totalCooldown;
+    }
+
+    /**
+     * @see Tour#getTotalDuration()
+     */
+    public Duration getTotalDuration() {
+        return Duration.ofSeconds((long) Math.ceil(totalCooldown));
+    }
+
+    /**
+     * @return
+     *      Total cost of the bundles (see {@link Bundle#getCost()}) and the steps between them.
+     */
+    public double getTotalCost() {
+        return totalCost;
+    }
+
+    /**
+     * @see Tour#getQuantifiedRewards()
+     */
+    public Map<RewardObject, Double> getQuantifiedRewards() {
+        return Collections.unmodifiableMap(quantifiedRewards);
     }
 
     public Tour build() {
-        return tour;
+        return ImmutableTour.builder().bundles(bundles).build();
     }
+
 }
@@ -0,0 +1,28 @@
+package pogo.assistance.route.planning.conditional.bundle;
+
+import java.util.List;
+import pogo.assistance.data.model.GeoPoint;
+
+/**
+ * Improves a planned tour without changing which points it visits, e.g. by changing the order of its bundles or the
+ * order of the elements within its bundles. Planner applies it to the best tour it found, if one is configured with
+ * {@link PlannerConfig#tourOptimizer()}.
+ */
+public interface TourOptimizer {
+
+    /**
+     * @param patterns
+     *      Patterns used to plan the tour. Elements of a bundle may only be reordered into an order that one of these
+     *      patterns accepts.
+     * @param config
+     *      Config used to plan the tour. Optimized tour stays within its limits.
+     * @return
+     *      Tour with the same bundles (possibly reordered), that {@link PlannerConfig#tourComparator()} ranks at least
+     *      as high as {@code tour}.
+     */
+    Tour optimize(
+            final Tour tour,
+            final List<BundlePattern<GeoPoint, String>> patterns,
+            final PlannerConfig config);
+
+}
@@ -1,189 +1,1077 @@
 package pogo.assistance.route.planning.conditional.bundle;
 
-import static java.util.Collections.unmodifiableSet;
-import static pogo.assistance.route.CooldownCalculator.getCooldown;
-import static pogo.assistance.route.CooldownCalculator.getDistance;
-
+import com.google.common.collect.Streams;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
-import java.util.Set;
-import java.util.concurrent.atomic.AtomicReference;
-import java.util.function.Predicate;
+import java.util.OptionalDouble;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.DoubleAccumulator;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 import javax.annotation.Nullable;
 import javax.inject.Inject;
+import lombok.Getter;
+import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import pogo.assistance.data.model.GeoPoint;
 import pogo.assistance.route.CooldownCalculator;
+import pogo.assistance.route.PlannerExecutor;
 
-@RequiredArgsConstructor(onConstructor = @__(@Inject))
 public class TourPlanner {
 
+    /**
+     * Index used in place of a point when there isn't one, e.g. the point before the first bundle of a tour.
+     */
+    static final int NO_POINT = -1;
+
+    /**
+     * Spatial grid is only used for radius queries that visit less than this fraction of the points on average. Beyond
+     * that, scanning all remaining points is cheaper than the grid lookup.
+     */
+    private static final double MAX_SPATIAL_GRID_COVERAGE = 0.25;
+
+    /**
+     * Largest bundle searched for exhaustively (see {@link PlannerConfig#exactBundles()}). Bundles of larger patterns
+     * are created greedily, since the search grows exponentially with the bundle size.
+     */
+    private static final int MAX_EXACT_BUNDLE_SIZE = 4;
+
     private final PlannerConfig config;
 
-    public synchronized Optional<Tour> plan(
+    private final PlannerExecutor plannerExecutor;
+
+    /**
+     * Radius (KM) around a point within which the next point of a bundle has to be, as implied by the config. Empty if
+     * config doesn't limit it.
+     */
+    private final OptionalDouble stepRadius;
+
+    /**
+     * Radius (KM) around the last point of a bundle within which the next bundle has to start, as implied by the
+     * config. Empty if config doesn't limit it.
+     */
+    private final OptionalDouble bundleToBundleRadius;
+
+    /**
+     * Radius (KM) within which consecutive points of a tour are, whether they're in the same bundle or not. Empty if
+     * config doesn't limit both.
+     */
+    private final OptionalDouble linkRadius;
+
+    @Inject
+    public TourPlanner(@NonNull final PlannerConfig config) {
+        this(config, PlannerExecutor.getShared());
+    }
+
+    /**
+     * @param plannerExecutor
+     *      Runs the workers planning from different starting points, up to {@link PlannerConfig#parallelism()} of them
+     *      at a time.
+     */
+    public TourPlanner(@NonNull final PlannerConfig config, @NonNull final PlannerExecutor plannerExecutor) {
+        this.config = config;
+        this.plannerExecutor = plannerExecutor;
+        this.stepRadius = min(
+                getMinRadius(config.maxStepDistance(), config.maxStepDuration()),
+                getMinRadius(config.maxBundleDistance(), config.maxBundleDuration()),
+                getMinRadius(config.maxTourDistance(), config.maxTourDuration()));
+        this.bundleToBundleRadius = min(
+                getMinRadius(config.maxBundleToBundleDistance(), config.maxBundleToBundleDuration()),
+                getMinRadius(config.maxTourDistance(), config.maxTourDuration()));
+        this.linkRadius = (stepRadius.isPresent() && bundleToBundleRadius.isPresent()) ?
+                OptionalDouble.of(Math.max(stepRadius.getAsDouble(), bundleToBundleRadius.getAsDouble())) :
+                OptionalDouble.empty();
+    }
+
+    public Optional<Tour> plan(
             final List<? extends GeoPoint> points,
             final List<BundlePattern<GeoPoint, String>> patterns) {
-        return points.stream()
-                .parallel()
-                .map(startingPoint -> planTour(startingPoint, points, patterns))
+        return plan(KeyedPoints.of(points), patterns);
+    }
+
+    /**
+     * Safe to call concurrently: everything specific to a call is kept in its own {@link PlanContext}.
+     */
+    public Optional<Tour> plan(
+            final KeyedPoints<? extends GeoPoint> points,
+            final List<BundlePattern<GeoPoint, String>> patterns) {
+        return planWithReport(points, patterns).getTour();
+    }
+
+    /**
+     * Same as {@link #plan(KeyedPoints, List)}, along with a report of how many starting points were explored before
+     * the best tour was picked.
+     *
+     * Points are first split into components that no tour can cross between, given the step and bundle to bundle
+     * limits of the config (see {@link PointPartitioner}). Each component gets its own cost table and grid, so pairs
+     * of points in different components are never evaluated. Workers take starting points of all components from a
+     * single queue, so components are planned in parallel, and the best tour among them is picked.
+     */
+    public PlanReport planWithReport(
+            final KeyedPoints<? extends GeoPoint> points,
+            final List<BundlePattern<GeoPoint, String>> patterns) {
+        final long startTime = System.nanoTime();
+        final KeyedPoints<? extends GeoPoint> distinctPoints = points.distinct();
+        final int[][] components = linkRadius.isPresent() && distinctPoints.size() > 1 ?
+                PointPartitioner.partition(distinctPoints.getPoints(), linkRadius.getAsDouble()) :
+                new int[][] { IntStream.range(0, distinctPoints.size()).toArray() };
+        // Tours of one component can be cut off by the best score of another, since they compete for the same result
+        final DoubleAccumulator bestScore = new DoubleAccumulator(Math::max, Double.NEGATIVE_INFINITY);
+        final List<PlanContext> contexts = Arrays.stream(components)
+                .map(component -> createContext(distinctPoints, component, patterns, bestScore))
+                .collect(Collectors.toList());
+        final StartingPointQueue startingPoints = new StartingPointQueue(
+                contexts,
+                distinctPoints.size(),
+                startTime + config.timeBudget().map(Duration::toNanos).orElse(Long.MAX_VALUE / 2));
+
+        final Supplier<Optional<PlannedTour>> worker = () -> {
+            PlannedTour best = null;
+            for (int point = startingPoints.next(); point != NO_POINT; point = startingPoints.next()) {
+                final PlanContext context = startingPoints.getContext(point);
+                final int startingPoint = startingPoints.getLocalIndex(point);
+                final Optional<Tour> tour = config.beamWidth().isPresent() ?
+                        planTourWithBeam(startingPoint, context, config.beamWidth().getAsInt()) :
+                        planTour(startingPoint, context);
 //                // Uncomment to print out some stats about the generated routes
 //                // Lets you verify that the best/expected route was selected
-//                .peek(tour -> System.out.println(String.format(
+//                tour.ifPresent(planned -> System.out.println(String.format(
 //                        "[route] Duration: %s, Elements: %s, Reward: %s",
-//                        tour.getTotalDuration(),
-//                        tour.getElements().size(),
-//                        tour.getQuantifiedRewards().getOrDefault(RewardObject.STARDUST, -1D))))
-                .max(config.tourComparator());
+//                        planned.getTotalDuration(),
+//                        planned.getElements().size(),
+//                        planned.getQuantifiedRewards().getOrDefault(RewardObject.STARDUST, -1D))));
+                startingPoints.getExploredCount().incrementAndGet();
+                if (!tour.isPresent()) {
+                    startingPoints.getCutOffCount().incrementAndGet();
+                    continue;
+                }
+                // Ties are broken by the index among all points, same as if points weren't split into components
+                final PlannedTour planned = new PlannedTour(point, tour.get());
+                if (best == null || PlannedTour.compare(planned, best, config.tourComparator()) > 0) {
+                    best = planned;
+                }
+            }
+            return Optional.ofNullable(best);
+        };
+
+        final int workerCount = Math.min(config.parallelism(), distinctPoints.size());
+        final Optional<Tour> bestTour = plannerExecutor.runWorkers(workerCount, worker)
+                .stream()
+                .filter(Optional::isPresent)
+                .map(Optional::get)
+                .max((a, b) -> PlannedTour.compare(a, b, config.tourComparator()))
+                .map(PlannedTour::getTour);
+        final Duration elapsed = Duration.ofNanos(System.nanoTime() - startTime);
+        return ImmutablePlanReport.builder()
+                .tour(bestTour.map(tour -> config.tourOptimizer()
+                        .map(tourOptimizer -> tourOptimizer.optimize(tour, patterns, config))
+                        .orElse(tour)))
+                .componentCount(components.length)
+                .startingPointCount(distinctPoints.size())
+                .exploredStartingPointCount(startingPoints.getExploredCount().get())
+                .cutOffStartingPointCount(startingPoints.getCutOffCount().get())
+                .elapsed(elapsed)
+                .build();
     }
 
-    private Tour planTour(
-            final GeoPoint startingPoint,
-            final List<? extends GeoPoint> points,
+    /**
+     * @param component
+     *      Indices of the points of the component among {@code distinctPoints}, which become the indices of the cost
+     *      table in the same order.
+     */
+    private PlanContext createContext(
+            final KeyedPoints<? extends GeoPoint> distinctPoints,
+            final int[] component,
+            final List<BundlePattern<GeoPoint, String>> patterns,
+            final DoubleAccumulator bestScore) {
+        final KeyedPoints<? extends GeoPoint> componentPoints = distinctPoints.select(component);
+        final CostTable costTable = CostTable.create(componentPoints.getPoints(), config);
+        final SpatialGrid spatialGrid = createSpatialGrid(costTable);
+        final SpatialGrid stepGrid = isWorthQuerying(spatialGrid, stepRadius) ? spatialGrid : null;
+        final SpatialGrid bundleToBundleGrid = isWorthQuerying(spatialGrid, bundleToBundleRadius) ? spatialGrid : null;
+        final int[][] elementCodes = getElementCodes(componentPoints, patterns);
+        final TourBoundEstimator boundEstimator = config.tourBound()
+                .map(tourBound -> new TourBoundEstimator(
+                        tourBound, costTable, config.maxTourDistance(), patterns, elementCodes))
+                .orElse(null);
+        return new PlanContext(
+                costTable, stepGrid, bundleToBundleGrid, patterns, elementCodes, boundEstimator, bestScore, component,
+                getStartingPointScores(costTable, stepGrid, elementCodes));
+    }
+
+    /**
+     * @return
+     *      Score of each point as a starting point, higher being more promising: 0 for points that aren't part of any
+     *      pattern (tours can't start from those), otherwise the number of pattern elements within the step radius
+     *      (including the point itself). Without a step grid to count with, all pattern elements score 1.
+     */
+    private int[] getStartingPointScores(
+            final CostTable costTable,
+            @Nullable final SpatialGrid stepGrid,
+            final int[][] elementCodes) {
+        final BitSet inPattern = new BitSet(costTable.size());
+        for (final int[] patternCodes : elementCodes) {
+            for (int point = 0; point < patternCodes.length; point++) {
+                if (patternCodes[point] != BundlePattern.NOT_IN_PATTERN) {
+                    inPattern.set(point);
+                }
+            }
+        }
+        final int[] scores = new int[costTable.size()];
+        inPattern.stream().forEach(point -> scores[point] = (stepGrid == null) ?
+                1 : stepGrid.getWithinRadius(point, stepRadius.getAsDouble(), inPattern).length);
+        return scores;
+    }
+
+    /**
+     * @return
+     *      Grid with cells sized for the smaller of the radii, or null if config doesn't limit how far apart
+     *      consecutive points can be (in which case there's nothing to gain from the grid).
+     */
+    @Nullable
+    private SpatialGrid createSpatialGrid(final CostTable costTable) {
+        if (!stepRadius.isPresent() && !bundleToBundleRadius.isPresent()) {
+            return null;
+        }
+        return new SpatialGrid(
+                costTable,
+                Math.min(stepRadius.orElse(Double.MAX_VALUE), bundleToBundleRadius.orElse(Double.MAX_VALUE)));
+    }
+
+    /**
+     * @return
+     *      Code of each point (second index) as given by each pattern (first index), so validators can be checked
+     *      without mapping points while building bundles. Uses the precomputed pattern keys where patterns allow it.
+     */
+    private static int[][] getElementCodes(
+            final KeyedPoints<? extends GeoPoint> points,
             final List<BundlePattern<GeoPoint, String>> patterns) {
-        final Set<? extends GeoPoint> possibilities = new HashSet<>(points);
+        final int[][] elementCodes = new int[patterns.size()][points.size()];
+        for (int i = 0; i < patterns.size(); i++) {
+            final BundlePattern<GeoPoint, String> pattern = patterns.get(i);
+            for (int point = 0; point < points.size(); point++) {
+                elementCodes[i][point] = pattern.isKeyed() ?
+                        pattern.getElementCodeForKey(points.getKeyId(point)) :
+                        pattern.getElementCode(points.getPoint(point));
+            }
+        }
+        return elementCodes;
+    }
+
+    private static boolean isWorthQuerying(@Nullable final SpatialGrid spatialGrid, final OptionalDouble radius) {
+        return spatialGrid != null
+                && radius.isPresent()
+                && spatialGrid.getCoverage(radius.getAsDouble()) < MAX_SPATIAL_GRID_COVERAGE;
+    }
+
+    /**
+     * @return
+     *      Tour planned from {@code startingPoint}, or empty if planning was cut off because the tour couldn't beat the
+     *      best score of the context (only if the context has a bound estimator).
+     */
+    private Optional<Tour> planTour(final int startingPoint, final PlanContext context) {
+        final CostTable costTable = context.getCostTable();
+        final TourBoundEstimator boundEstimator = context.getBoundEstimator();
+        // Validators are reset and reused for every bundle created for this tour
+        final List<BundleValidator<GeoPoint, String>> validators = context.getPatterns().stream()
+                .map(BundlePattern::createValidator)
+                .collect(Collectors.toList());
+        final BitSet possibilities = new BitSet(costTable.size());
+        possibilities.set(0, costTable.size());
+        // Steps are appended with their cost table metrics, so totals of the builder are the ones limits are checked on
         final TourBuilder tourBuilder = new TourBuilder();
-        final AtomicReference<GeoPoint> lastPoint = new AtomicReference<>();
-        Optional<? extends Bundle<? extends GeoPoint>> cheapestNextBundle;
+        int lastPoint = NO_POINT;
+        double collectedValue = 0;
+        Optional<BundleCandidate> cheapestNextBundle;
         do {
-            /*
-             * Select next bundle:
-             *  1. Sort possibilities by the cost of reaching them from lastPoint
-             *  2. For each of the possibilities in that sorted order, get the cheapest bundle we can create with the
-             *     starting point at that possibility.
-             *  3. Pick the first bundle we get from above.
-             *
-             * This essentially gives us the bundle that can be created from the closest of the possibilities and is the
-             * cheapest among the bundles possible to create from that point.
-             *
-             * Even if there are possibilities remaining, loop terminates if we don't manage to get a bundle with above
-             * procedure.
-             */
-            cheapestNextBundle = possibilities.stream()
-                    .filter(distanceLimitFilter(config.maxBundleToBundleDistance().orElse(null), lastPoint.get()))
-                    .filter(durationLimitFilter(config.maxBundleToBundleDuration().orElse(null), lastPoint.get()))
-                    .sorted(comparingCostFrom(lastPoint.get()))
-                    .map(point -> createBundle(
-                            lastPoint.get(),
-                            tourBuilder.getBundles().isEmpty() ? startingPoint : point,
-                            tourBuilder.build(),
-                            unmodifiableSet(possibilities),
-                            patterns))
-                    .filter(Optional::isPresent)
-                    .map(Optional::get)
+            if (boundEstimator != null
+                    && boundEstimator.getUpperBound(
+                            tourBuilder.getBundles().size(), collectedValue, possibilities, lastPoint,
+                            tourBuilder.getTotalDistance())
+                    < context.getBestScore().get()) {
+                return Optional.empty();
+            }
+
+            cheapestNextBundle = getNextBundles(
+                    lastPoint, startingPoint, tourBuilder.getTotalDistance(), tourBuilder.getTotalCooldown(), context,
+                    possibilities, validators)
                     .findFirst();
-            cheapestNextBundle.ifPresent(bundle -> {
-                tourBuilder.append(bundle);
-                possibilities.removeAll(bundle.getElements());
-                lastPoint.set(bundle.getLast());
-            });
+
+            if (cheapestNextBundle.isPresent()) {
+                final BundleCandidate bundle = cheapestNextBundle.get();
+                bundle.appendTo(tourBuilder, lastPoint, costTable);
+                for (final int element : bundle.elements) {
+                    possibilities.clear(element);
+                    collectedValue += (boundEstimator == null) ? 0 : boundEstimator.getPointValue(element);
+                }
+                lastPoint = bundle.getLast();
+            }
         } while (!possibilities.isEmpty() && cheapestNextBundle.isPresent());
 
-        return tourBuilder.build();
+        if (boundEstimator != null) {
+            context.getBestScore().accumulate(
+                    boundEstimator.getScore(tourBuilder.getBundles().size(), collectedValue));
+        }
+        return Optional.of(tourBuilder.build());
     }
 
-    private Optional<? extends Bundle<? extends GeoPoint>> createBundle(
-            @Nullable final GeoPoint lastPoint,
-            final GeoPoint startingPoint,
-            final Tour currentTour,
-            final Set<? extends GeoPoint> possibilities,
-            final List<BundlePattern<GeoPoint, String>> patterns) {
-        return patterns.stream()
-                .map(pattern -> createBundle(startingPoint, possibilities, pattern))
+    /**
+     * Same as {@link #planTour(int, PlanContext)}, but keeps the {@code beamWidth} best partial tours at every step
+     * instead of committing to the preferred next bundle. Each partial tour is extended with up to {@code beamWidth}
+     * of its preferred next bundles, and the extensions are ranked after looking one greedy bundle further ahead, so
+     * that extensions leading into a dead end rank low. Best of the tours that couldn't be extended any further, by
+     * {@link PlannerConfig#tourComparator()}, is returned.
+     *
+     * Partial tours are {@link BeamNode}s linked to the partial tour they extend, so tours sharing a prefix share its
+     * nodes instead of copying them. Extensions are ranked by running totals kept on the nodes (see
+     * {@link BeamNode#RANKING}) rather than by the comparator, which would need a {@link Tour} of every extension.
+     */
+    private Optional<Tour> planTourWithBeam(final int startingPoint, final PlanContext context, final int beamWidth) {
+        final CostTable costTable = context.getCostTable();
+        final TourBoundEstimator boundEstimator = context.getBoundEstimator();
+        final List<BundleValidator<GeoPoint, String>> validators = context.getPatterns().stream()
+                .map(BundlePattern::createValidator)
+                .collect(Collectors.toList());
+        // Possibilities of a node are restored into this, rather than every node keeping its own copy
+        final BitSet possibilities = new BitSet(costTable.size());
+        final Comparator<Tour> tourComparator = config.tourComparator();
+
+        List<BeamNode> beam = Collections.singletonList(new BeamNode(null, null, true, NO_POINT, 0, 0, 0, null, 0, 0));
+        BeamNode best = null;
+        while (!beam.isEmpty()) {
+            final List<BeamNode> extensions = new ArrayList<>();
+            for (final BeamNode node : beam) {
+                node.restorePossibilities(possibilities, costTable.size());
+                if (boundEstimator != null
+                        && boundEstimator.getUpperBound(node.bundleCount, node.collectedValue, possibilities,
+                                node.lastPoint, node.tourDistance)
+                        < context.getBestScore().get()) {
+                    continue;
+                }
+
+                final List<BundleCandidate> nextBundles = possibilities.isEmpty() ?
+                        Collections.emptyList() :
+                        getNextBundles(node.lastPoint, startingPoint, node.tourDistance, node.tourDuration, context,
+                                possibilities, validators)
+                                .limit(beamWidth)
+                                .collect(Collectors.toList());
+                if (nextBundles.isEmpty()) {
+                    // Earlier nodes win ties, same as the greedy planner preferring its first choice
+                    if (best == null || tourComparator.compare(node.getTour(), best.getTour()) > 0) {
+                        best = node;
+                    }
+                    continue;
+                }
+                for (final BundleCandidate bundle : nextBundles) {
+                    final boolean preferred = (bundle == nextBundles.get(0));
+                    final BeamNode extension = node.extend(bundle, preferred, costTable, boundEstimator);
+                    extension.restorePossibilities(possibilities, costTable.size());
+                    if (!possibilities.isEmpty()) {
+                        getNextBundles(extension.lastPoint, startingPoint, extension.tourDistance,
+                                extension.tourDuration, context, possibilities, validators)
+                                .findFirst()
+                                .ifPresent(lookAhead -> extension.lookAhead(lookAhead, costTable, boundEstimator));
+                    }
+                    extensions.add(extension);
+                }
+            }
+            // Stable sort, so ties keep the order of their parents and of the preferred next bundles
+            extensions.sort(BeamNode.RANKING);
+            final int width = Math.min(beamWidth, extensions.size());
+            beam = new ArrayList<>(extensions.subList(0, width));
+            // Tour of the greedy planner is kept in the beam, so that the beam never ends up with a worse tour
+            for (int i = width; i < extensions.size(); i++) {
+                if (extensions.get(i).greedy) {
+                    beam.set(width - 1, extensions.get(i));
+                }
+            }
+        }
+
+        if (best == null) {
+            return Optional.empty();
+        }
+        if (boundEstimator != null) {
+            context.getBestScore().accumulate(boundEstimator.getScore(best.bundleCount, best.collectedValue));
+        }
+        return Optional.of(best.getTour());
+    }
+
+    /**
+     * Next bundles a tour could continue with, most preferred first:
+     *  1. Sort possibilities by the cost of reaching them from lastPoint
+     *  2. For each of the possibilities in that sorted order, get the cheapest bundle we can create with the starting
+     *     point at that possibility.
+     *
+     * This essentially gives us the bundle that can be created from the closest of the possibilities and is the
+     * cheapest among the bundles possible to create from that point, followed by the ones from the next closest
+     * possibilities. Stream is lazy, so taking the first few only creates bundles from the closest possibilities.
+     *
+     * The first bundle of a tour (when there's no lastPoint) can only start from {@code startingPoint}.
+     */
+    private Stream<BundleCandidate> getNextBundles(
+            final int lastPoint,
+            final int startingPoint,
+            final double tourDistance,
+            final double tourDuration,
+            final PlanContext context,
+            final BitSet possibilities,
+            final List<BundleValidator<GeoPoint, String>> validators) {
+        if (lastPoint == NO_POINT) {
+            return Streams.stream(createBundle(
+                    NO_POINT, startingPoint, tourDistance, tourDuration, context, possibilities, validators));
+        }
+        final CostTable costTable = context.getCostTable();
+        return getCandidates(lastPoint, bundleToBundleRadius, possibilities, context.getBundleToBundleGrid())
+                .filter(point -> isWithinLimits(
+                        config.maxBundleToBundleDistance().orElse(null),
+                        config.maxBundleToBundleDuration().orElse(null),
+                        costTable, lastPoint, point))
+                .boxed()
+                .sorted(Comparator.comparingDouble(point -> costTable.getCost(lastPoint, point)))
+                .map(point -> createBundle(
+                        lastPoint, point, tourDistance, tourDuration, context, possibilities, validators))
+                .filter(Optional::isPresent)
+                .map(Optional::get);
+    }
+
+    private Optional<BundleCandidate> createBundle(
+            final int lastPoint,
+            final int startingPoint,
+            final double tourDistance,
+            final double tourDuration,
+            final PlanContext context,
+            final BitSet possibilities,
+            final List<BundleValidator<GeoPoint, String>> validators) {
+        final CostTable costTable = context.getCostTable();
+        return IntStream.range(0, validators.size())
+                .mapToObj(i -> createBundle(
+                        startingPoint, costTable, context.getStepGrid(), possibilities, validators.get(i),
+                        context.getElementCodes()[i]))
                 .filter(Optional::isPresent)
                 .map(Optional::get)
-                .filter(bundle -> isWithinMaxDistance(currentTour.getTotalDistance(), lastPoint, bundle))
-                .filter(bundle -> isWithinMaxDuration(currentTour.getTotalDuration(), lastPoint, bundle))
-                .min(Comparator.comparingDouble(bundle -> costToAddBundle(lastPoint, bundle)));
+                .filter(bundle -> isWithinMaxDistance(tourDistance, lastPoint, bundle, costTable))
+                .filter(bundle -> isWithinMaxDuration(tourDuration, lastPoint, bundle, costTable))
+                .min(Comparator.comparingDouble(bundle -> bundle.getCostToAdd(lastPoint, costTable)));
     }
 
     /**
      * @return
-     *      Greedily created bundle starting at {@code startingPoint} and matching the {@code pattern}, built using the
-     *      points supplied in {@code possibilities}. It doesn't matter if {@code possibilities} contains the
-     *      {@code startingPoint} or not. Returns empty if no bundle could be created with this input.
+     *      Cheapest bundle starting at {@code startingPoint} and matching the pattern of {@code validator}, built using
+     *      the points supplied in {@code possibilities}, or the greedily created one (see
+     *      {@link #createGreedyBundle(int, CostTable, SpatialGrid, BitSet, BundleValidator, int[])}) if exact search
+     *      is disabled or the pattern needs more than {@link #MAX_EXACT_BUNDLE_SIZE} elements.
      */
-    private Optional<? extends Bundle<? extends GeoPoint>> createBundle(
-            final GeoPoint startingPoint,
-            final Set<? extends GeoPoint> possibilities,
-            final BundlePattern<GeoPoint, String> pattern) {
+    private Optional<BundleCandidate> createBundle(
+            final int startingPoint,
+            final CostTable costTable,
+            @Nullable final SpatialGrid spatialGrid,
+            final BitSet possibilities,
+            final BundleValidator<GeoPoint, String> validator,
+            final int[] elementCodes) {
+        final Optional<BundleCandidate> greedyBundle =
+                createGreedyBundle(startingPoint, costTable, spatialGrid, possibilities, validator, elementCodes);
+        if (!config.exactBundles() || (greedyBundle.isPresent() && greedyBundle.get().elements.length == 1)) {
+            return greedyBundle;
+        }
 
-        final BundleValidator<GeoPoint, String> validator = pattern.createValidator();
-        if (!validator.canAddToBundle(startingPoint) || possibilities.isEmpty()) {
+        validator.reset();
+        if (!validator.canAddToBundle(elementCodes[startingPoint]) || possibilities.isEmpty()) {
             return Optional.empty();
         }
+        final BundleSearch search = new BundleSearch(costTable, spatialGrid, possibilities, validator, elementCodes,
+                greedyBundle.orElse(null));
+        validator.addToBundle(elementCodes[startingPoint]);
+        search.elements[0] = startingPoint;
+        search.extend(1, 0, 0, 0);
+        return search.exceededMaxSize ? greedyBundle : Optional.ofNullable(search.best);
+    }
 
-        final BundleBuilder<? super GeoPoint, String> bundleBuilder = new BundleBuilder<>(validator);
-        final Set<? super GeoPoint> ineligible = new HashSet<>();
+    /**
+     * @return
+     *      Greedily created bundle starting at {@code startingPoint} and matching the pattern of {@code validator}
+     *      (which gets reset first), built using the points supplied in {@code possibilities}. It doesn't matter if
+     *      {@code possibilities} contains the {@code startingPoint} or not. Returns empty if no bundle could be created
+     *      with this input.
+     */
+    private Optional<BundleCandidate> createGreedyBundle(
+            final int startingPoint,
+            final CostTable costTable,
+            @Nullable final SpatialGrid spatialGrid,
+            final BitSet possibilities,
+            final BundleValidator<GeoPoint, String> validator,
+            final int[] elementCodes) {
 
-        Optional<? extends GeoPoint> nextPoint = Optional.of(startingPoint);
-        while (!bundleBuilder.isComplete() && nextPoint.isPresent()) {
-            final GeoPoint np = nextPoint.get();
-            bundleBuilder.addToBundle(np);
-            ineligible.add(np);
-            nextPoint = possibilities.stream()
-                    .filter(p -> !ineligible.contains(p))
-                    .filter(bundleBuilder::canAddToBundle)
-                    .filter(distanceLimitFilter(config.maxStepDistance().orElse(null), np))
-                    .filter(durationLimitFilter(config.maxStepDuration().orElse(null), np))
-                    .min(Comparator.comparing(value -> config.costFunction().apply(np, value)));
+        validator.reset();
+        if (!validator.canAddToBundle(elementCodes[startingPoint]) || possibilities.isEmpty()) {
+            return Optional.empty();
         }
 
-        return Optional.ofNullable(bundleBuilder.isComplete() ? bundleBuilder.build() : null)
-                .filter(bundle -> Double.compare(
-                        bundle.getDistance(),
-                        config.maxBundleDistance().orElse(Double.MAX_VALUE)) <= 0)
-                .filter(bundle -> bundle.getDuration() <= config.maxBundleDuration().map(Duration::getSeconds).orElse(Long.MAX_VALUE));
-    }
+        int[] elements = new int[4];
+        int elementCount = 0;
+        double distance = 0;
+        double duration = 0;
+        double cost = 0;
+
+        int nextPoint = startingPoint;
+        while (!validator.isComplete() && nextPoint != NO_POINT) {
+            final int np = nextPoint;
+            validator.addToBundle(elementCodes[np]);
+            if (elementCount > 0) {
+                final int previous = elements[elementCount - 1];
+                distance += costTable.getDistance(previous, np);
+                duration += costTable.getCooldown(previous, np);
+                cost += costTable.getCost(previous, np);
+            }
+            if (elementCount == elements.length) {
+                elements = Arrays.copyOf(elements, elementCount * 2);
+            }
+            elements[elementCount++] = np;
 
-    private Comparator<? super GeoPoint> comparingCostFrom(@Nullable final GeoPoint lastPoint) {
-        return Comparator.comparingDouble(point -> (lastPoint == null) ? 0 : config.costFunction().apply(lastPoint, point));
+            nextPoint = NO_POINT;
+            double nextPointCost = Double.MAX_VALUE;
+            final PrimitiveIterator.OfInt candidates =
+                    getCandidates(np, stepRadius, possibilities, spatialGrid).iterator();
+            while (candidates.hasNext()) {
+                final int p = candidates.nextInt();
+                if (contains(elements, elementCount, p)
+                        || !isWithinLimits(
+                                config.maxStepDistance().orElse(null), config.maxStepDuration().orElse(null),
+                                costTable, np, p)
+                        || !validator.canAddToBundle(elementCodes[p])) {
+                    continue;
+                }
+                final double pointCost = costTable.getCost(np, p);
+                if (nextPoint == NO_POINT || pointCost < nextPointCost) {
+                    nextPoint = p;
+                    nextPointCost = pointCost;
+                }
+            }
+        }
+
+        if (!validator.isComplete()
+                || Double.compare(distance, config.maxBundleDistance().orElse(Double.MAX_VALUE)) > 0
+                || duration > config.maxBundleDuration().map(Duration::getSeconds).orElse(Long.MAX_VALUE)) {
+            return Optional.empty();
+        }
+        return Optional.of(new BundleCandidate(Arrays.copyOf(elements, elementCount), distance, duration, cost));
     }
 
     private boolean isWithinMaxDistance(
             final double currentDistance,
-            @Nullable final GeoPoint fromPoint,
-            final Bundle<? extends GeoPoint> bundle) {
+            final int fromPoint,
+            final BundleCandidate bundle,
+            final CostTable costTable) {
         if (!config.maxTourDistance().isPresent()) {
             return true;
         }
-        final double distanceAfterAddingBundle = currentDistance
-                + (fromPoint == null ? 0 : getDistance(fromPoint, bundle.getFirst()))
-                + bundle.getDistance();
+        final double distanceAfterAddingBundle = currentDistance + bundle.getDistanceToAdd(fromPoint, costTable);
         return Double.compare(distanceAfterAddingBundle, config.maxTourDistance().get()) <= 0;
     }
 
     private boolean isWithinMaxDuration(
-            final Duration currentDuration,
-            @Nullable final GeoPoint fromPoint,
-            final Bundle<? extends GeoPoint> bundle) {
+            final double currentDuration,
+            final int fromPoint,
+            final BundleCandidate bundle,
+            final CostTable costTable) {
         if (!config.maxTourDuration().isPresent()) {
             return true;
         }
-        final Duration durationAfterAddingBundle = currentDuration
-                .plusSeconds(fromPoint == null ? 0 : (long) getCooldown(fromPoint, bundle.getFirst()))
-                .plusSeconds((long) bundle.getDuration());
-        return durationAfterAddingBundle.compareTo(config.maxTourDuration().get()) <= 0;
+        final double durationAfterAddingBundle = currentDuration + bundle.getDurationToAdd(fromPoint, costTable);
+        return durationAfterAddingBundle <= config.maxTourDuration().get().getSeconds();
+    }
+
+    private static boolean isWithinLimits(
+            final Double distanceLimit,
+            final Duration durationLimit,
+            final CostTable costTable,
+            final int lastPoint,
+            final int point) {
+        if (lastPoint == NO_POINT) {
+            return true;
+        }
+        return (distanceLimit == null || Double.compare(costTable.getDistance(lastPoint, point), distanceLimit) <= 0)
+                && (durationLimit == null
+                || Double.compare(costTable.getCooldown(lastPoint, point), durationLimit.getSeconds()) <= 0);
+    }
+
+    /**
+     * @return
+     *      Indices of points in {@code possibilities} that may be within {@code radius} of {@code from}, in ascending
+     *      order. Uses the grid to avoid visiting all possibilities when there is a radius to limit the search with.
+     */
+    private static IntStream getCandidates(
+            final int from,
+            final OptionalDouble radius,
+            final BitSet possibilities,
+            @Nullable final SpatialGrid spatialGrid) {
+        if (spatialGrid == null || !radius.isPresent() || from == NO_POINT) {
+            return possibilities.stream();
+        }
+        return Arrays.stream(spatialGrid.getWithinRadius(from, radius.getAsDouble(), possibilities));
+    }
+
+    /**
+     * @return
+     *      Smaller of the distance limit and the distance that can be covered within the duration limit. Empty if
+     *      neither limit is present, or neither limits the distance.
+     */
+    private static OptionalDouble getMinRadius(final Optional<Double> distance, final Optional<Duration> duration) {
+        final double radius = Math.min(
+                distance.orElse(Double.MAX_VALUE),
+                duration.map(CooldownCalculator::getMaxDistanceWithin).orElse(Double.MAX_VALUE));
+        return (radius < Double.MAX_VALUE) ? OptionalDouble.of(radius) : OptionalDouble.empty();
+    }
+
+    private static OptionalDouble min(final OptionalDouble... radii) {
+        return Arrays.stream(radii)
+                .filter(OptionalDouble::isPresent)
+                .mapToDouble(OptionalDouble::getAsDouble)
+                .min();
+    }
+
+    private static boolean contains(final int[] elements, final int count, final int point) {
+        for (int i = 0; i < count; i++) {
+            if (elements[i] == point) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * State of planning one component of a {@link #plan(KeyedPoints, List)} call, shared by the workers planning tours
+     * for it.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    private static final class PlanContext {
+
+        private final CostTable costTable;
+        @Nullable
+        private final SpatialGrid stepGrid;
+        @Nullable
+        private final SpatialGrid bundleToBundleGrid;
+        private final List<BundlePattern<GeoPoint, String>> patterns;
+        private final int[][] elementCodes;
+        @Nullable
+        private final TourBoundEstimator boundEstimator;
+
+        /**
+         * Best score among finished tours (of any component), so workers can cut off tours that can't beat it.
+         */
+        private final DoubleAccumulator bestScore;
+
+        /**
+         * Index of each point of the cost table among all points of the plan call.
+         */
+        private final int[] pointIndices;
+
+        /**
+         * See {@link #getStartingPointScores(CostTable, SpatialGrid, int[][])}.
+         */
+        private final int[] startingPointScores;
+    }
+
+    /**
+     * Starting points of all components of a {@link #plan(KeyedPoints, List)} call, identified by their index among
+     * all points, handed out most promising first: highest score first, then lowest index. Order doesn't affect the
+     * planned tour, unless planning runs out of time.
+     */
+    private static final class StartingPointQueue {
+
+        private final List<PlanContext> contexts;
+        private final int[] order;
+        private final int[] components;
+        private final int[] localIndices;
+
+        /**
+         * {@link System#nanoTime()} after which no more starting points are handed out.
+         */
+        private final long deadline;
+
+        /**
+         * Starting points are handed out in order from a shared counter, so workers that happen to get quick starts
+         * simply pick up more of them.
+         */
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Getter
+        private final AtomicInteger exploredCount = new AtomicInteger();
+        @Getter
+        private final AtomicInteger cutOffCount = new AtomicInteger();
+
+        StartingPointQueue(final List<PlanContext> contexts, final int pointCount, final long deadline) {
+            this.contexts = contexts;
+            this.deadline = deadline;
+            this.components = new int[pointCount];
+            this.localIndices = new int[pointCount];
+            final int[] scores = new int[pointCount];
+            for (int component = 0; component < contexts.size(); component++) {
+                final PlanContext context = contexts.get(component);
+                for (int local = 0; local < context.getPointIndices().length; local++) {
+                    final int point = context.getPointIndices()[local];
+                    components[point] = component;
+                    localIndices[point] = local;
+                    scores[point] = context.getStartingPointScores()[local];
+                }
+            }
+            this.order = IntStream.range(0, pointCount)
+                    .boxed()
+                    .sorted(Comparator.<Integer>comparingInt(point -> scores[point]).reversed()
+                            .thenComparingInt(point -> point))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+        }
+
+        /**
+         * @return
+         *      Next starting point to plan a tour from, or {@link #NO_POINT} if all of them are taken or the deadline
+         *      has passed. The first starting point is handed out regardless of the deadline.
+         */
+        int next() {
+            final int rank = counter.getAndIncrement();
+            if (rank >= order.length || (rank > 0 && System.nanoTime() - deadline >= 0)) {
+                return NO_POINT;
+            }
+            return order[rank];
+        }
+
+        PlanContext getContext(final int point) {
+            return contexts.get(components[point]);
+        }
+
+        /**
+         * @return
+         *      Index of the point in the cost table of its component.
+         */
+        int getLocalIndex(final int point) {
+            return localIndices[point];
+        }
+    }
+
+    /**
+     * Best tour a worker found, along with where it started from so ties between workers can be broken the same way
+     * regardless of which worker planned which starting point.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    private static final class PlannedTour {
+        private final int startingPoint;
+        private final Tour tour;
+
+        /**
+         * Compares by tour first, then prefers the lower starting point, which doesn't depend on the order starting
+         * points were explored in.
+         */
+        static int compare(final PlannedTour a, final PlannedTour b, final Comparator<Tour> tourComparator) {
+            final int byTour = tourComparator.compare(a.getTour(), b.getTour());
+            return (byTour != 0) ? byTour : Integer.compare(b.getStartingPoint(), a.getStartingPoint());
+        }
     }
 
-    private static Predicate<? super GeoPoint> distanceLimitFilter(
-            @Nullable final Double limit,
-            @Nullable final GeoPoint lastPoint) {
-        return (limit == null || lastPoint == null) ?
-                (geoPoint -> true) : (geoPoint -> Double.compare(getDistance(lastPoint, geoPoint), limit) <= 0);
+    /**
+     * Partial tour of the beam search, as its last bundle plus a link to the partial tour it extends. Nodes are never
+     * modified once created (except for caching and ranking), so any number of extensions can share the same parent.
+     */
+    private static final class BeamNode {
+
+        /**
+         * Highest score first, then lowest duration, both including the greedy look ahead bundle. Score is the one of
+         * {@link PlannerConfig#tourBound()} if there's one, and the number of bundles otherwise. This agrees with
+         * comparators preferring tours of higher score and breaking ties by shorter duration, like the default one.
+         */
+        static final Comparator<BeamNode> RANKING = Comparator.comparingDouble((BeamNode node) -> -node.rankScore)
+                .thenComparingDouble(node -> node.rankDuration);
+
+        @Nullable
+        private final BeamNode parent;
+        @Nullable
+        private final Bundle<GeoPoint> bundle;
+
+        /**
+         * Whether every bundle of this partial tour is the preferred next bundle, i.e. it's what the greedy planner
+         * would have planned so far.
+         */
+        private final boolean greedy;
+        private final int lastPoint;
+        private final int bundleCount;
+        private final double tourDistance;
+        private final double tourDuration;
+        @Nullable
+        private final int[] elements;
+        private final double collectedValue;
+
+        /**
+         * Score and duration of the tour extended with the bundle a greedy planner would add next, used to rank this
+         * node. Same as those of this node if there's no next bundle.
+         */
+        private double rankScore;
+        private double rankDuration;
+        private Tour tour;
+
+        private BeamNode(
+                @Nullable final BeamNode parent,
+                @Nullable final Bundle<GeoPoint> bundle,
+                final boolean greedy,
+                final int lastPoint,
+                final int bundleCount,
+                final double tourDistance,
+                final double tourDuration,
+                @Nullable final int[] elements,
+                final double collectedValue,
+                final double score) {
+            this.parent = parent;
+            this.bundle = bundle;
+            this.greedy = greedy;
+            this.lastPoint = lastPoint;
+            this.bundleCount = bundleCount;
+            this.tourDistance = tourDistance;
+            this.tourDuration = tourDuration;
+            this.elements = elements;
+            this.collectedValue = collectedValue;
+            this.rankScore = score;
+            this.rankDuration = tourDuration;
+        }
+
+        /**
+         * @param preferred
+         *      Whether {@code candidate} is the preferred next bundle of this partial tour.
+         */
+        BeamNode extend(
+                final BundleCandidate candidate,
+                final boolean preferred,
+                final CostTable costTable,
+                @Nullable final TourBoundEstimator boundEstimator) {
+            final double extendedValue = collectedValue + getValue(candidate, boundEstimator);
+            return new BeamNode(
+                    this,
+                    candidate.toBundle(costTable),
+                    greedy && preferred,
+                    candidate.getLast(),
+                    bundleCount + 1,
+                    tourDistance + candidate.getDistanceToAdd(lastPoint, costTable),
+                    tourDuration + candidate.getDurationToAdd(lastPoint, costTable),
+                    candidate.elements,
+                    extendedValue,
+                    getScore(bundleCount + 1, extendedValue, boundEstimator));
+        }
+
+        /**
+         * Ranks this node as if it was extended with {@code candidate}, without creating the extension.
+         */
+        void lookAhead(
+                final BundleCandidate candidate,
+                final CostTable costTable,
+                @Nullable final TourBoundEstimator boundEstimator) {
+            rankScore = getScore(bundleCount + 1, collectedValue + getValue(candidate, boundEstimator), boundEstimator);
+            rankDuration = tourDuration + candidate.getDurationToAdd(lastPoint, costTable);
+        }
+
+        /**
+         * Sets {@code possibilities} to the points not yet used by this partial tour.
+         */
+        void restorePossibilities(final BitSet possibilities, final int pointCount) {
+            possibilities.set(0, pointCount);
+            for (BeamNode node = this; node.elements != null; node = node.parent) {
+                for (final int element : node.elements) {
+                    possibilities.clear(element);
+                }
+            }
+        }
+
+        /**
+         * @return
+         *      Tour of the bundles from the root to this node.
+         */
+        Tour getTour() {
+            if (tour == null) {
+                final List<Bundle<GeoPoint>> bundles = new ArrayList<>(bundleCount);
+                for (BeamNode node = this; node.bundle != null; node = node.parent) {
+                    bundles.add(node.bundle);
+                }
+                Collections.reverse(bundles);
+                tour = ImmutableTour.builder().bundles(bundles).build();
+            }
+            return tour;
+        }
+
+        private static double getValue(
+                final BundleCandidate candidate,
+                @Nullable final TourBoundEstimator boundEstimator) {
+            double value = 0;
+            if (boundEstimator != null) {
+                for (final int element : candidate.elements) {
+                    value += boundEstimator.getPointValue(element);
+                }
+            }
+            return value;
+        }
+
+        private static double getScore(
+                final int bundleCount,
+                final double collectedValue,
+                @Nullable final TourBoundEstimator boundEstimator) {
+            return (boundEstimator == null) ? bundleCount : boundEstimator.getScore(bundleCount, collectedValue);
+        }
     }
 
-    private static Predicate<? super GeoPoint> durationLimitFilter(
-            @Nullable Duration limit,
-            @Nullable final GeoPoint lastPoint) {
-        return (limit == null || lastPoint == null) ?
-                (geoPoint -> true) : (geoPoint -> Double.compare(getCooldown(lastPoint, geoPoint), limit.getSeconds()) <= 0);
+    /**
+     * Depth first search for the cheapest bundle from a starting point, over the points within the step radius of the
+     * last added point. Search is small since bundles are: branches are cut off as soon as they cost at least as
+     * much as the best bundle found so far (starting with the greedy one), or break the step or bundle limits.
+     *
+     * Validators can't remove elements, so the validator is brought back to the state of a prefix by resetting it and
+     * adding the prefix again, which is cheap for bundles this small.
+     */
+    private final class BundleSearch {
+
+        private final CostTable costTable;
+        @Nullable
+        private final SpatialGrid spatialGrid;
+        private final BitSet possibilities;
+        private final BundleValidator<GeoPoint, String> validator;
+        private final int[] elementCodes;
+        private final int[] elements = new int[MAX_EXACT_BUNDLE_SIZE];
+        private final double maxBundleDistance = config.maxBundleDistance().orElse(Double.MAX_VALUE);
+        private final double maxBundleDuration =
+                config.maxBundleDuration().map(Duration::getSeconds).orElse(Long.MAX_VALUE);
+
+        @Nullable
+        private BundleCandidate best;
+        private boolean exceededMaxSize = false;
+
+        private BundleSearch(
+                final CostTable costTable,
+                @Nullable final SpatialGrid spatialGrid,
+                final BitSet possibilities,
+                final BundleValidator<GeoPoint, String> validator,
+                final int[] elementCodes,
+                @Nullable final BundleCandidate initialBest) {
+            this.costTable = costTable;
+            this.spatialGrid = spatialGrid;
+            this.possibilities = possibilities;
+            this.validator = validator;
+            this.elementCodes = elementCodes;
+            this.best = initialBest;
+        }
+
+        /**
+         * Tries every way of extending the first {@code size} elements, with {@link #validator} in the state of
+         * having them added. Leaves the validator in that state when done.
+         */
+        private void extend(final int size, final double distance, final double duration, final double cost) {
+            final int last = elements[size - 1];
+            final PrimitiveIterator.OfInt candidates =
+                    getCandidates(last, stepRadius, possibilities, spatialGrid).iterator();
+            while (candidates.hasNext()) {
+                final int p = candidates.nextInt();
+                if (contains(elements, size, p) || !validator.canAddToBundle(elementCodes[p])) {
+                    continue;
+                }
+                final double nextCost = cost + costTable.getCost(last, p);
+                if ((best != null && nextCost >= best.cost)
+                        || !isWithinLimits(
+                                config.maxStepDistance().orElse(null),
+                                config.maxStepDuration().orElse(null),
+                                costTable, last, p)) {
+                    continue;
+                }
+                final double nextDistance = distance + costTable.getDistance(last, p);
+                final double nextDuration = duration + costTable.getCooldown(last, p);
+                if (Double.compare(nextDistance, maxBundleDistance) > 0 || nextDuration > maxBundleDuration) {
+                    continue;
+                }
+
+                validator.addToBundle(elementCodes[p]);
+                elements[size] = p;
+                if (validator.isComplete()) {
+                    best = new BundleCandidate(Arrays.copyOf(elements, size + 1), nextDistance, nextDuration, nextCost);
+                } else if (size + 1 < MAX_EXACT_BUNDLE_SIZE) {
+                    extend(size + 1, nextDistance, nextDuration, nextCost);
+                } else {
+                    exceededMaxSize = true;
+                }
+                restoreValidator(size);
+                if (exceededMaxSize) {
+                    return;
+                }
+            }
+        }
+
+        private void restoreValidator(final int size) {
+            validator.reset();
+            for (int i = 0; i < size; i++) {
+                validator.addToBundle(elementCodes[elements[i]]);
+            }
+        }
     }
 
-    private double costToAddBundle(@Nullable final GeoPoint fromPoint, final Bundle<? extends GeoPoint> bundle) {
-        return (fromPoint == null ? 0 : config.costFunction().apply(fromPoint, bundle.getFirst()))
-                + CooldownCalculator.calculateCost(bundle.getElements(), config.costFunction());
+    /**
+     * Bundle under consideration, expressed with {@link CostTable} indices. Only the selected ones are turned into
+     * {@link Bundle}s.
+     */
+    @RequiredArgsConstructor
+    private static final class BundleCandidate {
+
+        private final int[] elements;
+        private final double distance;
+        private final double duration;
+        private final double cost;
+
+        int getFirst() {
+            return elements[0];
+        }
+
+        int getLast() {
+            return elements[elements.length - 1];
+        }
+
+        double getDistanceToAdd(final int fromPoint, final CostTable costTable) {
+            return (fromPoint == NO_POINT ? 0 : costTable.getDistance(fromPoint, getFirst())) + distance;
+        }
+
+        double getDurationToAdd(final int fromPoint, final CostTable costTable) {
+            return (fromPoint == NO_POINT ? 0 : costTable.getCooldown(fromPoint, getFirst())) + duration;
+        }
+
+        double getCostToAdd(final int fromPoint, final CostTable costTable) {
+            return (fromPoint == NO_POINT ? 0 : costTable.getCost(fromPoint, getFirst())) + cost;
+        }
+
+        /**
+         * Appends this bundle to the {@code tourBuilder}, with the step from {@code fromPoint} taken from the
+         * {@code costTable}.
+         */
+        void appendTo(final TourBuilder tourBuilder, final int fromPoint, final CostTable costTable) {
+            if (fromPoint == NO_POINT) {
+                tourBuilder.append(toBundle(costTable), 0, 0, 0);
+            } else {
+                tourBuilder.append(
+                        toBundle(costTable),
+                        costTable.getDistance(fromPoint, getFirst()),
+                        costTable.getCooldown(fromPoint, getFirst()),
+                        costTable.getCost(fromPoint, getFirst()));
+            }
+        }
+
+        Bundle<GeoPoint> toBundle(final CostTable costTable) {
+            // Metrics accumulated while the candidate was built are carried over instead of being computed again
+            return ImmutableBundle.<GeoPoint>builder()
+                    .addAllElements(Arrays.stream(elements).mapToObj(costTable::getPoint).collect(Collectors.toList()))
+                    .distance(distance)
+                    .duration(duration)
+                    .cost(cost)
+                    .build();
+        }
     }
+
 }
@@ -6,11 +6,11 @@ import com.google.common.base.Preconditions;
 import java.text.DecimalFormat;
 import java.time.Duration;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import lombok.Getter;
@@ -26,7 +26,7 @@ import pogo.assistance.data.model.Task;
 import pogo.assistance.data.quest.QuestDictionary;
 import pogo.assistance.route.CooldownCalculator;
 import pogo.assistance.route.planning.conditional.bundle.Bundle;
-import pogo.assistance.route.planning.conditional.bundle.BundlePatternFactory;
+import pogo.assistance.route.planning.conditional.bundle.PatternKeys;
 import pogo.assistance.route.planning.conditional.bundle.Tour;
 
 @Getter
@@ -37,9 +37,11 @@ public class TourDescriber {
     public static final SplitPolicy DISCORD_MARKDOWN_SPLIT_POLICY = SplitPolicy.onChars(ZWSP, true);
 
     private static final Random RANDOM_GENERATOR = new Random();
-    private static final Map<String, String> ID_TO_COLOR_MAP = new HashMap<>();
+    private static final Map<Integer, String> ID_TO_COLOR_MAP = new ConcurrentHashMap<>();
 
-    private static final DecimalFormat NUMBER_FORMAT = new DecimalFormat("#.##");
+    // Describers may be created by concurrently running recipes, and DecimalFormat isn't thread safe
+    private static final ThreadLocal<DecimalFormat> NUMBER_FORMAT =
+            ThreadLocal.withInitial(() -> new DecimalFormat("#.##"));
 
     private final String genericSummary;
     private final String genericDescription;
@@ -151,7 +153,7 @@ public class TourDescriber {
                             if (isQuantifiable && !partitionedRewards.isEmpty()) {
                                 descriptions.add(String.format(
                                         "%s x %s",
-                                        NUMBER_FORMAT.format(partitionedRewards.stream()
+                                        NUMBER_FORMAT.get().format(partitionedRewards.stream()
                                                 .map(Reward::getQuantity)
                                                 .mapToDouble(Optional::get)
                                                 .sum()),
@@ -208,13 +210,13 @@ public class TourDescriber {
     }
 
     private static Optional<String> getColorCodeFor(final GeoPoint point) {
-        final Optional<String> mappedToId = Optional.ofNullable(BundlePatternFactory.getGenericMapper().apply(point));
-        if (!mappedToId.isPresent()) {
+        final int keyId = PatternKeys.getKeyId(point);
+        if (keyId == PatternKeys.NO_KEY) {
             return Optional.empty();
         }
 
-        return mappedToId.map(id -> ID_TO_COLOR_MAP.computeIfAbsent(
-                id,
+        return Optional.of(ID_TO_COLOR_MAP.computeIfAbsent(
+                keyId,
                 __ -> String.format("#%06x", RANDOM_GENERATOR.nextInt(0xffffff + 1))));
     }
 
@@ -0,0 +1,134 @@
+package pogo.assistance.bot.quest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import net.dv8tion.jda.core.entities.Message;
+import org.junit.jupiter.api.Test;
+import pogo.assistance.bot.quest.publishing.Publisher;
+import pogo.assistance.bot.quest.recipe.RecipeExecutor;
+import pogo.assistance.data.model.GeoPoint;
+import pogo.assistance.data.model.Map;
+import pogo.assistance.route.planning.conditional.bundle.BundlePattern;
+
+class RecipeSchedulerTest {
+
+    private final List<String> preparedRecipes = new CopyOnWriteArrayList<>();
+    private final List<String> publishedRecipes = new CopyOnWriteArrayList<>();
+
+    @Test
+    void run_LaterRecipeFinishesFirst_PublishesInGivenOrder() {
+        final FakeRecipe second = new FakeRecipe("second", () -> { });
+        final FakeRecipe first = new FakeRecipe("first", () -> {
+            // Only finishes once the second one did
+            if (!second.prepared.await(10, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Second recipe wasn't prepared concurrently");
+            }
+        });
+
+        assertTimeoutPreemptively(
+                Duration.ofSeconds(20),
+                () -> new RecipeScheduler(2).run(Arrays.asList(first, second)));
+        assertEquals(Arrays.asList("second", "first"), preparedRecipes);
+        assertEquals(Arrays.asList("first", "second"), publishedRecipes);
+    }
+
+    @Test
+    void run_OneRecipeFails_PublishesOthers() {
+        final RecipeExecutor failing = new FakeRecipe("failing", () -> {
+            throw new IllegalStateException("Recipe failed");
+        });
+
+        new RecipeScheduler(2).run(Arrays.asList(
+                new FakeRecipe("first", () -> { }),
+                failing,
+                new FakeRecipe("third", () -> { })));
+        assertEquals(Arrays.asList("first", "third"), publishedRecipes);
+    }
+
+    @Test
+    void run_NoRecipe_DoesNothing() {
+        new RecipeScheduler(1).run(Collections.emptyList());
+        assertEquals(Collections.emptyList(), publishedRecipes);
+    }
+
+    private interface Preparation {
+        void run() throws Exception;
+    }
+
+    /**
+     * Recipe that only records when it's prepared and published.
+     */
+    private class FakeRecipe extends RecipeExecutor {
+
+        private final String name;
+        private final Preparation preparation;
+        private final CountDownLatch prepared = new CountDownLatch(1);
+
+        private FakeRecipe(final String name, final Preparation preparation) {
+            this.name = name;
+            this.preparation = preparation;
+        }
+
+        @Override
+        public Queue<Message> prepareMessages() {
+            try {
+                preparation.run();
+            } catch (final RuntimeException e) {
+                throw e;
+            } catch (final Exception e) {
+                throw new RuntimeException(e);
+            }
+            preparedRecipes.add(name);
+            prepared.countDown();
+            return new LinkedList<>();
+        }
+
+        @Override
+        public void publish(final Queue<Message> messages) {
+            publishedRecipes.add(name);
+        }
+
+        @Override
+        protected List<? extends GeoPoint> supplyPoints() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        protected Map getMap() {
+            return Map.NYC;
+        }
+
+        @Override
+        protected String getRecipeDescription() {
+            return name;
+        }
+
+        @Override
+        protected Publisher getPublisher() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        protected Set<String> getPatternElements() {
+            return Collections.emptySet();
+        }
+
+        @Override
+        protected List<BundlePattern<GeoPoint, String>> getBundlePatterns() {
+            return Collections.emptyList();
+        }
+
+    }
+
+}
@@ -0,0 +1,50 @@
+package pogo.assistance.data.extraction.source;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.google.api.client.http.HttpHeaders;
+import com.google.api.client.http.HttpResponseException;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+
+class PageCacheTest {
+
+    private static final HttpResponseException NOT_MODIFIED =
+            new HttpResponseException.Builder(304, "Not Modified", new HttpHeaders()).build();
+
+    @Test
+    void parse_SamePayload_ReturnsPreviousValue() {
+        final PageCache<Object> pageCache = new PageCache<>();
+        final Object value = pageCache.parse("http://host/a", new HttpHeaders(), "payload", payload -> new Object());
+
+        assertSame(value, pageCache.parse("http://host/a", new HttpHeaders(), "payload", payload -> new Object()));
+    }
+
+    @Test
+    void getIfNotModified_ResponseSeenBefore_ReturnsItsValue() {
+        final PageCache<String> pageCache = new PageCache<>();
+        pageCache.put("http://host/a", new HttpHeaders().setETag("\"v1\""), "value");
+
+        final HttpHeaders requestHeaders = new HttpHeaders();
+        pageCache.addConditionalHeaders("http://host/a", requestHeaders);
+        assertEquals("\"v1\"", requestHeaders.getIfNoneMatch());
+        assertEquals(Optional.of("value"), pageCache.getIfNotModified("http://host/a", NOT_MODIFIED));
+        assertEquals(Optional.empty(), pageCache.getIfNotModified("http://host/b", NOT_MODIFIED));
+    }
+
+    @Test
+    void put_NewUrlOfSamePage_ReplacesPreviousResponse() {
+        final PageCache<String> pageCache = new PageCache<>(url -> url.substring(0, url.indexOf('?')));
+        pageCache.put("http://host/a?filter=1", new HttpHeaders().setETag("\"v1\""), "first");
+        pageCache.put("http://host/a?filter=2", new HttpHeaders(), "second");
+
+        final HttpHeaders requestHeaders = new HttpHeaders();
+        pageCache.addConditionalHeaders("http://host/a?filter=1", requestHeaders);
+        assertNull(requestHeaders.getIfNoneMatch());
+        assertEquals(Optional.empty(), pageCache.getLast("http://host/a?filter=1"));
+        assertEquals(Optional.of("second"), pageCache.getLast("http://host/a?filter=2"));
+    }
+
+}
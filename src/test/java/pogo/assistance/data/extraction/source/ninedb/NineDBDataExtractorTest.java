@@ -2,11 +2,28 @@ package pogo.assistance.data.extraction.source.ninedb;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import pogo.assistance.data.model.Quest;
@@ -47,6 +64,158 @@ class NineDBDataExtractorTest {
                 () -> NineDBDataExtractor.jsonDataToQuest(new JsonParser().parse("{}").getAsJsonObject()));
     }
 
+    @Test
+    void getQuests_LocalServerWithFailingPrefectures_ReturnsQuestsOfOthersInOrder() throws IOException {
+        final String questJson = "{\"data_id\": \"2006\", \"num1\": \"1000\", \"lat\": \"%s\", \"lng\": \"139.7\","
+                + " \"task_name\": \"Make 3 Great Throws in a row\"}";
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        final HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        final ExecutorService serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.createContext("/", exchange -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(50);
+                final String page = exchange.getRequestURI().getPath().substring(1);
+                final int status;
+                final String body;
+                if (page.equals("missing")) {
+                    status = 404;
+                    body = "";
+                } else if (page.equals("malformed")) {
+                    status = 200;
+                    body = "<html>no data here</html>";
+                } else if (page.equals("empty")) {
+                    status = 200;
+                    body = "<script>var result = null;</script>";
+                } else {
+                    status = 200;
+                    body = "<script>var result = [" + String.format(questJson, page) + ", "
+                            + String.format(questJson, page + "1") + "];</script>";
+                }
+                final byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(status, (bytes.length == 0) ? -1 : bytes.length);
+                try (final OutputStream responseBody = exchange.getResponseBody()) {
+                    responseBody.write(bytes);
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        });
+        server.start();
+        try {
+            final String baseUrl = "http://localhost:" + server.getAddress().getPort() + "/";
+            final Map<String, String> prefectureToUrl = new LinkedHashMap<>();
+            prefectureToUrl.put("A", baseUrl + "35.1");
+            prefectureToUrl.put("Missing", baseUrl + "missing");
+            prefectureToUrl.put("B", baseUrl + "35.2");
+            prefectureToUrl.put("Malformed", baseUrl + "malformed");
+            prefectureToUrl.put("Empty", baseUrl + "empty");
+            prefectureToUrl.put("C", baseUrl + "35.3");
+            final List<Quest> quests = new NineDBDataExtractor(prefectureToUrl, 2, 1000).getQuests();
+
+            assertEquals(
+                    Arrays.asList(35.1, 35.11, 35.2, 35.21, 35.3, 35.31),
+                    quests.stream().map(Quest::getLatitude).collect(Collectors.toList()));
+            assertTrue(quests.stream().allMatch(quest -> quest.getAbbreviation().equals(Optional.of("3G10"))));
+            assertTrue(maxInFlight.get() <= 2, "Too many concurrent requests: " + maxInFlight.get());
+        } finally {
+            server.stop(0);
+            serverExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    void getQuests_Refetch_ReusesQuestsOfUnchangedPages() throws IOException {
+        final String page = "<script>var result = [{\"data_id\": \"2006\", \"num1\": \"1000\", \"lat\": \"35.1\","
+                + " \"lng\": \"139.7\", \"task_name\": \"Make 3 Great Throws in a row\"}];</script>";
+        final AtomicInteger notModifiedCount = new AtomicInteger();
+        final HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            final boolean supportsETag = exchange.getRequestURI().getPath().equals("/etag");
+            final byte[] bytes = page.getBytes(StandardCharsets.UTF_8);
+            if (supportsETag && "\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModifiedCount.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+            } else {
+                if (supportsETag) {
+                    exchange.getResponseHeaders().set("ETag", "\"v1\"");
+                }
+                exchange.sendResponseHeaders(200, bytes.length);
+                try (final OutputStream responseBody = exchange.getResponseBody()) {
+                    responseBody.write(bytes);
+                }
+            }
+            exchange.close();
+        });
+        server.start();
+        try {
+            final String baseUrl = "http://localhost:" + server.getAddress().getPort() + "/";
+            final Map<String, String> prefectureToUrl = new LinkedHashMap<>();
+            prefectureToUrl.put("ETag", baseUrl + "etag");
+            prefectureToUrl.put("No ETag", baseUrl + "no-etag");
+            final NineDBDataExtractor extractor = new NineDBDataExtractor(prefectureToUrl, 1, 1000);
+            final List<Quest> firstQuests = extractor.getQuests();
+            final List<Quest> secondQuests = extractor.getQuests();
+
+            assertEquals(2, firstQuests.size());
+            assertEquals(1, notModifiedCount.get());
+            // Same instances, since neither page was parsed again
+            assertSame(firstQuests.get(0), secondQuests.get(0));
+            assertSame(firstQuests.get(1), secondQuests.get(1));
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void getQuests_PrefectureFailsAfterFetched_ReturnsItsStaleQuests() throws IOException {
+        final String page = "<script>var result = [{\"data_id\": \"2006\", \"num1\": \"1000\", \"lat\": \"%s\","
+                + " \"lng\": \"139.7\", \"task_name\": \"Make 3 Great Throws in a row\"}];</script>";
+        final AtomicBoolean failing = new AtomicBoolean();
+        final HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            final String path = exchange.getRequestURI().getPath().substring(1);
+            if (failing.get() && !path.equals("35.2")) {
+                exchange.sendResponseHeaders(404, -1);
+            } else {
+                final byte[] bytes = String.format(page, path).getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(200, bytes.length);
+                try (final OutputStream responseBody = exchange.getResponseBody()) {
+                    responseBody.write(bytes);
+                }
+            }
+            exchange.close();
+        });
+        server.start();
+        try {
+            final String baseUrl = "http://localhost:" + server.getAddress().getPort() + "/";
+            final Map<String, String> prefectureToUrl = new LinkedHashMap<>();
+            prefectureToUrl.put("A", baseUrl + "35.1");
+            prefectureToUrl.put("B", baseUrl + "35.2");
+            final NineDBDataExtractor extractor = new NineDBDataExtractor(prefectureToUrl, 1, 1000);
+            final List<Quest> firstQuests = extractor.getQuests();
+            failing.set(true);
+            final List<Quest> secondQuests = extractor.getQuests();
+
+            assertEquals(
+                    Arrays.asList(35.1, 35.2),
+                    secondQuests.stream().map(Quest::getLatitude).collect(Collectors.toList()));
+            assertSame(firstQuests.get(0), secondQuests.get(0));
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void getQuests_EveryPrefectureFails_Throws() {
+        final Map<String, String> prefectureToUrl = Collections.singletonMap("A", "http://localhost:1/unreachable");
+        assertThrows(RuntimeException.class, () -> new NineDBDataExtractor(prefectureToUrl, 1, 1000).getQuests());
+    }
+
     @Disabled("This test makes real service calls. Enable if you want to test the real fetching mechanism.")
     @Test
     void getQuests_RealRequest_NoVerification() {
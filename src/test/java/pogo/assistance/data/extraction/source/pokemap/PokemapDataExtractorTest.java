@@ -1,11 +1,15 @@
 package pogo.assistance.data.extraction.source.pokemap;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import com.google.gson.JsonParseException;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.List;
+import java.util.Optional;
 import org.junit.jupiter.api.Test;
 import pogo.assistance.data.model.Quest;
 import pogo.assistance.util.FileIOUtils;
@@ -39,4 +43,33 @@ class PokemapDataExtractorTest {
         assertEquals(16557, quests.size());
     }
 
+    @Test
+    void parseQuestsFromQuestData_StreamWithUnknownFields_ReturnsQuestsInOrder() throws IOException {
+        final String questDataJson = "{\"meta\": {\"time\": 1545000000, \"tags\": [\"a\", {\"b\": null}]},"
+                + " \"quests\": ["
+                + "{\"quest_id\": 1, \"lat\": 40.75, \"lng\": -73.98, \"conditions_string\": \"Make 3 Great Throws in a row\","
+                + " \"rewards_string\": \"1000 Stardust\", \"extra\": {\"nested\": [1, 2]}},"
+                + "{\"rewards_string\": \"1 Rare Candy\", \"conditions_string\": \"Hatch an Egg\", \"lng\": \"-73.5\", \"lat\": 40.5}"
+                + "], \"trailing\": true}";
+        final List<Quest> quests = PokemapDataExtractor.parseQuestsFromQuestData(
+                new ByteArrayInputStream(questDataJson.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(2, quests.size());
+        assertEquals(40.75, quests.get(0).getLatitude());
+        assertEquals(-73.98, quests.get(0).getLongitude());
+        assertEquals("Make 3 Great Throws in a row", quests.get(0).getAction().getDescription());
+        assertEquals("1000 Stardust", quests.get(0).getReward().getDescription());
+        assertEquals(Optional.of("3G10"), quests.get(0).getAbbreviation());
+        assertEquals(40.5, quests.get(1).getLatitude());
+        assertEquals(-73.5, quests.get(1).getLongitude());
+        assertEquals("Hatch an Egg", quests.get(1).getAction().getDescription());
+        assertEquals(Optional.empty(), quests.get(1).getAbbreviation());
+    }
+
+    @Test
+    void parseQuestsFromQuestData_QuestMissingField_Throws() {
+        assertThrows(JsonParseException.class, () -> PokemapDataExtractor.parseQuestsFromQuestData(
+                "{\"quests\": [{\"lat\": 1.0, \"lng\": 2.0, \"conditions_string\": \"Hatch an Egg\"}]}"));
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,149 @@
+package pogo.assistance.data.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import pogo.assistance.data.di.PersistenceModule;
+import pogo.assistance.data.model.ImmutableAction;
+import pogo.assistance.data.model.ImmutableQuest;
+import pogo.assistance.data.model.ImmutableReward;
+import pogo.assistance.data.model.Map;
+import pogo.assistance.data.model.Quest;
+
+class QuestRWUtilsTest {
+
+    private static final Instant START = Instant.parse("2018-12-20T10:15:30Z");
+
+    private Path rootDirectory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        rootDirectory = Files.createTempDirectory("quest-rw-utils-test");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (final Stream<Path> paths = Files.walk(rootDirectory)) {
+            for (final Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Test
+    void writeQuests_SeveralTimes_KeepsLatestFilesAndPointsToNewest() throws IOException {
+        for (int minute = 0; minute < 5; minute++) {
+            createQuestRWUtils(minute).writeQuests(Collections.singletonList(quest(minute)), Map.NYC);
+        }
+        final QuestRWUtils questRWUtils = createQuestRWUtils(10);
+
+        assertEquals(Collections.singletonList(quest(4)), questRWUtils.getLatestQuests(Map.NYC));
+        assertEquals(Optional.of(Date.from(START.plusSeconds(4 * 60))), questRWUtils.getLatestDataFetchTime(Map.NYC));
+        final List<String> fileNames = listFileNames(Map.NYC);
+        assertEquals(4, fileNames.size()); // Latest 3 snapshots, and the pointer
+        assertTrue(fileNames.contains("latest"));
+        assertFalse(fileNames.stream().anyMatch(fileName -> fileName.endsWith(".tmp")));
+    }
+
+    @Test
+    void getLatestQuests_NoPointer_FindsLatestFileAndRestoresPointer() throws IOException {
+        createQuestRWUtils(0).writeQuests(Collections.singletonList(quest(0)), Map.SG);
+        createQuestRWUtils(1).writeQuests(Collections.singletonList(quest(1)), Map.SG);
+        final Path pointerPath = rootDirectory.resolve(Map.SG.toString()).resolve("latest");
+        Files.delete(pointerPath);
+
+        assertEquals(Collections.singletonList(quest(1)), createQuestRWUtils(2).getLatestQuests(Map.SG));
+        assertTrue(Files.exists(pointerPath));
+    }
+
+    @Test
+    void getLatestQuests_PointerToMissingFile_FallsBackToLatestFile() throws IOException {
+        createQuestRWUtils(0).writeQuests(Collections.singletonList(quest(0)), Map.JP);
+        Files.write(
+                rootDirectory.resolve(Map.JP.toString()).resolve("latest"),
+                "quests-2018-12-20 11-00-00.snapshot".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(Collections.singletonList(quest(0)), createQuestRWUtils(1).getLatestQuests(Map.JP));
+    }
+
+    @Test
+    void getLatestQuests_PointerCannotBeWritten_StillFindsLatestFile() throws IOException {
+        createQuestRWUtils(0).writeQuests(Collections.singletonList(quest(0)), Map.SG);
+        final Path pointerPath = rootDirectory.resolve(Map.SG.toString()).resolve("latest");
+        // Neither readable as a pointer, nor replaceable by one
+        Files.delete(pointerPath);
+        Files.createDirectory(pointerPath);
+        Files.createFile(pointerPath.resolve("blocker"));
+
+        assertEquals(Collections.singletonList(quest(0)), createQuestRWUtils(1).getLatestQuests(Map.SG));
+        assertTrue(Files.isDirectory(pointerPath));
+    }
+
+    @Test
+    void writeQuests_TempFileLeftBehind_DeletesIt() throws IOException {
+        createQuestRWUtils(0).writeQuests(Collections.singletonList(quest(0)), Map.NYC);
+        final Path tempPath = rootDirectory.resolve(Map.NYC.toString()).resolve(".123.tmp");
+        Files.write(tempPath, new byte[] {1, 2, 3});
+        createQuestRWUtils(1).writeQuests(Collections.singletonList(quest(1)), Map.NYC);
+
+        assertFalse(Files.exists(tempPath));
+    }
+
+    @Test
+    void getLatestQuests_NothingWritten_ReturnsEmpty() {
+        final QuestRWUtils questRWUtils = createQuestRWUtils(0);
+        assertTrue(questRWUtils.getLatestQuests(Map.NYC).isEmpty());
+        assertFalse(questRWUtils.getLatestDataFetchTime(Map.NYC).isPresent());
+        assertEquals(Optional.empty(), questRWUtils.getLatestQuests(Map.NYC, Collections.singleton("3G10")));
+    }
+
+    @Test
+    void getLatestQuests_NoneSelected_ReturnsEmptySelection() {
+        createQuestRWUtils(0).writeQuests(Collections.singletonList(quest(0)), Map.NYC);
+
+        assertEquals(
+                Optional.of(Collections.emptyList()),
+                createQuestRWUtils(1).getLatestQuests(Map.NYC, Collections.singleton("Unknown")));
+    }
+
+    private QuestRWUtils createQuestRWUtils(final int minutesSinceStart) {
+        return new QuestRWUtils(
+                PersistenceModule.provideGson(),
+                rootDirectory,
+                Clock.fixed(START.plusSeconds(minutesSinceStart * 60L), ZoneOffset.UTC));
+    }
+
+    private List<String> listFileNames(final Map map) throws IOException {
+        try (final Stream<Path> paths = Files.list(rootDirectory.resolve(map.toString()))) {
+            return paths.map(path -> path.getFileName().toString()).collect(Collectors.toList());
+        }
+    }
+
+    private static Quest quest(final int index) {
+        return ImmutableQuest.builder()
+                .latitude(40.7 + index / 100.0)
+                .longitude(-74.0)
+                .action(ImmutableAction.builder().description("Hatch an Egg").build())
+                .reward(ImmutableReward.builder().description("1 Rare Candy").build())
+                .build();
+    }
+
+}
@@ -0,0 +1,115 @@
+package pogo.assistance.data.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import pogo.assistance.data.model.ImmutableAction;
+import pogo.assistance.data.model.ImmutableQuest;
+import pogo.assistance.data.model.ImmutableReward;
+import pogo.assistance.data.model.Quest;
+
+class QuestSnapshotCodecTest {
+
+    private Path path;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        path = Files.createTempFile("quests-", ".snapshot");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(path);
+    }
+
+    @Test
+    void writeThenRead_HappyCase_ReturnsSameQuests() throws IOException {
+        final List<Quest> quests = Arrays.asList(
+                quest(35.6895, 139.6917, "Make 3 Great Throws in a row", "1000 Stardust", Optional.of("3G10")),
+                quest(-33.8688, 151.2093, "Hatch an Egg", "1 Rare Candy", Optional.empty()),
+                quest(40.7128, -74.006, "Make 3 Great Throws in a row", "1000 Stardust", Optional.of("3G10")),
+                quest(1.3521, 103.8198, "タマゴを孵化させる", "Hatch an Egg", Optional.empty()));
+        QuestSnapshotCodec.write(quests, path);
+        final List<Quest> readQuests = QuestSnapshotCodec.read(path);
+
+        assertEquals(quests, readQuests);
+        assertSame(readQuests.get(0).getAction(), readQuests.get(2).getAction());
+    }
+
+    @Test
+    void writeThenRead_NoQuests_ReturnsEmpty() throws IOException {
+        QuestSnapshotCodec.write(Collections.emptyList(), path);
+        assertTrue(QuestSnapshotCodec.read(path).isEmpty());
+    }
+
+    @Test
+    void mapThenSelect_SomeAbbreviations_ReturnsMatchingQuestsInOrder() throws IOException {
+        final Quest tokyo = quest(35.6895, 139.6917, "Make 3 Great Throws in a row", "1000 Stardust", Optional.of("3G10"));
+        final Quest sydney = quest(-33.8688, 151.2093, "Hatch an Egg", "1 Rare Candy", Optional.empty());
+        final Quest newYork = quest(40.7128, -74.006, "Win a raid", "1 Rare Candy", Optional.of("RAID"));
+        final Quest singapore = quest(1.3521, 103.8198, "Make 3 Great Throws in a row", "1000 Stardust", Optional.of("3G10"));
+        QuestSnapshotCodec.write(Arrays.asList(tokyo, sydney, newYork, singapore), path);
+        final QuestSnapshot snapshot = QuestSnapshotCodec.map(path);
+
+        assertEquals(4, snapshot.size());
+        final List<Quest> selected = snapshot.select(Arrays.asList("3G10", "DRT"));
+        assertEquals(2, selected.size());
+        assertEquals(tokyo.getLatitude(), selected.get(0).getLatitude());
+        assertEquals(tokyo.getLongitude(), selected.get(0).getLongitude());
+        assertEquals(tokyo.getAction(), selected.get(0).getAction());
+        assertEquals(tokyo.getReward(), selected.get(0).getReward());
+        assertEquals(tokyo.getAbbreviation(), selected.get(0).getAbbreviation());
+        // Equal both ways, so selected quests can be mixed with others in sets
+        assertEquals(selected.get(0), tokyo);
+        assertEquals(tokyo, selected.get(0));
+        assertEquals(singapore, selected.get(1));
+        assertEquals(singapore.hashCode(), selected.get(1).hashCode());
+        // Abbreviations not in the snapshot, or only appearing as other strings (e.g. a reward), select nothing
+        assertTrue(snapshot.select(Arrays.asList("DRT", "1 Rare Candy")).isEmpty());
+    }
+
+    @Test
+    void read_NotASnapshot_Throws() throws IOException {
+        Files.write(path, "[{\"latitude\": 1.0}]".getBytes(StandardCharsets.UTF_8));
+        assertThrows(IOException.class, () -> QuestSnapshotCodec.read(path));
+    }
+
+    @Test
+    void read_Truncated_Throws() throws IOException {
+        QuestSnapshotCodec.write(
+                Collections.singletonList(quest(35.6895, 139.6917, "Hatch an Egg", "1 Rare Candy", Optional.empty())),
+                path);
+        final byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 1));
+        assertThrows(IOException.class, () -> QuestSnapshotCodec.read(path));
+    }
+
+    private static Quest quest(
+            final double latitude,
+            final double longitude,
+            final String action,
+            final String reward,
+            final Optional<String> abbreviation) {
+        return ImmutableQuest.builder()
+                .latitude(latitude)
+                .longitude(longitude)
+                .action(ImmutableAction.builder().description(action).build())
+                .reward(ImmutableReward.builder().description(reward).build())
+                .abbreviation(abbreviation)
+                .build();
+    }
+
+}
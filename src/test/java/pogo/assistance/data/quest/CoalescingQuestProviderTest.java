@@ -0,0 +1,176 @@
+package pogo.assistance.data.quest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nonnull;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import pogo.assistance.data.model.ImmutableAction;
+import pogo.assistance.data.model.ImmutableQuest;
+import pogo.assistance.data.model.ImmutableReward;
+import pogo.assistance.data.model.Map;
+import pogo.assistance.data.model.Quest;
+
+class CoalescingQuestProviderTest {
+
+    private static final Quest RARE_CANDY = quest("Hatch an Egg", "1 Rare Candy", Optional.of("RC"));
+    private static final Quest STARDUST = quest("Win a raid", "1000 Stardust", Optional.of("1000SD"));
+
+    private final CountDownLatch fetchStarted = new CountDownLatch(1);
+    private final CountDownLatch releaseFetch = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        releaseFetch.countDown();
+    }
+
+    @Test
+    void getQuests_ConcurrentCallersForSameMap_ShareOneFetch() throws Exception {
+        final BlockingQuestProvider backingQuestProvider = new BlockingQuestProvider();
+        final CoalescingQuestProvider questProvider = new CoalescingQuestProvider(backingQuestProvider);
+
+        final Caller first = new Caller(() -> questProvider.getQuests(Map.NYC));
+        assertTrue(fetchStarted.await(10, TimeUnit.SECONDS));
+        final Caller second = new Caller(() -> questProvider.getQuests(Map.NYC));
+        final Caller secondWithAbbreviations =
+                new Caller(() -> questProvider.getQuests(Map.NYC, Collections.singleton("RC")));
+        // Fetch in flight only completes once released, so wait for the later callers to block on it first
+        second.awaitWaiting();
+        secondWithAbbreviations.awaitWaiting();
+        releaseFetch.countDown();
+
+        assertEquals(Arrays.asList(RARE_CANDY, STARDUST), first.get());
+        assertSame(first.get(), second.get());
+        assertEquals(Collections.singletonList(RARE_CANDY), secondWithAbbreviations.get());
+        assertEquals(1, backingQuestProvider.fetchCount.get());
+    }
+
+    @Test
+    void getQuests_CallAfterFetchCompleted_FetchesAgain() {
+        final BlockingQuestProvider backingQuestProvider = new BlockingQuestProvider();
+        releaseFetch.countDown();
+        final CoalescingQuestProvider questProvider = new CoalescingQuestProvider(backingQuestProvider);
+
+        questProvider.getQuests(Map.NYC);
+        questProvider.getQuests(Map.NYC);
+        questProvider.getQuests(Map.SG);
+        assertEquals(3, backingQuestProvider.fetchCount.get());
+    }
+
+    @Test
+    void getQuests_FetchFails_RethrowsAndFetchesAgainNextTime() {
+        final AtomicInteger fetchCount = new AtomicInteger();
+        final CoalescingQuestProvider questProvider = new CoalescingQuestProvider(map -> {
+            if (fetchCount.incrementAndGet() == 1) {
+                throw new IllegalStateException("Source unavailable");
+            }
+            return Collections.singletonList(RARE_CANDY);
+        });
+
+        assertThrows(IllegalStateException.class, () -> questProvider.getQuests(Map.NYC));
+        assertEquals(Collections.singletonList(RARE_CANDY), questProvider.getQuests(Map.NYC));
+    }
+
+    @Test
+    void getQuestsWithAbbreviations_StoredQuests_DoesNotFetch() {
+        final BlockingQuestProvider backingQuestProvider = new BlockingQuestProvider() {
+            @Nonnull
+            @Override
+            public Optional<List<Quest>> getStoredQuests(
+                    @Nonnull final Map map,
+                    @Nonnull final Collection<String> abbreviations) {
+                return Optional.of(Collections.singletonList(STARDUST));
+            }
+        };
+        final CoalescingQuestProvider questProvider = new CoalescingQuestProvider(backingQuestProvider);
+
+        assertEquals(
+                Collections.singletonList(STARDUST),
+                questProvider.getQuests(Map.NYC, Collections.singleton("1000SD")));
+        assertEquals(0, backingQuestProvider.fetchCount.get());
+    }
+
+    private static Quest quest(final String action, final String reward, final Optional<String> abbreviation) {
+        return ImmutableQuest.builder()
+                .latitude(40.7128)
+                .longitude(-74.006)
+                .action(ImmutableAction.builder().description(action).build())
+                .reward(ImmutableReward.builder().description(reward).build())
+                .abbreviation(abbreviation)
+                .build();
+    }
+
+    /**
+     * Call made on a thread of its own.
+     */
+    private static class Caller {
+
+        private final FutureTask<List<Quest>> task;
+        private final Thread thread;
+
+        private Caller(final Callable<List<Quest>> call) {
+            task = new FutureTask<>(call);
+            thread = new Thread(task);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        /**
+         * Waits until the caller waits without timeout, i.e. on a fetch in flight. A caller that started a fetch of its
+         * own would wait on {@link #releaseFetch} with a timeout instead.
+         */
+        private void awaitWaiting() throws InterruptedException {
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (thread.getState() != Thread.State.WAITING) {
+                assertTrue(System.nanoTime() < deadline, "Caller didn't wait for the fetch in flight");
+                assertFalse(task.isDone(), "Caller completed before the fetch in flight was released");
+                Thread.sleep(1);
+            }
+        }
+
+        private List<Quest> get() throws Exception {
+            return task.get(10, TimeUnit.SECONDS);
+        }
+
+    }
+
+    /**
+     * Counts its fetches, each of which only completes once {@link #releaseFetch} is released.
+     */
+    private class BlockingQuestProvider implements QuestProvider {
+
+        private final AtomicInteger fetchCount = new AtomicInteger();
+
+        @Nonnull
+        @Override
+        public List<Quest> getQuests(@Nonnull final Map map) {
+            fetchCount.incrementAndGet();
+            fetchStarted.countDown();
+            try {
+                if (!releaseFetch.await(10, TimeUnit.SECONDS)) {
+                    throw new IllegalStateException("Fetch wasn't released");
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+            return Arrays.asList(RARE_CANDY, STARDUST);
+        }
+
+    }
+
+}
@@ -0,0 +1,51 @@
+package pogo.assistance.data.quest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+import pogo.assistance.data.model.ImmutableAction;
+import pogo.assistance.data.model.ImmutableQuest;
+import pogo.assistance.data.model.ImmutableReward;
+import pogo.assistance.data.model.Quest;
+
+class QuestDiffTest {
+
+    @Test
+    void between_SameQuestsInDifferentOrder_ReturnsEmpty() {
+        final Quest a = quest(35.1, 139.1, "1000 Stardust");
+        final Quest b = quest(35.2, 139.2, "Razz Berry");
+        final QuestDiff diff = QuestDiff.between(Arrays.asList(a, b), Arrays.asList(b, a));
+        assertTrue(diff.isEmpty());
+    }
+
+    @Test
+    void between_QuestsAddedRemovedAndChanged_ReturnsThemByLocation() {
+        final Quest unchanged = quest(35.1, 139.1, "1000 Stardust");
+        final Quest removed = quest(35.2, 139.2, "Razz Berry");
+        final Quest changedBefore = quest(35.3, 139.3, "Potion");
+        final Quest changedAfter = quest(35.3, 139.3, "Revive");
+        final Quest added = quest(35.4, 139.4, "Great Ball");
+        final QuestDiff diff = QuestDiff.between(
+                Arrays.asList(unchanged, removed, changedBefore),
+                Arrays.asList(added, changedAfter, unchanged));
+
+        assertFalse(diff.isEmpty());
+        assertEquals(Collections.singletonList(added), diff.getAdded());
+        assertEquals(Collections.singletonList(removed), diff.getRemoved());
+        assertEquals(Collections.singletonList(changedAfter), diff.getChanged());
+    }
+
+    private static Quest quest(final double latitude, final double longitude, final String reward) {
+        return ImmutableQuest.builder()
+                .latitude(latitude)
+                .longitude(longitude)
+                .action(ImmutableAction.builder().description("Catch 10 Pokemon").build())
+                .reward(ImmutableReward.builder().description(reward).build())
+                .build();
+    }
+
+}
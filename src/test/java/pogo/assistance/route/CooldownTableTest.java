@@ -0,0 +1,96 @@
+package pogo.assistance.route;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.Duration;
+import java.util.Map.Entry;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import org.junit.jupiter.api.Test;
+
+class CooldownTableTest {
+
+    /**
+     * Distance (KM) to cool down (minutes) table that used to be hard coded, which the default table has to match.
+     */
+    private static final double[][] HARD_CODED_TABLE = {
+            {0.5, 0}, {1, 0.1}, {2, 1.5}, {3, 2.5}, {4, 3}, {5.5, 4}, {6, 4.5}, {7, 5}, {10, 6}, {11, 7}, {12.7, 8},
+            {15, 9}, {18, 10}, {20.5, 11}, {22, 13}, {24, 14}, {26, 15}, {28, 16}, {30.5, 17}, {40, 18}, {42, 19},
+            {53, 21}, {73, 22}, {78, 23}, {88.5, 24}, {93, 26}, {105, 27}, {113, 28}, {133, 31}, {499, 62}, {549, 66},
+            {599, 70}, {649, 74}, {699, 77}, {750, 82}, {801, 84}, {838, 88}, {898, 90}, {899, 91}, {947, 95},
+            {1006, 98}, {1019, 102}, {1099, 104}, {1179, 109}, {1199, 111}, {1220, 113}, {1299, 117}, {1343, 119},
+            {1500, 120}};
+
+    @Test
+    void getCooldownSeconds_DefaultTable_MatchesHardCodedTable() {
+        final NavigableMap<Double, Double> expected = new TreeMap<>();
+        for (final double[] row : HARD_CODED_TABLE) {
+            expected.put(row[0], row[1] * 60);
+        }
+        final CooldownTable table = CooldownTable.getDefault();
+
+        for (final double[] row : HARD_CODED_TABLE) {
+            for (final double distance : new double[] {row[0], Math.nextDown(row[0]), Math.nextUp(row[0])}) {
+                assertEquals(
+                        getCooldownSeconds(expected, distance), table.getCooldownSeconds(distance), distance + " KM");
+            }
+        }
+        for (double distance = 0; distance < 2000; distance += 0.25) {
+            assertEquals(getCooldownSeconds(expected, distance), table.getCooldownSeconds(distance), distance + " KM");
+        }
+        assertEquals(7200, table.getCooldownSeconds(Double.MAX_VALUE));
+        assertEquals(7200, table.getCooldownSeconds(Double.NaN));
+    }
+
+    @Test
+    void read_CommentsAndBlankLines_IgnoresThem() throws IOException {
+        final CooldownTable table = CooldownTable.read(new StringReader(
+                "// Comment\n\n  1, 0.5 \n// 1.5, 1\n2,1\n"));
+
+        assertEquals(30, table.getCooldownSeconds(0.2));
+        assertEquals(30, table.getCooldownSeconds(1));
+        assertEquals(60, table.getCooldownSeconds(1.5));
+        assertEquals(60, table.getCooldownSeconds(100));
+    }
+
+    @Test
+    void read_InvalidTables_Throws() {
+        for (final String invalid : new String[] {
+                "", "// Only a comment", "1, 2, 3", "1", "one, 2", "1, 1\n1, 2", "2, 1\n1, 2", "1, 2\n2, 1", "1, -1"}) {
+            assertThrows(IllegalArgumentException.class, () -> CooldownTable.read(new StringReader(invalid)), invalid);
+        }
+    }
+
+    @Test
+    void getMaxDistanceWithin_DefaultTable_IsLongestDistanceWithinCooldown() {
+        final CooldownTable table = CooldownTable.getDefault();
+        for (long seconds = 0; seconds <= 7200; seconds += 6) {
+            final double maxDistance = table.getMaxDistanceWithin(Duration.ofSeconds(seconds));
+            if (seconds >= 7200) {
+                assertEquals(Double.MAX_VALUE, maxDistance);
+                continue;
+            }
+            assertTrue(table.getCooldownSeconds(maxDistance) <= seconds, seconds + " seconds");
+            assertTrue(table.getCooldownSeconds(Math.nextUp(maxDistance)) > seconds, seconds + " seconds");
+        }
+    }
+
+    @Test
+    void getMaxDistanceWithin_WithinFirstCooldownOnly_ReturnsFirstDistance() {
+        final CooldownTable table = CooldownTable.of(new double[] {1, 2}, new double[] {60, 120});
+        assertEquals(0, table.getMaxDistanceWithin(Duration.ofSeconds(59)));
+        assertEquals(1, table.getMaxDistanceWithin(Duration.ofSeconds(60)));
+        assertEquals(1, table.getMaxDistanceWithin(Duration.ofSeconds(119)));
+        assertEquals(Double.MAX_VALUE, table.getMaxDistanceWithin(Duration.ofSeconds(120)));
+    }
+
+    private static double getCooldownSeconds(final NavigableMap<Double, Double> table, final double distance) {
+        final Entry<Double, Double> entry = table.ceilingEntry(distance);
+        return (entry == null) ? table.lastEntry().getValue() : entry.getValue();
+    }
+
+}
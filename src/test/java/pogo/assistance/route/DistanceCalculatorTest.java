@@ -0,0 +1,123 @@
+package pogo.assistance.route;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import org.junit.jupiter.api.Test;
+import pogo.assistance.data.model.GeoPoint;
+import pogo.assistance.data.model.ImmutableGeoPoint;
+
+class DistanceCalculatorTest {
+
+    private static final GeoPoint TOKYO = point(35.6895, 139.6917);
+
+    @Test
+    void getDistance_CooldownTableBoundaries_MatchesSphericalLawOfCosines() {
+        final CooldownTable table = CooldownTable.getDefault();
+        final TreeSet<Double> boundaries = new TreeSet<>();
+        for (int minutes = 0; minutes <= 120; minutes++) {
+            boundaries.add(table.getMaxDistanceWithin(Duration.ofMinutes(minutes)));
+        }
+        // Any distance is within the longest cool down
+        boundaries.remove(Double.MAX_VALUE);
+
+        for (final double boundary : boundaries) {
+            // Just within and past the boundary, where a different distance would mean a different cool down
+            for (final double distance : new double[] {boundary - 0.01, boundary + 0.01}) {
+                for (int bearing = 0; bearing < 360; bearing += 45) {
+                    final GeoPoint destination = getDestination(TOKYO, distance, bearing);
+                    final double haversine = DistanceCalculator.getDistance(TOKYO, destination);
+                    final double lawOfCosines = getDistanceWithLawOfCosines(TOKYO, destination);
+
+                    final String message = String.format("%s KM at %d degrees", distance, bearing);
+                    assertEquals(distance, haversine, 1e-6, message);
+                    assertEquals(lawOfCosines, haversine, 1e-3, message);
+                    assertEquals(
+                            table.getCooldownSeconds(lawOfCosines), table.getCooldownSeconds(haversine), message);
+                }
+            }
+        }
+    }
+
+    @Test
+    void getDistance_SamePoint_ReturnsZero() {
+        assertEquals(0, DistanceCalculator.getDistance(TOKYO, point(TOKYO.getLatitude(), TOKYO.getLongitude())));
+    }
+
+    @Test
+    void getDistances_RandomPoints_SameAsPerPairDistance() {
+        final Random random = new Random(0);
+        final List<GeoPoint> points = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            points.add(point(35.7 + random.nextDouble() * 2, 139.7 + random.nextDouble() * 2));
+        }
+        final DistanceCalculator calculator = DistanceCalculator.of(points);
+
+        final double[] distances = new double[points.size()];
+        for (int from = 0; from < points.size(); from++) {
+            calculator.getDistances(from, 0, points.size(), distances);
+            for (int to = 0; to < points.size(); to++) {
+                assertEquals(calculator.getDistance(from, to), distances[to]);
+                assertEquals(DistanceCalculator.getDistance(points.get(from), points.get(to)), distances[to]);
+            }
+
+            // Distances of a sub range start at the beginning of the array
+            calculator.getDistances(from, 10, 20, distances);
+            for (int to = 10; to < 20; to++) {
+                assertEquals(calculator.getDistance(from, to), distances[to - 10]);
+            }
+        }
+    }
+
+    @Test
+    void getDistances_InvalidRange_Throws() {
+        final DistanceCalculator calculator = DistanceCalculator.of(Collections.nCopies(3, TOKYO));
+
+        assertThrows(IndexOutOfBoundsException.class, () -> calculator.getDistances(0, 2, 4, new double[2]));
+        assertThrows(IndexOutOfBoundsException.class, () -> calculator.getDistances(0, 2, 1, new double[2]));
+        assertThrows(IllegalArgumentException.class, () -> calculator.getDistances(0, 0, 3, new double[2]));
+    }
+
+    /**
+     * Distance as it was calculated before haversine, with the spherical law of cosines.
+     */
+    private static double getDistanceWithLawOfCosines(final GeoPoint a, final GeoPoint b) {
+        final double theta = a.getLongitude() - b.getLongitude();
+        double dist = Math.sin(Math.toRadians(a.getLatitude())) * Math.sin(Math.toRadians(b.getLatitude()))
+                + Math.cos(Math.toRadians(a.getLatitude())) * Math.cos(Math.toRadians(b.getLatitude()))
+                * Math.cos(Math.toRadians(theta));
+        dist = Math.acos(dist);
+        dist = Math.toDegrees(dist);
+        dist = dist * 60 * 1.1515;
+        return dist * 1.609344;
+    }
+
+    /**
+     * @return
+     *      Point {@code distance} KM away from {@code start}, along the great circle of the initial {@code bearing}
+     *      (in degrees, clockwise from north).
+     */
+    private static GeoPoint getDestination(final GeoPoint start, final double distance, final double bearing) {
+        final double angularDistance = distance / DistanceCalculator.EARTH_RADIUS_KM;
+        final double theta = Math.toRadians(bearing);
+        final double latitude = Math.toRadians(start.getLatitude());
+        final double longitude = Math.toRadians(start.getLongitude());
+        final double destinationLatitude = Math.asin(Math.sin(latitude) * Math.cos(angularDistance)
+                + Math.cos(latitude) * Math.sin(angularDistance) * Math.cos(theta));
+        final double destinationLongitude = longitude + Math.atan2(
+                Math.sin(theta) * Math.sin(angularDistance) * Math.cos(latitude),
+                Math.cos(angularDistance) - Math.sin(latitude) * Math.sin(destinationLatitude));
+        return point(Math.toDegrees(destinationLatitude), Math.toDegrees(destinationLongitude));
+    }
+
+    private static GeoPoint point(final double latitude, final double longitude) {
+        return ImmutableGeoPoint.builder().latitude(latitude).longitude(longitude).build();
+    }
+
+}
@@ -0,0 +1,121 @@
+package pogo.assistance.route;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import pogo.assistance.data.model.GeoPoint;
+import pogo.assistance.data.model.ImmutableGeoPoint;
+import pogo.assistance.route.Route.RoutePoint;
+
+class LinkedRouteTest {
+
+    /**
+     * Points are only apart in latitude, so costs are easy to tell.
+     */
+    private static final BiFunction<GeoPoint, GeoPoint, Double> LATITUDE_DELTA =
+            (a, b) -> Math.abs(a.getLatitude() - b.getLatitude());
+
+    @Test
+    void insert_AtHead_ShiftsCostsOfAllPoints() {
+        final LinkedRoute route = LinkedRoute.of(Arrays.asList(point(10), point(15)), LATITUDE_DELTA);
+
+        final RoutePoint<GeoPoint> inserted = route.insert(0, point(4));
+
+        assertLatitudes(route, 4, 10, 15);
+        assertSame(inserted, route.getFirst());
+        assertCosts(route, new double[] {0, 6, 11}, new double[] {6, 5, 0});
+        assertEquals(11.0, route.getFullCost().doubleValue());
+    }
+
+    @Test
+    void insert_InMiddle_UpdatesNeighboursAndCostsAfterIt() {
+        final LinkedRoute route = LinkedRoute.of(Arrays.asList(point(0), point(10), point(12)), LATITUDE_DELTA);
+
+        route.insert(1, point(20));
+
+        assertLatitudes(route, 0, 20, 10, 12);
+        assertCosts(route, new double[] {0, 20, 30, 32}, new double[] {20, 10, 2, 0});
+        assertEquals(32.0, route.getFullCost().doubleValue());
+    }
+
+    @Test
+    void insert_AtTail_OnlyAddsCostToIt() {
+        final LinkedRoute route = LinkedRoute.of(Arrays.asList(point(0), point(3)), LATITUDE_DELTA);
+
+        final RoutePoint<GeoPoint> inserted = route.insert(2, point(1));
+
+        assertLatitudes(route, 0, 3, 1);
+        assertSame(inserted, route.getLast());
+        assertCosts(route, new double[] {0, 3, 5}, new double[] {3, 2, 0});
+        assertEquals(5.0, route.getFullCost().doubleValue());
+    }
+
+    @Test
+    void insert_IntoEmptyRoute_BecomesFirstAndLast() {
+        final LinkedRoute route = new LinkedRoute(LATITUDE_DELTA);
+        assertEquals(0, route.getFullCost().intValue());
+
+        final RoutePoint<GeoPoint> inserted = route.insert(0, point(7));
+
+        assertSame(inserted, route.getFirst());
+        assertSame(inserted, route.getLast());
+        assertCosts(route, new double[] {0}, new double[] {0});
+        assertEquals(0.0, route.getFullCost().doubleValue());
+    }
+
+    @Test
+    void insert_OutOfBounds_Throws() {
+        final LinkedRoute route = LinkedRoute.of(Arrays.asList(point(0), point(3)), LATITUDE_DELTA);
+
+        assertThrows(IndexOutOfBoundsException.class, () -> route.insert(-1, point(1)));
+        assertThrows(IndexOutOfBoundsException.class, () -> route.insert(3, point(1)));
+        assertLatitudes(route, 0, 3);
+    }
+
+    /**
+     * Checks the order of the points, both in the list and along the links between them.
+     */
+    private static void assertLatitudes(final Route route, final double... latitudes) {
+        final List<RoutePoint<?>> routePoints = route.getAsList();
+        assertEquals(
+                Arrays.stream(latitudes).boxed().collect(Collectors.toList()),
+                routePoints.stream()
+                        .map(routePoint -> routePoint.getGetPoint().getLatitude())
+                        .collect(Collectors.toList()));
+        for (int i = 0; i < routePoints.size(); i++) {
+            final RoutePoint<?> routePoint = routePoints.get(i);
+            if (i == 0) {
+                assertNull(routePoint.getPrevious());
+            } else {
+                assertSame(routePoints.get(i - 1), routePoint.getPrevious());
+            }
+            if (i == routePoints.size() - 1) {
+                assertNull(routePoint.getNext());
+            } else {
+                assertSame(routePoints.get(i + 1), routePoint.getNext());
+            }
+        }
+    }
+
+    private static void assertCosts(final Route route, final double[] costsToPoints, final double[] costsFromPoints) {
+        final List<RoutePoint<?>> routePoints = route.getAsList();
+        assertEquals(costsToPoints.length, routePoints.size());
+        for (int i = 0; i < routePoints.size(); i++) {
+            final RoutePoint<?> routePoint = routePoints.get(i);
+            assertEquals(costsToPoints[i], routePoint.getCostToThis().doubleValue(), 1e-9, "Cost to " + i);
+            assertEquals(costsFromPoints[i], routePoint.getCostFromThis().doubleValue(), 1e-9, "Cost from " + i);
+        }
+    }
+
+    private static GeoPoint point(final double latitude) {
+        return ImmutableGeoPoint.builder().latitude(latitude).longitude(139.7).build();
+    }
+
+}
@@ -0,0 +1,106 @@
+package pogo.assistance.route;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+
+class PlannerExecutorTest {
+
+    @Test
+    void runWorkers_SharedQueue_WorkersTakeAllWorkBetweenThem() {
+        final AtomicInteger remaining = new AtomicInteger(1000);
+        final Supplier<Integer> worker = () -> {
+            int taken = 0;
+            while (remaining.getAndDecrement() > 0) {
+                taken++;
+            }
+            return taken;
+        };
+
+        final List<Integer> results = PlannerExecutor.getShared().runWorkers(4, worker);
+        assertEquals(1000, results.stream().mapToInt(Integer::intValue).sum());
+    }
+
+    @Test
+    void runWorkers_OneWorker_RunsOnCallingThread() {
+        assertEquals(
+                Collections.singletonList(Thread.currentThread()),
+                PlannerExecutor.getShared().runWorkers(1, Thread::currentThread));
+    }
+
+    @Test
+    void runWorkers_PoolBusy_CallingThreadDoesNotWaitForPool() {
+        final ExecutorService executorService = Executors.newSingleThreadExecutor();
+        final CountDownLatch release = new CountDownLatch(1);
+        try {
+            executorService.submit(() -> {
+                release.await();
+                return null;
+            });
+            final PlannerExecutor plannerExecutor = new PlannerExecutor(executorService);
+
+            assertTimeoutPreemptively(Duration.ofSeconds(10), () -> assertEquals(
+                    Collections.singletonList(Thread.currentThread()),
+                    plannerExecutor.runWorkers(3, Thread::currentThread)));
+        } finally {
+            release.countDown();
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    void runWorkers_PooledWorkerStillRunning_WaitsForItsResult() {
+        final ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try {
+            final Thread callingThread = Thread.currentThread();
+            final CountDownLatch pooledStarted = new CountDownLatch(1);
+            final CountDownLatch callerDone = new CountDownLatch(1);
+            final Supplier<String> worker = () -> {
+                try {
+                    if (Thread.currentThread() == callingThread) {
+                        pooledStarted.await();
+                        callerDone.countDown();
+                        return "caller";
+                    }
+                    pooledStarted.countDown();
+                    callerDone.await();
+                    // Still running while the calling thread collects results
+                    Thread.sleep(200);
+                    return "pooled";
+                } catch (final InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            };
+
+            assertEquals(
+                    Arrays.asList("caller", "pooled"),
+                    new PlannerExecutor(executorService).runWorkers(2, worker));
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    void runWorkers_WorkerFails_ThrowsItsException() {
+        final IllegalStateException failure = new IllegalStateException("Failed");
+        final Supplier<Integer> worker = () -> {
+            throw failure;
+        };
+
+        assertSame(failure, assertThrows(
+                IllegalStateException.class, () -> PlannerExecutor.getShared().runWorkers(2, worker)));
+    }
+
+}
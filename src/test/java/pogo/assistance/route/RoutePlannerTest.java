@@ -0,0 +1,159 @@
+package pogo.assistance.route;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.function.BiFunction;
+import org.junit.jupiter.api.Test;
+import pogo.assistance.data.model.GeoPoint;
+import pogo.assistance.data.model.ImmutableGeoPoint;
+
+class RoutePlannerTest {
+
+    private static final BiFunction<GeoPoint, GeoPoint, Double> DISTANCE = CooldownCalculator::getDistance;
+    private static final Comparator<GeoPoint> BY_COORDINATES =
+            Comparator.comparingDouble(GeoPoint::getLatitude).thenComparingDouble(GeoPoint::getLongitude);
+
+    @Test
+    void getOptimalRoute_SmallInputs_MatchesBruteForce() {
+        for (int size = 3; size <= 8; size++) {
+            for (long seed = 0; seed < 20; seed++) {
+                final List<GeoPoint> points = createPoints(size, seed);
+                final List<GeoPoint> route = new RoutePlanner(size, 1, Optional.empty()).getOptimalRoute(points);
+
+                assertPermutation(points, route);
+                assertEquals(
+                        getMinCost(points, DISTANCE),
+                        getCost(route, DISTANCE),
+                        1e-9,
+                        String.format("%d points, seed %d", size, seed));
+            }
+        }
+    }
+
+    @Test
+    void getOptimalRoute_CustomCost_MatchesBruteForce() {
+        // Only latitude matters, so the cheapest route visits points sorted by it
+        final BiFunction<GeoPoint, GeoPoint, Double> latitudeCost =
+                (from, to) -> Math.abs(from.getLatitude() - to.getLatitude());
+        for (long seed = 0; seed < 20; seed++) {
+            final List<GeoPoint> points = createPoints(7, seed);
+            final List<GeoPoint> route =
+                    new RoutePlanner(7, 1, Optional.empty()).getOptimalRoute(points, latitudeCost);
+
+            assertPermutation(points, route);
+            assertEquals(getMinCost(points, latitudeCost), getCost(route, latitudeCost), 1e-9, "Seed " + seed);
+        }
+    }
+
+    @Test
+    void getOptimalRoute_Parallel_SameAsSequential() {
+        final List<GeoPoint> points = createPoints(300, 3);
+
+        final List<GeoPoint> sequential = new RoutePlanner(16, 1, Optional.empty()).getOptimalRoute(points);
+        final List<GeoPoint> parallel = new RoutePlanner(16, 4, Optional.empty()).getOptimalRoute(points);
+        assertPermutation(points, parallel);
+        assertEquals(sequential, parallel);
+    }
+
+    @Test
+    void getOptimalRoute_MoreStarts_NeverWorse() {
+        for (long seed = 0; seed < 5; seed++) {
+            final List<GeoPoint> points = createPoints(100, seed);
+
+            final double singleStartCost = getCost(new RoutePlanner().getOptimalRoute(points), DISTANCE);
+            final List<GeoPoint> route = new RoutePlanner(10, 1, Optional.empty()).getOptimalRoute(points);
+            assertPermutation(points, route);
+            assertTrue(getCost(route, DISTANCE) <= singleStartCost, "Seed " + seed);
+        }
+    }
+
+    @Test
+    void getOptimalRoute_UpToTwoPoints_ReturnsThemInOrder() {
+        final List<GeoPoint> points = createPoints(2, 0);
+        final RoutePlanner routePlanner = new RoutePlanner();
+
+        assertEquals(Collections.emptyList(), routePlanner.getOptimalRoute(Collections.<GeoPoint>emptyList()));
+        assertEquals(points.subList(0, 1), routePlanner.getOptimalRoute(points.subList(0, 1)));
+        assertEquals(points, routePlanner.getOptimalRoute(points));
+    }
+
+    private static List<GeoPoint> createPoints(final int count, final long seed) {
+        final Random random = new Random(seed);
+        final List<GeoPoint> points = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            points.add(ImmutableGeoPoint.builder()
+                    .latitude(35.7 + random.nextDouble() * 0.1)
+                    .longitude(139.7 + random.nextDouble() * 0.1)
+                    .build());
+        }
+        return points;
+    }
+
+    private static void assertPermutation(final List<GeoPoint> points, final List<GeoPoint> route) {
+        final List<GeoPoint> expected = new ArrayList<>(points);
+        final List<GeoPoint> actual = new ArrayList<>(route);
+        expected.sort(BY_COORDINATES);
+        actual.sort(BY_COORDINATES);
+        assertEquals(expected, actual);
+    }
+
+    private static double getCost(
+            final List<GeoPoint> route,
+            final BiFunction<GeoPoint, GeoPoint, Double> costFunction) {
+        double cost = 0;
+        for (int i = 1; i < route.size(); i++) {
+            cost += costFunction.apply(route.get(i - 1), route.get(i));
+        }
+        return cost;
+    }
+
+    /**
+     * @return
+     *      Cost of the cheapest open route through {@code points}, found by trying every order of them.
+     */
+    private static double getMinCost(
+            final List<GeoPoint> points,
+            final BiFunction<GeoPoint, GeoPoint, Double> costFunction) {
+        final int[] order = new int[points.size()];
+        Arrays.setAll(order, i -> i);
+        return getMinCost(points, costFunction, order, 0, 0);
+    }
+
+    /**
+     * Tries every point not in {@code order[0, position)} at {@code position}, swapping it there.
+     */
+    private static double getMinCost(
+            final List<GeoPoint> points,
+            final BiFunction<GeoPoint, GeoPoint, Double> costFunction,
+            final int[] order,
+            final int position,
+            final double costSoFar) {
+        if (position == order.length) {
+            return costSoFar;
+        }
+        double minCost = Double.POSITIVE_INFINITY;
+        for (int i = position; i < order.length; i++) {
+            swap(order, position, i);
+            final double cost = (position == 0) ?
+                    0 : costFunction.apply(points.get(order[position - 1]), points.get(order[position]));
+            minCost = Math.min(minCost, getMinCost(points, costFunction, order, position + 1, costSoFar + cost));
+            swap(order, position, i);
+        }
+        return minCost;
+    }
+
+    private static void swap(final int[] order, final int i, final int j) {
+        final int swapped = order[i];
+        order[i] = order[j];
+        order[j] = swapped;
+    }
+
+}
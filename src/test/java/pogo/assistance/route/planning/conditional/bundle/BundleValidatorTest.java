@@ -0,0 +1,198 @@
+package pogo.assistance.route.planning.conditional.bundle;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+import pogo.assistance.data.model.GeoPoint;
+import pogo.assistance.data.model.Quest;
+
+/**
+ * Checks the validators of compiled patterns against straightforward implementations working on mapped elements, the
+ * way validators worked before patterns were compiled to codes.
+ */
+class BundleValidatorTest {
+
+    private static final List<String> ELEMENTS = Arrays.asList("3G10", "3B10", "DR15", "DRT", "3G15", "NOPE");
+
+    /**
+     * Same mapping as the generic mapper, but a different instance, so patterns using it aren't keyed.
+     */
+    private static final Function<GeoPoint, String> UNKEYED_MAPPER = BundlePatternFactory::genericMapper;
+
+    @Test
+    void nOfAKind_RandomSequences_BehavesLikeReference() {
+        final List<String> patternElements = Arrays.asList("3G10", "3B10");
+        assertBehavesLikeReference(
+                mapper -> BundlePatternFactory.createNOfAKindPattern(patternElements, 3, mapper),
+                () -> new ReferenceValidator() {
+                    private int requiredCount = 3;
+                    private String chosen = null;
+
+                    @Override
+                    public boolean canAddToBundle(final String element) {
+                        return requiredCount > 0
+                                && (chosen == null ? patternElements.contains(element) : chosen.equals(element));
+                    }
+
+                    @Override
+                    public void addToBundle(final String element) {
+                        chosen = element;
+                        requiredCount--;
+                    }
+
+                    @Override
+                    public boolean isComplete() {
+                        return requiredCount == 0;
+                    }
+                });
+    }
+
+    @Test
+    void anyOfASet_RandomSequences_BehavesLikeReference() {
+        final Set<String> patternElements = new HashSet<>(Arrays.asList("3G15", "3G10"));
+        assertBehavesLikeReference(
+                mapper -> BundlePatternFactory.createAnyOfASetPattern(patternElements, 3, mapper),
+                () -> new ReferenceValidator() {
+                    private int requiredCount = 3;
+
+                    @Override
+                    public boolean canAddToBundle(final String element) {
+                        return requiredCount > 0 && patternElements.contains(element);
+                    }
+
+                    @Override
+                    public void addToBundle(final String element) {
+                        requiredCount--;
+                    }
+
+                    @Override
+                    public boolean isComplete() {
+                        return requiredCount == 0;
+                    }
+                });
+    }
+
+    @Test
+    void orderIndependent_RandomSequences_BehavesLikeReference() {
+        final List<String> patternElements = Arrays.asList("DR15", "DRT", "DR15");
+        assertBehavesLikeReference(
+                mapper -> BundlePatternFactory.createOrderIndependentPattern(patternElements, mapper),
+                () -> new ReferenceValidator() {
+                    private final List<String> requiredElements = new ArrayList<>(patternElements);
+
+                    @Override
+                    public boolean canAddToBundle(final String element) {
+                        return requiredElements.contains(element);
+                    }
+
+                    @Override
+                    public void addToBundle(final String element) {
+                        requiredElements.remove(element);
+                    }
+
+                    @Override
+                    public boolean isComplete() {
+                        return requiredElements.isEmpty();
+                    }
+                });
+    }
+
+    @Test
+    void orderDependent_RandomSequences_BehavesLikeReference() {
+        final List<String> patternElements = Arrays.asList("3G10", "DRT", "3G10", "3B10");
+        assertBehavesLikeReference(
+                mapper -> BundlePatternFactory.createOrderDependentPattern(patternElements, mapper),
+                () -> new ReferenceValidator() {
+                    private final Queue<String> requiredElements = new LinkedList<>(patternElements);
+
+                    @Override
+                    public boolean canAddToBundle(final String element) {
+                        return element.equals(requiredElements.peek());
+                    }
+
+                    @Override
+                    public void addToBundle(final String element) {
+                        requiredElements.remove();
+                    }
+
+                    @Override
+                    public boolean isComplete() {
+                        return requiredElements.isEmpty();
+                    }
+                });
+    }
+
+    @Test
+    void isKeyed_GenericMapperOnly_ReturnsTrue() {
+        final Collection<String> patternElements = Arrays.asList("3G10", "3B10");
+        assertTrue(BundlePatternFactory.createNOfAKindPattern(
+                patternElements, 3, BundlePatternFactory.getGenericMapper()).isKeyed());
+        assertFalse(BundlePatternFactory.createNOfAKindPattern(patternElements, 3, UNKEYED_MAPPER).isKeyed());
+    }
+
+    /**
+     * Feeds random sequences of quests to a validator of the pattern (reused across sequences through
+     * {@link BundleValidator#reset()}) and a new reference validator per sequence, adding every quest the reference
+     * accepts. Validators are checked through quests, element codes and (if keyed) pattern key codes alike.
+     */
+    private static void assertBehavesLikeReference(
+            final Function<Function<GeoPoint, String>, BundlePattern<GeoPoint, String>> patternFactory,
+            final Supplier<ReferenceValidator> referenceFactory) {
+        final Random random = new Random(6);
+        final List<Function<GeoPoint, String>> mappers =
+                Arrays.asList(BundlePatternFactory.getGenericMapper(), UNKEYED_MAPPER);
+        for (final Function<GeoPoint, String> mapper : mappers) {
+            final BundlePattern<GeoPoint, String> pattern = patternFactory.apply(mapper);
+            final BundleValidator<GeoPoint, String> validator = pattern.createValidator();
+            for (int sequence = 0; sequence < 500; sequence++) {
+                validator.reset();
+                final ReferenceValidator reference = referenceFactory.get();
+                for (int step = 0; step < 8; step++) {
+                    final String element = ELEMENTS.get(random.nextInt(ELEMENTS.size()));
+                    final Quest quest = PlannerFixtures.createQuest(35.7, 139.7, element);
+                    final int code = pattern.getElementCode(quest);
+                    if (pattern.isKeyed()) {
+                        assertEquals(code, pattern.getElementCodeForKey(PatternKeys.getKeyId(quest)));
+                    }
+
+                    final boolean expected = reference.canAddToBundle(element);
+                    assertEquals(expected, validator.canAddToBundle(quest));
+                    assertEquals(expected, validator.canAddToBundle(code));
+                    if (expected) {
+                        reference.addToBundle(element);
+                        if (step % 2 == 0) {
+                            validator.addToBundle(quest);
+                        } else {
+                            validator.addToBundle(code);
+                        }
+                    }
+                    assertEquals(reference.isComplete(), validator.isComplete());
+                }
+            }
+        }
+    }
+
+    private interface ReferenceValidator {
+
+        boolean canAddToBundle(String element);
+
+        void addToBundle(String element);
+
+        boolean isComplete();
+
+    }
+
+}
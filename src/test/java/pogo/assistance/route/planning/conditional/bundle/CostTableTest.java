@@ -0,0 +1,78 @@
+package pogo.assistance.route.planning.conditional.bundle;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import org.junit.jupiter.api.Test;
+import pogo.assistance.data.model.GeoPoint;
+import pogo.assistance.route.CooldownCalculator;
+
+class CostTableTest {
+
+    // Dense table keeps distances as floats, which is well within a millimeter at these distances
+    private static final double DISTANCE_DELTA = 1e-5;
+
+    private final List<GeoPoint> points = new ArrayList<>(PlannerFixtures.createQuests(60, 0.3, 1));
+
+    @Test
+    void getValues_DistanceCost_DenseMatchesOnDemand() {
+        final CostTable dense = new DenseCostTable(points, PlannerConfig.DISTANCE_COST);
+        final CostTable onDemand = new OnDemandCostTable(points, PlannerConfig.DISTANCE_COST);
+
+        for (int from = 0; from < points.size(); from++) {
+            for (int to = 0; to < points.size(); to++) {
+                final double expectedDistance = CooldownCalculator.getDistance(points.get(from), points.get(to));
+                assertEquals(expectedDistance, dense.getDistance(from, to), DISTANCE_DELTA);
+                assertEquals(expectedDistance, onDemand.getDistance(from, to), DISTANCE_DELTA);
+                assertEquals(onDemand.getCooldown(from, to), dense.getCooldown(from, to));
+                assertEquals(dense.getDistance(from, to), dense.getCost(from, to));
+                assertEquals(onDemand.getDistance(from, to), onDemand.getCost(from, to));
+            }
+        }
+    }
+
+    @Test
+    void getCost_CustomCost_DenseMatchesOnDemandAndCallsOncePerPair() {
+        final AtomicInteger calls = new AtomicInteger();
+        final BiFunction<GeoPoint, GeoPoint, Double> costFunction = (a, b) -> {
+            calls.incrementAndGet();
+            return CooldownCalculator.getCooldown(a, b) + 1;
+        };
+        final CostTable dense = new DenseCostTable(points, costFunction);
+        assertEquals(points.size() * (points.size() - 1) / 2, calls.get());
+        final CostTable onDemand = new OnDemandCostTable(points, costFunction);
+
+        for (int from = 0; from < points.size(); from++) {
+            for (int to = 0; to < points.size(); to++) {
+                final double expected =
+                        (from == to) ? 0 : CooldownCalculator.getCooldown(points.get(from), points.get(to)) + 1;
+                assertEquals(expected, dense.getCost(from, to));
+                assertEquals(expected, onDemand.getCost(from, to));
+            }
+        }
+    }
+
+    @Test
+    void create_SizeAroundLimit_PrecomputesOnlyWithinLimit() {
+        final List<GeoPoint> duplicated = new ArrayList<>(points);
+        duplicated.addAll(points);
+        final CostTable withinLimit = CostTable.create(
+                duplicated, ImmutablePlannerConfig.builder().maxPrecomputedPoints(points.size()).build());
+        final CostTable beyondLimit = CostTable.create(
+                duplicated, ImmutablePlannerConfig.builder().maxPrecomputedPoints(points.size() - 1).build());
+
+        assertTrue(withinLimit instanceof DenseCostTable);
+        assertTrue(beyondLimit instanceof OnDemandCostTable);
+        assertEquals(points.size(), withinLimit.size());
+        assertEquals(points.size(), beyondLimit.size());
+        for (int i = 0; i < points.size(); i++) {
+            assertEquals(points.get(i), withinLimit.getPoint(i));
+            assertEquals(points.get(i), beyondLimit.getPoint(i));
+        }
+    }
+
+}
@@ -0,0 +1,88 @@
+package pogo.assistance.route.planning.conditional.bundle;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import pogo.assistance.data.model.GeoPoint;
+import pogo.assistance.data.model.ImmutableGeoPoint;
+import pogo.assistance.data.model.Quest;
+
+class KeyedPointsTest {
+
+    private final List<Quest> quests = PlannerFixtures.createQuests(50, 0.3, 7);
+
+    @Test
+    void of_Quests_KeysPointsByAbbreviation() {
+        final KeyedPoints<Quest> points = KeyedPoints.of(quests);
+
+        assertEquals(quests, points.getPoints());
+        assertKeyIdsMatchPoints(points);
+    }
+
+    @Test
+    void of_NotATaskOrNest_HasNoKey() {
+        final KeyedPoints<GeoPoint> points = KeyedPoints.of(Collections.singletonList(
+                ImmutableGeoPoint.builder().latitude(35.7).longitude(139.7).build()));
+        assertEquals(PatternKeys.NO_KEY, points.getKeyId(0));
+    }
+
+    @Test
+    void filter_SomeKeys_KeepsPointsWithThoseKeysInOrder() {
+        final List<String> abbreviations = Arrays.asList("3G10", "DRT", "NOT-IN-POINTS");
+        final KeyedPoints<Quest> filtered = KeyedPoints.of(quests).filter(PatternKeys.getKeyIds(abbreviations));
+
+        assertEquals(
+                quests.stream()
+                        .filter(quest -> abbreviations.contains(quest.getAbbreviation().get()))
+                        .collect(Collectors.toList()),
+                filtered.getPoints());
+        assertKeyIdsMatchPoints(filtered);
+    }
+
+    @Test
+    void without_SomePoints_RemovesAllOccurrences() {
+        final List<Quest> withDuplicates = IntStream.range(0, 100)
+                .mapToObj(i -> quests.get(i % quests.size()))
+                .collect(Collectors.toList());
+        final List<Quest> toRemove = quests.subList(10, 20);
+        final KeyedPoints<Quest> remaining = KeyedPoints.of(withDuplicates).without(toRemove);
+
+        assertEquals(
+                withDuplicates.stream().filter(quest -> !toRemove.contains(quest)).collect(Collectors.toList()),
+                remaining.getPoints());
+        assertKeyIdsMatchPoints(remaining);
+    }
+
+    @Test
+    void distinct_Duplicates_KeepsFirstOccurrences() {
+        final List<Quest> withDuplicates = IntStream.range(0, 120)
+                .mapToObj(i -> quests.get((i * 7) % quests.size()))
+                .collect(Collectors.toList());
+        final KeyedPoints<Quest> distinct = KeyedPoints.of(withDuplicates).distinct();
+
+        assertEquals(withDuplicates.stream().distinct().collect(Collectors.toList()), distinct.getPoints());
+        assertKeyIdsMatchPoints(distinct);
+    }
+
+    @Test
+    void select_Indices_KeepsThoseInGivenOrder() {
+        final KeyedPoints<Quest> selected = KeyedPoints.of(quests).select(new int[] {5, 1, 30});
+
+        assertEquals(Arrays.asList(quests.get(5), quests.get(1), quests.get(30)), selected.getPoints());
+        assertKeyIdsMatchPoints(selected);
+    }
+
+    private static void assertKeyIdsMatchPoints(final KeyedPoints<? extends GeoPoint> points) {
+        assertEquals(points.getPoints().size(), points.size());
+        for (int i = 0; i < points.size(); i++) {
+            assertEquals(PatternKeys.getKeyId(points.getPoint(i)), points.getKeyId(i));
+            assertEquals(points.getKeyId(i), (int) points.getKeyIds().get(i));
+        }
+    }
+
+}
@@ -0,0 +1,127 @@
+package pogo.assistance.route.planning.conditional.bundle;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import pogo.assistance.data.model.GeoPoint;
+import pogo.assistance.route.CooldownCalculator;
+
+class LocalSearchTourOptimizerTest {
+
+    private static final Duration TIME_BUDGET = Duration.ofSeconds(5);
+
+    private final List<BundlePattern<GeoPoint, String>> patterns = PlannerFixtures.createPatterns();
+
+    @Test
+    void optimize_PlannedTours_NeverWorseAndWithinLimits() {
+        final PlannerConfig config = ImmutablePlannerConfig.builder()
+                .maxStepDistance(3.0)
+                .maxTourDuration(Duration.ofHours(1))
+                .build();
+        final TourOptimizer optimizer = new LocalSearchTourOptimizer(TIME_BUDGET);
+        for (long seed = 0; seed < 10; seed++) {
+            final Tour tour = plan(config, seed);
+
+            final Tour optimized = optimizer.optimize(tour, patterns, config);
+            assertTrue(config.tourComparator().compare(optimized, tour) >= 0, "Seed " + seed);
+            assertSameBundles(tour, optimized);
+            assertValidBundles(optimized);
+            assertWithinLimits(optimized, config);
+        }
+    }
+
+    @Test
+    void optimize_ShuffledTours_ReducesCooldown() {
+        final PlannerConfig config = ImmutablePlannerConfig.builder().build();
+        final TourOptimizer optimizer = new LocalSearchTourOptimizer(TIME_BUDGET);
+        for (long seed = 0; seed < 10; seed++) {
+            final List<Bundle<? extends GeoPoint>> bundles = new ArrayList<>(plan(config, seed).getBundles());
+            Collections.shuffle(bundles, new Random(seed));
+            final Tour shuffled = ImmutableTour.builder().bundles(bundles).build();
+
+            final Tour optimized = optimizer.optimize(shuffled, patterns, config);
+            assertTrue(
+                    optimized.getTotalDuration().compareTo(shuffled.getTotalDuration()) < 0,
+                    String.format(
+                            "Seed %d: %s to %s", seed, shuffled.getTotalDuration(), optimized.getTotalDuration()));
+            assertSameBundles(shuffled, optimized);
+            assertValidBundles(optimized);
+        }
+    }
+
+    @Test
+    void optimize_NoTimeBudget_NeverWorse() {
+        final PlannerConfig config = ImmutablePlannerConfig.builder().build();
+        final Tour tour = plan(config, 1);
+
+        final Tour optimized = new LocalSearchTourOptimizer(Duration.ZERO).optimize(tour, patterns, config);
+        assertTrue(config.tourComparator().compare(optimized, tour) >= 0);
+        assertSameBundles(tour, optimized);
+    }
+
+    @Test
+    void optimize_EmptyTour_ReturnsIt() {
+        final Tour tour = ImmutableTour.builder().bundles(Collections.emptyList()).build();
+        assertSame(tour, new LocalSearchTourOptimizer(TIME_BUDGET)
+                .optimize(tour, patterns, ImmutablePlannerConfig.builder().build()));
+    }
+
+    private Tour plan(final PlannerConfig config, final long seed) {
+        final Tour tour = new TourPlanner(config)
+                .plan(PlannerFixtures.createQuests(60, 0.05, seed), patterns)
+                .orElseThrow(IllegalStateException::new);
+        assertTrue(tour.getBundles().size() > 2, "Fixture has to plan a tour worth optimizing");
+        return tour;
+    }
+
+    /**
+     * Bundles may be reordered, and elements reordered within them, but each bundle has to keep its elements.
+     */
+    private static void assertSameBundles(final Tour expected, final Tour actual) {
+        assertEquals(getSortedBundles(expected), getSortedBundles(actual));
+    }
+
+    private static List<List<String>> getSortedBundles(final Tour tour) {
+        return tour.getBundles().stream()
+                .map(bundle -> bundle.getElements().stream()
+                        .map(Object::toString)
+                        .sorted()
+                        .collect(Collectors.toList()))
+                .sorted(Comparator.comparing(Object::toString))
+                .collect(Collectors.toList());
+    }
+
+    private void assertValidBundles(final Tour tour) {
+        for (final Bundle<? extends GeoPoint> bundle : tour.getBundles()) {
+            assertTrue(patterns.stream().anyMatch(pattern -> {
+                final BundleValidator<GeoPoint, String> validator = pattern.createValidator();
+                for (final GeoPoint element : bundle.getElements()) {
+                    if (!validator.canAddToBundle(element)) {
+                        return false;
+                    }
+                    validator.addToBundle(element);
+                }
+                return validator.isComplete();
+            }), bundle.toString());
+        }
+    }
+
+    private static void assertWithinLimits(final Tour tour, final PlannerConfig config) {
+        final List<? extends GeoPoint> elements = tour.getElements();
+        for (int i = 1; i < elements.size(); i++) {
+            assertTrue(CooldownCalculator.getDistance(elements.get(i - 1), elements.get(i))
+                    <= config.maxStepDistance().get());
+        }
+        assertTrue(tour.getTotalDuration().compareTo(config.maxTourDuration().get()) <= 0);
+    }
+
+}
@@ -0,0 +1,66 @@
+package pogo.assistance.route.planning.conditional.bundle;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import lombok.experimental.UtilityClass;
+import pogo.assistance.data.model.GeoPoint;
+import pogo.assistance.data.model.ImmutableAction;
+import pogo.assistance.data.model.ImmutableQuest;
+import pogo.assistance.data.model.ImmutableReward;
+import pogo.assistance.data.model.Quest;
+
+/**
+ * Seeded quest sets for planner tests, so that failures reproduce.
+ */
+@UtilityClass
+class PlannerFixtures {
+
+    static final List<String> ABBREVIATIONS = Arrays.asList("3G10", "3B10", "DR15", "DRT", "3G15");
+
+    /**
+     * @return
+     *      {@code count} quests spread uniformly over a square of {@code spanDegrees} around Tokyo, with abbreviations
+     *      picked uniformly from {@link #ABBREVIATIONS}.
+     */
+    static List<Quest> createQuests(final int count, final double spanDegrees, final long seed) {
+        final Random random = new Random(seed);
+        final List<Quest> quests = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            quests.add(createQuest(
+                    35.7 + random.nextDouble() * spanDegrees,
+                    139.7 + random.nextDouble() * spanDegrees,
+                    ABBREVIATIONS.get(random.nextInt(ABBREVIATIONS.size()))));
+        }
+        return quests;
+    }
+
+    static Quest createQuest(final double latitude, final double longitude, final String abbreviation) {
+        return ImmutableQuest.builder()
+                .latitude(latitude)
+                .longitude(longitude)
+                .action(ImmutableAction.builder().description("Action of " + abbreviation).build())
+                .reward(ImmutableReward.builder()
+                        .description(abbreviation.endsWith("15") ? "1500 Stardust" : "1000 Stardust")
+                        .build())
+                .abbreviation(Optional.of(abbreviation))
+                .build();
+    }
+
+    /**
+     * @return
+     *      Patterns similar to those of the stardust recipe: 3 of a kind, any 3 of a set and an order independent one.
+     */
+    static List<BundlePattern<GeoPoint, String>> createPatterns() {
+        return Arrays.asList(
+                BundlePatternFactory.createNOfAKindPattern(
+                        Arrays.asList("3G10", "3B10"), 3, BundlePatternFactory.getGenericMapper()),
+                BundlePatternFactory.createAnyOfASetPattern(
+                        Arrays.asList("3G15", "3G10"), 3, BundlePatternFactory.getGenericMapper()),
+                BundlePatternFactory.createOrderIndependentPattern(
+                        Arrays.asList("DR15", "DR15", "DRT"), BundlePatternFactory.getGenericMapper()));
+    }
+
+}
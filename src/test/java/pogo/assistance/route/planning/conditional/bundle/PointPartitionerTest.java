@@ -0,0 +1,98 @@
+package pogo.assistance.route.planning.conditional.bundle;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import pogo.assistance.data.model.GeoPoint;
+import pogo.assistance.data.model.ImmutableGeoPoint;
+import pogo.assistance.route.CooldownCalculator;
+
+class PointPartitionerTest {
+
+    @Test
+    void partition_Clusters_ReturnsComponentsByFirstIndex() {
+        // Latitude steps of 0.009 degrees are about 1 KM
+        final List<GeoPoint> points = Arrays.asList(
+                createPoint(35.7, 139.7),
+                createPoint(36.7, 139.7),
+                createPoint(35.709, 139.7),
+                createPoint(36.701, 139.7),
+                createPoint(35.718, 139.7), // Connected to the first point only through the third one
+                createPoint(37.7, 139.7));
+
+        final int[][] components = PointPartitioner.partition(points, 1.5);
+        assertArrayEquals(new int[][] {{0, 2, 4}, {1, 3}, {5}}, components);
+    }
+
+    @Test
+    void partition_RandomPoints_MatchesBruteForce() {
+        final Random random = new Random(5);
+        for (int round = 0; round < 20; round++) {
+            final List<GeoPoint> points = new ArrayList<>();
+            final int pointCount = 1 + random.nextInt(300);
+            for (int i = 0; i < pointCount; i++) {
+                points.add(createPoint(35.7 + random.nextDouble() * 0.2, 139.7 + random.nextDouble() * 0.2));
+            }
+            final double radiusKm = 0.2 + random.nextDouble() * 2;
+
+            assertArrayEquals(
+                    partitionBruteForce(points, radiusKm),
+                    PointPartitioner.partition(points, radiusKm),
+                    String.format("Round %d: %d points within %f KM", round, pointCount, radiusKm));
+        }
+    }
+
+    @Test
+    void partition_NoPoints_ReturnsNoComponents() {
+        assertEquals(0, PointPartitioner.partition(Collections.emptyList(), 1).length);
+    }
+
+    @Test
+    void partition_InvalidRadius_Throws() {
+        final List<GeoPoint> points = Collections.singletonList(createPoint(35.7, 139.7));
+        assertThrows(IllegalArgumentException.class, () -> PointPartitioner.partition(points, -1));
+        assertThrows(IllegalArgumentException.class, () -> PointPartitioner.partition(points, Double.MAX_VALUE));
+        assertThrows(IllegalArgumentException.class, () -> PointPartitioner.partition(points, Double.NaN));
+    }
+
+    private static GeoPoint createPoint(final double latitude, final double longitude) {
+        return ImmutableGeoPoint.builder().latitude(latitude).longitude(longitude).build();
+    }
+
+    /**
+     * Depth first search over every pair of points, starting a new component from the lowest index not yet visited.
+     */
+    private static int[][] partitionBruteForce(final List<GeoPoint> points, final double radiusKm) {
+        final boolean[] visited = new boolean[points.size()];
+        final List<int[]> components = new ArrayList<>();
+        for (int start = 0; start < points.size(); start++) {
+            if (visited[start]) {
+                continue;
+            }
+            final List<Integer> component = new ArrayList<>();
+            final List<Integer> stack = new ArrayList<>(Collections.singletonList(start));
+            visited[start] = true;
+            while (!stack.isEmpty()) {
+                final int point = stack.remove(stack.size() - 1);
+                component.add(point);
+                for (int other = 0; other < points.size(); other++) {
+                    if (!visited[other]
+                            && CooldownCalculator.getDistance(points.get(point), points.get(other)) <= radiusKm) {
+                        visited[other] = true;
+                        stack.add(other);
+                    }
+                }
+            }
+            components.add(component.stream().mapToInt(Integer::intValue).sorted().toArray());
+        }
+        return components.toArray(new int[0][]);
+    }
+
+}
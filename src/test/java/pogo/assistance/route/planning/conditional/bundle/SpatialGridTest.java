@@ -0,0 +1,73 @@
+package pogo.assistance.route.planning.conditional.bundle;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import pogo.assistance.data.model.GeoPoint;
+
+class SpatialGridTest {
+
+    @Test
+    void getWithinRadius_RandomPoints_MatchesBruteForce() {
+        assertMatchesBruteForce(new ArrayList<>(PlannerFixtures.createQuests(300, 0.3, 2)));
+    }
+
+    @Test
+    void getWithinRadius_HighLatitudeAcrossPrimeMeridian_MatchesBruteForce() {
+        final Random random = new Random(3);
+        final List<GeoPoint> points = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            points.add(PlannerFixtures.createQuest(
+                    69.5 + random.nextDouble() * 0.2,
+                    -0.3 + random.nextDouble() * 0.6,
+                    PlannerFixtures.ABBREVIATIONS.get(0)));
+        }
+        assertMatchesBruteForce(points);
+    }
+
+    @Test
+    void getCoverage_RadiusCoveringAllPoints_ReturnsOne() {
+        final CostTable costTable = new DenseCostTable(
+                new ArrayList<>(PlannerFixtures.createQuests(100, 0.1, 4)), PlannerConfig.DISTANCE_COST);
+        final SpatialGrid grid = new SpatialGrid(costTable, 1);
+
+        assertEquals(1, grid.getCoverage(100), 1e-9);
+        assertTrue(grid.getCoverage(0.5) < 0.25);
+    }
+
+    private static void assertMatchesBruteForce(final List<GeoPoint> points) {
+        final CostTable costTable = new DenseCostTable(points, PlannerConfig.DISTANCE_COST);
+        final Random random = new Random(5);
+        final BitSet filter = new BitSet(points.size());
+        for (int i = 0; i < points.size(); i++) {
+            filter.set(i, random.nextInt(4) != 0);
+        }
+
+        for (final double cellSize : new double[] {0.5, 2}) {
+            final SpatialGrid grid = new SpatialGrid(costTable, cellSize);
+            for (final double radius : new double[] {0.2, 0.5, 2, 7, 100, Double.MAX_VALUE}) {
+                for (int center = 0; center < points.size(); center++) {
+                    assertArrayEquals(
+                            getWithinRadius(costTable, center, radius, filter),
+                            grid.getWithinRadius(center, radius, filter),
+                            String.format("Cell size %s, radius %s, center %d", cellSize, radius, center));
+                }
+            }
+        }
+    }
+
+    private static int[] getWithinRadius(
+            final CostTable costTable,
+            final int center,
+            final double radius,
+            final BitSet filter) {
+        return filter.stream().filter(point -> costTable.getDistance(center, point) <= radius).toArray();
+    }
+
+}
@@ -0,0 +1,237 @@
+package pogo.assistance.route.planning.conditional.bundle;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import pogo.assistance.data.model.GeoPoint;
+import pogo.assistance.data.model.Quest;
+import pogo.assistance.route.CooldownCalculator;
+
+class TourPlannerTest {
+
+    private static final PlannerConfig CONFIG = ImmutablePlannerConfig.builder()
+            .maxStepDistance(3.0)
+            .maxTourDuration(Duration.ofHours(2))
+            .build();
+
+    private final List<BundlePattern<GeoPoint, String>> patterns = PlannerFixtures.createPatterns();
+
+    @Test
+    void plan_BeamWidthOne_SameAsGreedy() {
+        for (long seed = 0; seed < 5; seed++) {
+            final List<Quest> quests = PlannerFixtures.createQuests(80, 0.1, seed);
+
+            assertEquals(
+                    new TourPlanner(CONFIG).plan(quests, patterns),
+                    new TourPlanner(withBeamWidth(1)).plan(quests, patterns),
+                    "Seed " + seed);
+        }
+    }
+
+    @Test
+    void plan_WiderBeam_NeverWorseThanGreedy() {
+        boolean improved = false;
+        for (long seed = 0; seed < 5; seed++) {
+            final List<Quest> quests = PlannerFixtures.createQuests(80, 0.1, seed);
+            final Tour greedy = new TourPlanner(CONFIG).plan(quests, patterns).get();
+            for (final int beamWidth : new int[] {2, 4}) {
+                final Tour beam = new TourPlanner(withBeamWidth(beamWidth)).plan(quests, patterns).get();
+                assertValid(beam, quests);
+
+                final int comparison = CONFIG.tourComparator().compare(beam, greedy);
+                assertTrue(comparison >= 0, String.format("Seed %d, beam width %d", seed, beamWidth));
+                improved |= comparison > 0;
+            }
+        }
+        assertTrue(improved, "Beam never found a better tour than greedy");
+    }
+
+    @Test
+    void plan_ExactBundles_FindsCheapestBundleOfEachStartingPoint() {
+        boolean improved = false;
+        for (long seed = 0; seed < 5; seed++) {
+            final List<Quest> quests = PlannerFixtures.createQuests(30, 0.03, seed);
+            for (final Quest start : quests) {
+                final double cheapestDistance = getCheapestBundleDistance(quests, start, 1.0, 1.5);
+                final Optional<Tour> exact =
+                        new TourPlanner(withSingleBundleFrom(start, true)).plan(quests, patterns)
+                                .filter(tour -> tour.getElements().get(0).equals(start));
+                final Optional<Tour> greedy =
+                        new TourPlanner(withSingleBundleFrom(start, false)).plan(quests, patterns)
+                                .filter(tour -> tour.getElements().get(0).equals(start));
+
+                final String message = String.format("Seed %d, starting from %s", seed, start);
+                assertEquals(cheapestDistance < Double.POSITIVE_INFINITY, exact.isPresent(), message);
+                if (exact.isPresent()) {
+                    assertValid(exact.get(), quests);
+                    assertEquals(1, exact.get().getBundles().size(), message);
+                    assertEquals(cheapestDistance, exact.get().getTotalDistance(), 1e-6, message);
+                    improved |= !greedy.isPresent() || greedy.get().getTotalDistance() > cheapestDistance + 1e-6;
+                }
+            }
+        }
+        assertTrue(improved, "Greedy bundles were always the cheapest");
+    }
+
+    @Test
+    void planWithReport_ZeroTimeBudget_ExploresFirstStartingPointFully() {
+        for (long seed = 0; seed < 5; seed++) {
+            // All of a kind, so that the first starting point (the one with most neighbors) surely starts a bundle
+            final List<Quest> quests = PlannerFixtures.createQuests(80, 0.1, seed).stream()
+                    .map(quest -> PlannerFixtures.createQuest(quest.getLatitude(), quest.getLongitude(), "3G10"))
+                    .collect(Collectors.toList());
+            final PlanReport report = new TourPlanner(ImmutablePlannerConfig.builder()
+                    .from(CONFIG)
+                    .tourBound(TourBound.ofBundleCount())
+                    .timeBudget(Duration.ZERO)
+                    .build())
+                    .planWithReport(KeyedPoints.of(quests), patterns);
+
+            final String message = "Seed " + seed;
+            assertEquals(quests.size(), report.getStartingPointCount(), message);
+            assertEquals(1, report.getExploredStartingPointCount(), message);
+            // Nothing to compare the first tour with, so it can't be cut off
+            assertEquals(0, report.getCutOffStartingPointCount(), message);
+            assertFalse(report.isComplete(), message);
+
+            final Tour tour = report.getTour().get();
+            final GeoPoint start = tour.getElements().get(0);
+            assertEquals(
+                    Optional.of(tour),
+                    new TourPlanner(preferringStart(start)).plan(quests, patterns)
+                            .filter(planned -> planned.getElements().get(0).equals(start)),
+                    message);
+        }
+    }
+
+    private static PlannerConfig withBeamWidth(final int beamWidth) {
+        return ImmutablePlannerConfig.builder().from(CONFIG).beamWidth(beamWidth).build();
+    }
+
+    /**
+     * @return
+     *      Same as {@link #CONFIG}, but with tours starting from {@code start} preferred over any other.
+     */
+    private static PlannerConfig preferringStart(final GeoPoint start) {
+        return ImmutablePlannerConfig.builder()
+                .from(CONFIG)
+                .tourComparator(Comparator.<Tour, Boolean>comparing(tour ->
+                                !tour.getBundles().isEmpty() && tour.getElements().get(0).equals(start))
+                        .thenComparing(CONFIG.tourComparator()))
+                .build();
+    }
+
+    /**
+     * @return
+     *      Config for tours of a single bundle, which can't be followed by another since bundles can't be more than 0
+     *      KM apart. Tours starting from {@code start} are preferred over any other, then the shortest one.
+     */
+    private static PlannerConfig withSingleBundleFrom(final Quest start, final boolean exactBundles) {
+        return ImmutablePlannerConfig.builder()
+                .maxStepDistance(1.0)
+                .maxBundleDistance(1.5)
+                .maxBundleToBundleDistance(Optional.of(0.0))
+                .tourComparator(Comparator.<Tour, Boolean>comparing(tour ->
+                                !tour.getBundles().isEmpty() && tour.getElements().get(0).equals(start))
+                        .thenComparing(tour -> tour.getBundles().size())
+                        .thenComparing(Comparator.comparingDouble(Tour::getTotalDistance).reversed()))
+                .exactBundles(exactBundles)
+                .build();
+    }
+
+    /**
+     * @return
+     *      Distance of the cheapest bundle of any of the patterns starting from {@code start}, found by trying every
+     *      sequence of distinct {@code quests} within the distance limits. Infinite if there's no such bundle.
+     */
+    private double getCheapestBundleDistance(
+            final List<Quest> quests,
+            final Quest start,
+            final double maxStepDistance,
+            final double maxBundleDistance) {
+        double cheapestDistance = Double.POSITIVE_INFINITY;
+        for (final BundlePattern<GeoPoint, String> pattern : patterns) {
+            cheapestDistance = Math.min(cheapestDistance, getCheapestBundleDistance(
+                    quests, pattern, new ArrayList<>(Collections.singletonList(start)), 0,
+                    maxStepDistance, maxBundleDistance));
+        }
+        return cheapestDistance;
+    }
+
+    /**
+     * @return
+     *      Distance of the cheapest bundle of the {@code pattern} starting with the {@code elements}, which are
+     *      {@code distance} long.
+     */
+    private static double getCheapestBundleDistance(
+            final List<Quest> quests,
+            final BundlePattern<GeoPoint, String> pattern,
+            final List<Quest> elements,
+            final double distance,
+            final double maxStepDistance,
+            final double maxBundleDistance) {
+        final BundleValidator<GeoPoint, String> validator = pattern.createValidator();
+        for (final Quest element : elements) {
+            if (!validator.canAddToBundle(element)) {
+                return Double.POSITIVE_INFINITY;
+            }
+            validator.addToBundle(element);
+        }
+        if (validator.isComplete()) {
+            return distance;
+        }
+
+        double cheapestDistance = Double.POSITIVE_INFINITY;
+        final Quest last = elements.get(elements.size() - 1);
+        for (final Quest next : quests) {
+            final double step = CooldownCalculator.getDistance(last, next);
+            if (elements.contains(next) || step > maxStepDistance || distance + step > maxBundleDistance) {
+                continue;
+            }
+            elements.add(next);
+            cheapestDistance = Math.min(cheapestDistance, getCheapestBundleDistance(
+                    quests, pattern, elements, distance + step, maxStepDistance, maxBundleDistance));
+            elements.remove(elements.size() - 1);
+        }
+        return cheapestDistance;
+    }
+
+    /**
+     * Checks that the tour visits each of the {@code quests} at most once, in bundles accepted by the patterns, and
+     * within the limits of {@link #CONFIG}.
+     */
+    private void assertValid(final Tour tour, final List<Quest> quests) {
+        final List<? extends GeoPoint> elements = tour.getElements();
+        assertTrue(quests.containsAll(elements));
+        assertEquals(elements.size(), new HashSet<>(elements).size());
+        for (int i = 1; i < elements.size(); i++) {
+            assertTrue(CooldownCalculator.getDistance(elements.get(i - 1), elements.get(i))
+                    <= CONFIG.maxStepDistance().get());
+        }
+        assertTrue(tour.getTotalDuration().compareTo(CONFIG.maxTourDuration().get()) <= 0);
+
+        for (final Bundle<? extends GeoPoint> bundle : tour.getBundles()) {
+            assertTrue(patterns.stream().anyMatch(pattern -> {
+                final BundleValidator<GeoPoint, String> validator = pattern.createValidator();
+                for (final GeoPoint element : bundle.getElements()) {
+                    if (!validator.canAddToBundle(element)) {
+                        return false;
+                    }
+                    validator.addToBundle(element);
+                }
+                return validator.isComplete();
+            }), bundle.toString());
+        }
+    }
+
+}